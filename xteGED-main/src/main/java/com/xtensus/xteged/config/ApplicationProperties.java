@@ -1,5 +1,7 @@
 package com.xtensus.xteged.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +12,141 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Cache cache = new Cache();
+
     // jhipster-needle-application-properties-property
+
+    public Cache getCache() {
+        return cache;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Cache {
+
+        /**
+         * Caches Hazelcast nommés (métadonnées Alfresco), par nom de cache.
+         */
+        private final Map<String, MapCache> maps = new LinkedHashMap<>();
+
+        /**
+         * Niveau local (Caffeine, par JVM) devant Hazelcast.
+         */
+        private final Local local = new Local();
+
+        public Map<String, MapCache> getMaps() {
+            return maps;
+        }
+
+        public Local getLocal() {
+            return local;
+        }
+    }
+
+    public static class Local {
+
+        private boolean enabled = true;
+
+        private int timeToLiveSeconds = 60;
+
+        private int maxSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class MapCache {
+
+        private int timeToLiveSeconds = 300;
+
+        private int maxSize = 10000;
+
+        private final NearCache nearCache = new NearCache();
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public NearCache getNearCache() {
+            return nearCache;
+        }
+    }
+
+    public static class NearCache {
+
+        private boolean enabled = true;
+
+        private int timeToLiveSeconds = 60;
+
+        private int maxIdleSeconds = 0;
+
+        private int maxSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxIdleSeconds() {
+            return maxIdleSeconds;
+        }
+
+        public void setMaxIdleSeconds(int maxIdleSeconds) {
+            this.maxIdleSeconds = maxIdleSeconds;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
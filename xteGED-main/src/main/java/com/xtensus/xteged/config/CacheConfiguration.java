@@ -3,6 +3,8 @@ package com.xtensus.xteged.config;
 import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
 import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,8 @@ import tech.jhipster.config.cache.PrefixedKeyGenerator;
 @EnableCaching
 public class CacheConfiguration {
 
+    private static final String CACHE_INVALIDATION_TOPIC = "xteGED-cache-invalidation";
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
 
@@ -58,13 +62,25 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public CacheManager cacheManager(HazelcastInstance hazelcastInstance) {
-        log.debug("Starting HazelcastCacheManager");
-        return new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+    public CacheManager cacheManager(
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        log.debug("Starting HazelcastCacheManager with local Caffeine tier");
+        Map<String, ApplicationProperties.MapCache> maps = applicationProperties.getCache().getMaps();
+        return new TieredCacheManager(
+            new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance),
+            hazelcastInstance.getTopic(CACHE_INVALIDATION_TOPIC),
+            applicationProperties.getCache().getLocal(),
+            // Les maps avec near cache ont déjà leur niveau local
+            name -> !maps.containsKey(name) || !maps.get(name).getNearCache().isEnabled(),
+            meterRegistry
+        );
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         log.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("xteGED");
         if (hazelCastInstance != null) {
@@ -106,6 +122,11 @@ public class CacheConfiguration {
         }
         config.setManagementCenterConfig(new ManagementCenterConfig());
         config.addMapConfig(initializeDefaultMapConfig(jHipsterProperties));
+        config.addMapConfig(initializeDomainMapConfig(jHipsterProperties));
+        applicationProperties
+            .getCache()
+            .getMaps()
+            .forEach((name, properties) -> config.addMapConfig(initializeNamedMapConfig(name, properties, jHipsterProperties)));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -145,6 +166,42 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    /**
+     * Cache nommé (métadonnées Alfresco) : TTL et taille propres, et near cache local à chaque membre pour que les
+     * lectures répétées ne passent ni par le réseau ni par la désérialisation.
+     */
+    static MapConfig initializeNamedMapConfig(String name, ApplicationProperties.MapCache properties, JHipsterProperties jHipsterProperties) {
+        MapConfig mapConfig = new MapConfig(name);
+        mapConfig.setBackupCount(jHipsterProperties.getCache().getHazelcast().getBackupCount());
+        mapConfig.setTimeToLiveSeconds(properties.getTimeToLiveSeconds());
+        mapConfig
+            .getEvictionConfig()
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
+            .setSize(properties.getMaxSize());
+
+        ApplicationProperties.NearCache nearCache = properties.getNearCache();
+        if (nearCache.isEnabled()) {
+            /*
+            OBJECT : les valeurs sont gardées désérialisées (elles ne doivent pas être modifiées par l'appelant).
+            invalidate-on-change : toute écriture dans la map, sur n'importe quel membre, invalide les near caches.
+            */
+            NearCacheConfig nearCacheConfig = new NearCacheConfig(name)
+                .setInMemoryFormat(InMemoryFormat.OBJECT)
+                .setInvalidateOnChange(true)
+                .setCacheLocalEntries(true)
+                .setTimeToLiveSeconds(nearCache.getTimeToLiveSeconds())
+                .setMaxIdleSeconds(nearCache.getMaxIdleSeconds());
+            nearCacheConfig
+                .getEvictionConfig()
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                .setSize(nearCache.getMaxSize());
+            mapConfig.setNearCacheConfig(nearCacheConfig);
+        }
+        return mapConfig;
+    }
+
     @Autowired(required = false)
     public void setGitProperties(GitProperties gitProperties) {
         this.gitProperties = gitProperties;
@@ -0,0 +1,318 @@
+package com.xtensus.xteged.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Cache à deux niveaux : Caffeine par JVM (L1, borné en taille et en durée) devant le cache partagé (L2, Hazelcast).
+ * <p>
+ * Une lecture servie par L1 ne paie ni désérialisation ni aller-retour réseau. Toute écriture ou invalidation passe
+ * par L2 puis est diffusée sur un topic Hazelcast : chaque membre retire alors l'entrée de son L1. Le TTL de L1
+ * borne la fraîcheur des entrées modifiées sans passer par ce gestionnaire.
+ * <p>
+ * Les caches exclus de L1 (ceux qui ont déjà un near cache Hazelcast) sont servis directement par L2. Métriques par
+ * niveau : {@code cache.tier.gets} (result = hit/miss) et {@code cache.tier.evictions}, tags {@code cache} et
+ * {@code tier} (l1/l2) ; les évictions L1 sont celles de Caffeine (taille, TTL), les évictions L2 les
+ * invalidations demandées (celles de Hazelcast lui-même figurent dans ses statistiques de map).
+ */
+public class TieredCacheManager implements CacheManager {
+
+    // Puissance de 2
+    private static final int EPOCH_STRIPES = 64;
+
+    private final Logger log = LoggerFactory.getLogger(TieredCacheManager.class);
+
+    private final CacheManager remote;
+
+    private final ITopic<Invalidation> topic;
+
+    private final ApplicationProperties.Local local;
+
+    private final Predicate<String> localEnabled;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(
+        CacheManager remote,
+        ITopic<Invalidation> topic,
+        ApplicationProperties.Local local,
+        Predicate<String> localEnabled,
+        MeterRegistry meterRegistry
+    ) {
+        this.remote = remote;
+        this.topic = topic;
+        this.local = local;
+        this.localEnabled = localEnabled;
+        this.meterRegistry = meterRegistry;
+        topic.addMessageListener(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = remote.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> create(l2));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private Cache create(Cache l2) {
+        TieredCache cache = new TieredCache(l2, local.isEnabled() && localEnabled.test(l2.getName()));
+        cache.registerMetrics();
+        return cache;
+    }
+
+    // Invalidations des autres membres ; les nôtres ont déjà été appliquées localement
+    private void onInvalidation(Message<Invalidation> message) {
+        if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) {
+            return;
+        }
+        Invalidation invalidation = message.getMessageObject();
+        Cache cache = caches.get(invalidation.cacheName);
+        if (cache instanceof TieredCache) {
+            ((TieredCache) cache).invalidateLocal(invalidation.key);
+        }
+    }
+
+    /**
+     * Message d'invalidation diffusé entre membres ; {@code key} nulle : tout le cache.
+     */
+    public static final class Invalidation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String cacheName;
+
+        private final Object key;
+
+        Invalidation(String cacheName, Object key) {
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+    }
+
+    final class TieredCache implements Cache {
+
+        private final Cache l2;
+
+        private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> l1;
+
+        private final LongAdder l2Hits = new LongAdder();
+
+        private final LongAdder l2Misses = new LongAdder();
+
+        private final LongAdder l2Evictions = new LongAdder();
+
+        // Invalidations de L1 par groupe de clés : une valeur lue dans L2 avant une invalidation n'entre pas dans L1
+        private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+
+        private TieredCache(Cache l2, boolean withL1) {
+            this.l2 = l2;
+            this.l1 = withL1
+                ? Caffeine
+                    .newBuilder()
+                    .maximumSize(local.getMaxSize())
+                    .expireAfterWrite(Duration.ofSeconds(local.getTimeToLiveSeconds()))
+                    .recordStats()
+                    .build()
+                : null;
+        }
+
+        @Override
+        public String getName() {
+            return l2.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return l2.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            if (l1 != null) {
+                ValueWrapper cached = l1.getIfPresent(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            long epoch = epoch(key);
+            ValueWrapper value = l2.get(key);
+            (value != null ? l2Hits : l2Misses).increment();
+            if (value != null) {
+                fillLocal(key, epoch, value.get());
+            }
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            ValueWrapper value = get(key);
+            if (value == null) {
+                return null;
+            }
+            Object cached = value.get();
+            if (cached != null && type != null && !type.isInstance(cached)) {
+                throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + cached);
+            }
+            @SuppressWarnings("unchecked")
+            T result = (T) cached;
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper cached = get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            // Chargement sous le verrou de L2 : un seul membre charge, les autres lisent sa valeur
+            long epoch = epoch(key);
+            T value = l2.get(key, valueLoader);
+            fillLocal(key, epoch, value);
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            l2.put(key, value);
+            invalidate(key);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = l2.putIfAbsent(key, value);
+            if (existing == null) {
+                invalidate(key);
+            }
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            l2.evict(key);
+            l2Evictions.increment();
+            invalidate(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = l2.evictIfPresent(key);
+            l2Evictions.increment();
+            invalidate(key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            l2.clear();
+            l2Evictions.increment();
+            invalidate(null);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean present = l2.invalidate();
+            l2Evictions.increment();
+            invalidate(null);
+            return present;
+        }
+
+        private void invalidate(Object key) {
+            invalidateLocal(key);
+            try {
+                topic.publish(new Invalidation(getName(), key));
+            } catch (RuntimeException e) {
+                // Les autres membres retomberont sur le TTL de leur L1
+                log.warn("Diffusion de l'invalidation du cache {} impossible : {}", getName(), e.getMessage());
+            }
+        }
+
+        private void invalidateLocal(Object key) {
+            if (l1 == null) {
+                return;
+            }
+            if (key == null) {
+                // Époques changées avant le vidage : un remplissage en cours est soit vidé, soit refusé
+                for (int stripe = 0; stripe < EPOCH_STRIPES; stripe++) {
+                    epochs.incrementAndGet(stripe);
+                }
+                l1.invalidateAll();
+            } else {
+                l1.asMap().compute(key, (k, current) -> {
+                    epochs.incrementAndGet(stripe(k));
+                    return null;
+                });
+            }
+        }
+
+        /**
+         * Met dans L1 une valeur lue dans L2 à l'époque {@code epoch}, sauf si la clé a été invalidée depuis ; le test
+         * et l'écriture se font sous le verrou de la clé, comme l'invalidation.
+         */
+        private void fillLocal(Object key, long epoch, Object value) {
+            if (l1 == null) {
+                return;
+            }
+            l1.asMap().compute(key, (k, current) -> epochs.get(stripe(k)) == epoch ? new SimpleValueWrapper(value) : current);
+        }
+
+        private long epoch(Object key) {
+            return l1 == null ? 0 : epochs.get(stripe(key));
+        }
+
+        private int stripe(Object key) {
+            int hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & (EPOCH_STRIPES - 1);
+        }
+
+        private void registerMetrics() {
+            if (l1 != null) {
+                gets("l1", "hit", this, cache -> cache.l1.stats().hitCount());
+                gets("l1", "miss", this, cache -> cache.l1.stats().missCount());
+                counter("cache.tier.evictions", "l1", this, cache -> cache.l1.stats().evictionCount()).register(meterRegistry);
+            }
+            gets("l2", "hit", l2Hits, LongAdder::sum);
+            gets("l2", "miss", l2Misses, LongAdder::sum);
+            counter("cache.tier.evictions", "l2", l2Evictions, LongAdder::sum).register(meterRegistry);
+        }
+
+        private <S> void gets(String tier, String result, S state, ToDoubleFunction<S> count) {
+            counter("cache.tier.gets", tier, state, count).tag("result", result).register(meterRegistry);
+        }
+
+        private <S> FunctionCounter.Builder<S> counter(String name, String tier, S state, ToDoubleFunction<S> count) {
+            return FunctionCounter.builder(name, state, count).tag("cache", getName()).tag("tier", tier);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.xtensus.xteged.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Authentification du compte technique auprès de l'API REST Alfresco, ajoutée à chaque requête par un filtre
+ * {@link ExchangeFilterFunction} ({@link AlfrescoHttpClient#alfresco()}).
+ * <p>
+ * Deux modes ({@code alfresco.http.auth.mode}) :
+ * <ul>
+ *     <li>{@code basic} : en-tête {@code Basic user:pass} calculé une seule fois ;</li>
+ *     <li>{@code ticket} : ticket Alfresco obtenu via {@code /authentication/versions/1/tickets}, partagé par toutes
+ *     les requêtes et renouvelé à expiration du TTL ou sur une réponse 401 ; Alfresco ne revérifie alors plus le
+ *     mot de passe à chaque appel.</li>
+ * </ul>
+ * Une requête portant déjà un en-tête {@code Authorization} (jeton de l'utilisateur) est transmise telle quelle.
+ */
+@Component
+public class AlfrescoAuthentication implements ExchangeFilterFunction {
+
+    private final Logger log = LoggerFactory.getLogger(AlfrescoAuthentication.class);
+
+    @Value("${alfresco.repository.user}")
+    private String alfrescoUser;
+
+    @Value("${alfresco.repository.pass}")
+    private String alfrescoPass;
+
+    @Value("${alfresco.url}")
+    private String alfrescoUrl;
+
+    @Value("${alfresco.http.auth.mode:basic}")
+    private String mode;
+
+    // Sans valeur, déduite de alfresco.url (.../alfresco/versions/1 -> .../authentication/versions/1/tickets)
+    @Value("${alfresco.http.auth.ticket-url:}")
+    private String ticketUrl;
+
+    // Inférieur à l'expiration des tickets côté Alfresco (authentication.ticket.validDuration, 1 h par défaut)
+    @Value("${alfresco.http.auth.ticket-ttl-ms:1800000}")
+    private long ticketTtl;
+
+    private String basicHeader;
+
+    private boolean ticketMode;
+
+    private final AtomicReference<Mono<String>> ticketHeader = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        if (!"basic".equals(mode) && !"ticket".equals(mode)) {
+            throw new IllegalArgumentException("alfresco.http.auth.mode inconnu : " + mode + " (basic ou ticket)");
+        }
+        ticketMode = "ticket".equals(mode);
+        basicHeader = basic(alfrescoUser + ":" + alfrescoPass);
+        if (ticketUrl == null || ticketUrl.isEmpty()) {
+            ticketUrl = alfrescoUrl.replaceFirst("/alfresco/versions/1/?$", "/authentication/versions/1") + "/tickets";
+        }
+        log.info("Authentification Alfresco : {}", ticketMode ? "ticket (" + ticketUrl + ")" : "basic");
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return next.exchange(request);
+        }
+        if (!ticketMode) {
+            return next.exchange(authorized(request, basicHeader));
+        }
+        Mono<String> ticket = ticket(next);
+        return ticket
+            .flatMap(header -> next.exchange(authorized(request, header)))
+            .flatMap(response -> {
+                if (response.statusCode() != HttpStatus.UNAUTHORIZED) {
+                    return Mono.just(response);
+                }
+                // Ticket expiré ou invalidé côté Alfresco : un nouveau ticket, une seule nouvelle tentative
+                ticketHeader.compareAndSet(ticket, null);
+                return response.releaseBody().then(ticket(next).flatMap(header -> next.exchange(authorized(request, header))));
+            });
+    }
+
+    /**
+     * En-tête du ticket courant, demandé une seule fois pour toutes les requêtes concurrentes.
+     */
+    private Mono<String> ticket(ExchangeFunction next) {
+        Mono<String> current = ticketHeader.get();
+        if (current != null) {
+            return current;
+        }
+        Mono<String> requested = requestTicket(next)
+            .cache(header -> Duration.ofMillis(ticketTtl), error -> Duration.ZERO, () -> Duration.ZERO);
+        return ticketHeader.compareAndSet(null, requested) ? requested : ticketHeader.get();
+    }
+
+    private Mono<String> requestTicket(ExchangeFunction next) {
+        ClientRequest request = ClientRequest
+            .create(HttpMethod.POST, URI.create(ticketUrl))
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(BodyInserters.fromValue(Map.of("userId", alfrescoUser, "password", alfrescoPass)))
+            .build();
+        return next
+            .exchange(request)
+            .flatMap(response -> {
+                if (!response.statusCode().is2xxSuccessful()) {
+                    return response.createException().flatMap(Mono::error);
+                }
+                return response.bodyToMono(TicketResponse.class);
+            })
+            .map(response -> {
+                log.debug("Nouveau ticket Alfresco pour {}", alfrescoUser);
+                return basic(response.entry.id);
+            });
+    }
+
+    private static ClientRequest authorized(ClientRequest request, String header) {
+        return ClientRequest.from(request).headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, header)).build();
+    }
+
+    private static String basic(String credentials) {
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static class TicketResponse {
+
+        public Ticket entry;
+    }
+
+    static class Ticket {
+
+        public String id;
+
+        public String userId;
+    }
+}
@@ -0,0 +1,164 @@
+package com.xtensus.xteged.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Client HTTP partagé pour les appels REST vers Alfresco et Keycloak.
+ * <p>
+ * Tous les {@link WebClient} construits ici partagent un même pool de connexions Reactor Netty, nommé et borné
+ * (connexions, file d'attente d'acquisition, durées d'inactivité / de vie), au lieu du pool par défaut de chaque
+ * {@code WebClient.Builder}. L'état du pool est publié sous {@code xteged.http.pool.*} (par hôte distant).
+ */
+@Component
+public class AlfrescoHttpClient {
+
+    private final Logger log = LoggerFactory.getLogger(AlfrescoHttpClient.class);
+
+    @Value("${alfresco.url}")
+    private String alfrescoUrl;
+
+    @Value("${alfresco.http.keycloak-admin-url:http://localhost:9080/auth/admin/realms/postarion}")
+    private String keycloakAdminUrl;
+
+    @Value("${alfresco.http.pool.name:alfresco}")
+    private String poolName;
+
+    @Value("${alfresco.http.pool.max-connections:100}")
+    private int maxConnections;
+
+    // Requêtes en attente d'une connexion libre au-delà desquelles l'acquisition échoue immédiatement
+    @Value("${alfresco.http.pool.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${alfresco.http.pool.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeout;
+
+    // Inférieur au keep-alive d'Alfresco (Tomcat : 60 s) pour ne pas réutiliser une connexion fermée par le serveur
+    @Value("${alfresco.http.pool.max-idle-time-ms:30000}")
+    private long maxIdleTime;
+
+    @Value("${alfresco.http.pool.max-life-time-ms:300000}")
+    private long maxLifeTime;
+
+    @Value("${alfresco.http.pool.evict-interval-ms:60000}")
+    private long evictInterval;
+
+    @Value("${alfresco.http.connect-timeout-ms:5000}")
+    private int connectTimeout;
+
+    @Value("${alfresco.http.response-timeout-ms:60000}")
+    private long responseTimeout;
+
+    @Value("${alfresco.http.keep-alive:true}")
+    private boolean keepAlive;
+
+    @Value("${alfresco.http.http2:false}")
+    private boolean http2;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AlfrescoAuthentication authentication;
+
+    private ConnectionProvider connectionProvider;
+
+    private ReactorClientHttpConnector connector;
+
+    public AlfrescoHttpClient(MeterRegistry meterRegistry, AlfrescoAuthentication authentication) {
+        this.meterRegistry = meterRegistry;
+        this.authentication = authentication;
+    }
+
+    @PostConstruct
+    public void init() {
+        connectionProvider =
+            ConnectionProvider
+                .builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                .maxIdleTime(Duration.ofMillis(maxIdleTime))
+                .maxLifeTime(Duration.ofMillis(maxLifeTime))
+                .evictInBackground(Duration.ofMillis(evictInterval))
+                .metrics(true, () -> this::registerPoolMetrics)
+                .build();
+
+        HttpClient httpClient = HttpClient
+            .create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+            .responseTimeout(Duration.ofMillis(responseTimeout))
+            .keepAlive(keepAlive);
+        if (http2) {
+            // HTTP/2 en clair (h2c) avec repli sur HTTP/1.1 ; en HTTPS, négocié par ALPN
+            httpClient =
+                alfrescoUrl.startsWith("https")
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        connector = new ReactorClientHttpConnector(httpClient);
+        log.info(
+            "Pool HTTP {} : {} connexions max, {} en attente max, HTTP/2 {}",
+            poolName,
+            maxConnections,
+            pendingAcquireMaxCount,
+            http2 ? "activé" : "désactivé"
+        );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Client de l'API REST publique Alfresco ({@code alfresco.url}), authentifié par {@link AlfrescoAuthentication}.
+     */
+    public WebClient alfresco() {
+        return builder().baseUrl(alfrescoUrl).filter(authentication).build();
+    }
+
+    /**
+     * Client de l'API d'administration Keycloak du realm.
+     */
+    public WebClient keycloakAdmin() {
+        return builder().baseUrl(keycloakAdminUrl).build();
+    }
+
+    /**
+     * Builder utilisant le pool partagé, pour un autre service HTTP.
+     */
+    public WebClient.Builder builder() {
+        return WebClient.builder().clientConnector(connector);
+    }
+
+    private void registerPoolMetrics(String name, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", name, "remote.address", String.valueOf(remoteAddress));
+        gauge("xteged.http.pool.acquired", "Connexions en cours d'utilisation", tags, metrics, ConnectionPoolMetrics::acquiredSize);
+        gauge("xteged.http.pool.idle", "Connexions inactives", tags, metrics, ConnectionPoolMetrics::idleSize);
+        gauge("xteged.http.pool.allocated", "Connexions ouvertes", tags, metrics, ConnectionPoolMetrics::allocatedSize);
+        gauge("xteged.http.pool.pending", "Requêtes en attente d'une connexion", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize);
+        gauge("xteged.http.pool.max", "Connexions max", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize);
+    }
+
+    private void gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics, ToDoubleFunction<ConnectionPoolMetrics> value) {
+        Gauge.builder(name, metrics, value).description(description).tags(tags).strongReference(true).register(meterRegistry);
+    }
+}
@@ -0,0 +1,166 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cache des métadonnées Alfresco (nœuds, personnes, sites) dans les maps Hazelcast configurées sous
+ * {@code application.cache.maps}, avec near cache local à chaque membre.
+ * <p>
+ * Chaque variante demandée (paramètres {@code include}/{@code fields}...) est une entrée à part, sous une clé qui
+ * porte la génération courante de l'identifiant ; {@link #evict} retire cette génération, ce qui invalide d'un coup
+ * toutes les représentations du nœud (les anciennes entrées ne sont plus lues et expirent avec le TTL de la map).
+ * Une écriture ne touche donc jamais une entrée partagée par plusieurs variantes : pas de lecture-modification-écriture
+ * entre membres. La génération est lue, ou créée, avant le chargement, et l'écriture (hors du thread appelant)
+ * est abandonnée si elle a changé entre-temps : une valeur chargée pendant une invalidation n'est jamais servie.
+ * Les valeurs sont gardées telles quelles par le near cache (format objet) : elles ne doivent pas être modifiées
+ * par les appelants.
+ * <p>
+ * {@code @Cacheable} ne convient pas ici : sur un {@link Mono}, il mettrait en cache le publisher et non sa valeur.
+ * Une indisponibilité du cache n'empêche pas la lecture : on retombe sur Alfresco.
+ */
+@Component
+public class AlfrescoMetadataCache {
+
+    public static final String NODES = "alfresco-nodes";
+
+    public static final String PEOPLE = "alfresco-people";
+
+    public static final String SITES = "alfresco-sites";
+
+    private final Logger log = LoggerFactory.getLogger(AlfrescoMetadataCache.class);
+
+    private final CacheManager cacheManager;
+
+    // Écritures dans le cache partagé, bloquantes : hors des threads de requête
+    private final Scheduler writes;
+
+    @Autowired
+    public AlfrescoMetadataCache(CacheManager cacheManager) {
+        this(cacheManager, Schedulers.boundedElastic());
+    }
+
+    AlfrescoMetadataCache(CacheManager cacheManager, Scheduler writes) {
+        this.cacheManager = cacheManager;
+        this.writes = writes;
+    }
+
+    /**
+     * Valeur de la variante {@code variant} de {@code id}, lue dans le cache ou chargée par {@code loader} puis
+     * mise en cache. Les erreurs et les réponses vides ne sont pas mises en cache.
+     */
+    public <T extends Serializable> Mono<T> get(String cacheName, String id, String variant, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            Cache cache = cache(cacheName);
+            if (cache == null || id == null) {
+                return loader.get();
+            }
+            String generation = read(cache, id, String.class);
+            @SuppressWarnings("unchecked")
+            T cached = generation == null ? null : (T) read(cache, key(id, generation, variant), Serializable.class);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            // Génération réservée avant le chargement : une invalidation pendant celui-ci la retire
+            Mono<Optional<String>> claimed = generation != null
+                ? Mono.just(Optional.of(generation))
+                : Mono.fromCallable(() -> claim(cache, id)).subscribeOn(writes);
+            return claimed.flatMap(current ->
+                loader
+                    .get()
+                    .doOnNext(value -> current.ifPresent(g -> writes.schedule(() -> write(cache, id, g, variant, value))))
+            );
+        });
+    }
+
+    /**
+     * Oublie toutes les variantes de {@code id}.
+     */
+    public void evict(String cacheName, String id) {
+        Cache cache = cache(cacheName);
+        if (cache == null || id == null) {
+            return;
+        }
+        try {
+            cache.evict(id);
+        } catch (RuntimeException e) {
+            log.warn("Invalidation impossible de {} dans le cache {} : {}", id, cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Nœud modifié par l'application : toutes ses représentations sont oubliées, ainsi que le dossier de destination
+     * d'une copie.
+     */
+    @EventListener
+    public void onNodeChanged(NodeChangedEvent event) {
+        evict(NODES, event.getNodeId());
+        if (event.getTargetParentId() != null) {
+            evict(NODES, event.getTargetParentId());
+        }
+    }
+
+    private Cache cache(String cacheName) {
+        try {
+            return cacheManager.getCache(cacheName);
+        } catch (RuntimeException e) {
+            log.warn("Cache {} indisponible : {}", cacheName, e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T read(Cache cache, Object key, Class<T> type) {
+        try {
+            return cache.get(key, type);
+        } catch (RuntimeException e) {
+            log.warn("Lecture impossible de {} dans le cache {} : {}", key, cache.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Génération courante de {@code id}, créée si besoin ; vide si le cache est indisponible.
+     */
+    private Optional<String> claim(Cache cache, String id) {
+        try {
+            String created = UUID.randomUUID().toString();
+            Cache.ValueWrapper existing = cache.putIfAbsent(id, created);
+            return Optional.of(existing != null && existing.get() instanceof String ? (String) existing.get() : created);
+        } catch (RuntimeException e) {
+            log.warn("Écriture impossible de {} dans le cache {} : {}", id, cache.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Écrit la variante sous la génération réservée avant le chargement, sauf si {@code id} a été invalidé depuis.
+     */
+    private void write(Cache cache, String id, String generation, String variant, Serializable value) {
+        try {
+            if (!generation.equals(read(cache, id, String.class))) {
+                log.debug("{} invalidé pendant son chargement, variante {} non mise en cache", id, variant);
+                return;
+            }
+            cache.put(key(id, generation, variant), value);
+        } catch (RuntimeException e) {
+            log.warn("Écriture impossible de {} dans le cache {} : {}", id, cache.getName(), e.getMessage());
+        }
+    }
+
+    private static String key(String id, String generation, String variant) {
+        return id + "|" + generation + "|" + variant;
+    }
+}
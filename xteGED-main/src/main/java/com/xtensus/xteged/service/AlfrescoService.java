@@ -1,78 +1,137 @@
 package com.xtensus.xteged.service;
 
 import com.xtensus.xteged.service.impl.CmisServiceImpl;
+import com.xtensus.xteged.service.node.NodeBatchResponse;
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import com.xtensus.xteged.service.node.NodeEntry;
+import com.xtensus.xteged.service.node.NodeListResponse;
+import com.xtensus.xteged.service.person.Pagination;
+import com.xtensus.xteged.service.ldap.Person;
 import com.xtensus.xteged.service.person.PeopleListResponse;
+import com.xtensus.xteged.service.person.PersonChangedEvent;
 import com.xtensus.xteged.service.person.PersonEntry;
 import org.apache.chemistry.opencmis.client.api.*;
-import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
-import org.apache.chemistry.opencmis.commons.enums.BindingType;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNameConstraintViolationException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
+import java.io.Serializable;
 import java.util.*;
 
 @Service
 public class AlfrescoService {
-    private Session session;
-
     private final WebClient webClient;
 
-    @Value("${alfresco.repository.user}")
-    private String alfrescoUser;
     @Value("${alfresco.url}")
     private String alfrescoUrl;
-    @Value("${alfresco.repository.pass}")
-    private String alfrescoPass;
 
     @Value("${alfresco.repository.url}")
     private String alfrescoRepoUrl;
 
-    public AlfrescoService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8080/alfresco/api/-default-/public/alfresco/versions/1").build(); // Assurez-vous de définir l'URL de base appropriée
+    @Value("${alfresco.node-batch.max-ids:200}")
+    private int batchMaxIds;
+
+    @Value("${alfresco.node-batch.concurrency:8}")
+    private int batchConcurrency;
+
+    private final CmisService cmisService;
+
+    private final CmisSessionProvider sessionProvider;
+
+    private final FolderPathResolver folderPathResolver;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AlfrescoMetadataCache metadataCache;
+
+    // Lectures identiques simultanées (getNode, getNodeDetails, getPersonById) : un seul appel vers Alfresco
+    private final RequestCoalescer requestCoalescer;
+
+    private final AsyncCmisService asyncCmisService;
+
+    public AlfrescoService(
+        AlfrescoHttpClient httpClient,
+        CmisService cmisService,
+        CmisSessionProvider sessionProvider,
+        FolderPathResolver folderPathResolver,
+        ApplicationEventPublisher eventPublisher,
+        AlfrescoMetadataCache metadataCache,
+        RequestCoalescer requestCoalescer,
+        AsyncCmisService asyncCmisService
+    ) {
+        this.webClient = httpClient.alfresco();
+        this.cmisService = cmisService;
+        this.sessionProvider = sessionProvider;
+        this.folderPathResolver = folderPathResolver;
+        this.eventPublisher = eventPublisher;
+        this.metadataCache = metadataCache;
+        this.requestCoalescer = requestCoalescer;
+        this.asyncCmisService = asyncCmisService;
     }
 
     private static final HashMap<String, String> mimeTypeMapping = new HashMap<>();
+    private static final int MAX_RENAME_ATTEMPTS = 5;
     private final Logger log = LoggerFactory.getLogger(CmisServiceImpl.class);
 
-    // Méthode pour initialiser la session Alfresco
-    public void setSession(Session session) {
-        this.session = session;
+    /**
+     * Diffuse une modification de nœud réussie (caches, chemins de dossiers, index) ; un abonné en échec
+     * n'annule pas l'écriture déjà faite dans Alfresco.
+     */
+    private void publishNodeChanged(NodeChangedEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Diffusion de la modification du nœud {} ({}) en échec : {}", event.getNodeId(), event.getType(), e.getMessage());
+        }
     }
 
-    public void initializeSession(String username, String password, String atomPubUrl) {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.put(SessionParameter.USER, username);
-        parameters.put(SessionParameter.PASSWORD, password);
-        parameters.put(SessionParameter.ATOMPUB_URL, atomPubUrl);
-        parameters.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
+    /**
+     * {@code mutation} suivie de la diffusion de {@code event} : les abonnés (Hazelcast, cache des chemins) sont
+     * bloquants et s'exécutent hors des threads Netty, mais avant que la réponse ne soit rendue.
+     */
+    private <T> Mono<T> withNodeChanged(Mono<T> mutation, NodeChangedEvent event) {
+        return mutation
+            .flatMap(value -> nodeChanged(event).thenReturn(value))
+            .switchIfEmpty(nodeChanged(event).then(Mono.empty()));
+    }
 
-        SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
-        this.session = sessionFactory.getRepositories(parameters).get(0).createSession();
+    private Mono<Void> nodeChanged(NodeChangedEvent event) {
+        return Mono.<Void>fromRunnable(() -> publishNodeChanged(event)).subscribeOn(Schedulers.boundedElastic());
     }
+
 ////////////////////////////////////////////////////////////////////
 
-    public Mono<Object> getAllDocuments(String nodeId, String include) {
+    public Mono<NodeListResponse> getAllDocuments(String nodeId, String include) {
+        return getChildrenPage(nodeId, include, null, null);
+    }
+
+    // Une page d'enfants ; skipCount/maxItems null : valeurs par défaut d'Alfresco
+    private Mono<NodeListResponse> getChildrenPage(String nodeId, String include, Integer skipCount, Integer maxItems) {
 
         String url = String.format("/nodes/%s/children", nodeId);
 
@@ -80,14 +139,31 @@ public class AlfrescoService {
             .uri(uriBuilder -> uriBuilder
                 .path(url)
                 .queryParam("include", include)
+                .queryParamIfPresent("skipCount", Optional.ofNullable(skipCount))
+                .queryParamIfPresent("maxItems", Optional.ofNullable(maxItems))
                 .build())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response ->
                 response.bodyToMono(String.class)
                     .flatMap(errorBody -> Mono.error(new RuntimeException("Failed to get nodes: " + errorBody)))
             )
-            .bodyToMono(Object.class); // Remplacez Object par un modèle spécifique si nécessaire
+            .bodyToMono(NodeListResponse.class);
+    }
+
+    /**
+     * Tous les enfants d'un nœud, page par page : les entrées sont émises dès la réception de chaque page,
+     * la page suivante n'étant demandée qu'ensuite (mémoire bornée par la taille de page).
+     */
+    public Flux<NodeEntry> streamChildren(String nodeId, String include, int pageSize) {
+        return getChildrenPage(nodeId, include, 0, pageSize)
+            .expand(page -> {
+                Pagination pagination = page.getList().getPagination();
+                if (pagination == null || !pagination.isHasMoreItems()) {
+                    return Mono.empty();
+                }
+                return getChildrenPage(nodeId, include, pagination.getSkipCount() + pagination.getCount(), pageSize);
+            })
+            .concatMapIterable(page -> page.getList().getEntries() != null ? page.getList().getEntries() : Collections.emptyList());
     }
 
 
@@ -98,30 +174,35 @@ public class AlfrescoService {
 
         return webClient.delete()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to delete node")))
             .bodyToMono(Void.class)
+            .then(nodeChanged(new NodeChangedEvent(NodeChangedEvent.Type.DELETED, nodeId)))
             .then(Mono.just("Node deleted successfully"));
     }
 
     ////////////////////////////////
-    public Mono<byte[]> downloadFileContent(String nodeId) {
+    // Relais du contenu Alfresco sous forme de flux : les en-têtes de la réponse amont (type, taille,
+    // Content-Range, Content-Disposition...) sont disponibles avant que le premier octet ne soit lu.
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileContent(String nodeId, String range, String ifRange) {
         String url = String.format("%s/nodes/%s/content", alfrescoUrl, nodeId);
 
         return webClient.get()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
+            .headers(headers -> {
+                if (range != null) {
+                    headers.set(HttpHeaders.RANGE, range);
+                }
+                if (ifRange != null) {
+                    headers.set(HttpHeaders.IF_RANGE, ifRange);
+                }
+            })
             .retrieve()
-            .onStatus(HttpStatus::isError, response ->
-                response.bodyToMono(String.class)
-                    .flatMap(errorBody -> {
-                        // Log de l'erreur pour plus de détails
-                        System.err.println("Erreur lors du téléchargement : " + errorBody);
-                        return Mono.error(new RuntimeException("Failed to download file content: " + errorBody));
-                    })
-            )
-            .bodyToMono(byte[].class);
+            .onStatus(HttpStatus::isError, response -> {
+                log.error("Erreur lors du téléchargement du contenu {} : {}", nodeId, response.statusCode());
+                return response.createException().flatMap(Mono::error);
+            })
+            .toEntityFlux(DataBuffer.class);
     }
 
     //////////////////////////////////
@@ -130,21 +211,75 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
     return webClient.post()
         .uri(url)
-        .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
         .contentType(MediaType.APPLICATION_JSON)
         .body(BodyInserters.fromValue(personRequest))
         .retrieve()
         .onStatus(HttpStatus::isError, response -> response.bodyToMono(String.class)
             .flatMap(errorBody -> Mono.error(new RuntimeException("Failed to create person: " + errorBody))))
         .bodyToMono(String.class)
+        .doOnNext(responseBody -> personChanged(personRequest))
         .map(responseBody -> "Person created successfully: " + responseBody);
 }
 
+    /**
+     * Création idempotente d'une personne : {@code false} si elle existe déjà (409), les autres erreurs
+     * ({@link WebClientResponseException}) sont propagées telles quelles pour permettre une nouvelle tentative.
+     */
+    public Mono<Boolean> createPersonIfAbsent(PersonneRequest personRequest) {
+        return webClient.post()
+            .uri(String.format("%s/people", alfrescoUrl))
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(personRequest)
+            .retrieve()
+            .toBodilessEntity()
+            .doOnNext(response -> personChanged(personRequest))
+            .thenReturn(true)
+            .onErrorResume(WebClientResponseException.Conflict.class, e -> Mono.just(false));
+    }
+
+    private void personChanged(PersonneRequest personRequest) {
+        Person person = new Person();
+        person.setId(personRequest.getId());
+        person.setFirstName(personRequest.getFirstName());
+        person.setLastName(personRequest.getLastName());
+        person.setEmail(personRequest.getEmail());
+        // Valeur par défaut d'Alfresco à la création
+        person.setEnabled(true);
+        publishPersonChanged(person);
+    }
+
+    private void personChanged(PersonneResponse.Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        Person person = new Person();
+        person.setId(entry.getId());
+        person.setFirstName(entry.getFirstName());
+        person.setLastName(entry.getLastName());
+        person.setEmail(entry.getEmail());
+        person.setDescription(entry.getDescription());
+        person.setCompany(entry.getCompany());
+        person.setEnabled(entry.isEnabled());
+        person.setEmailNotificationsEnabled(entry.isEmailNotificationsEnabled());
+        publishPersonChanged(person);
+    }
+
+    // Les réponses arrivent sur les threads Reactor Netty : les abonnés (annuaire...) sont appelés hors de ces threads
+    private void publishPersonChanged(Person person) {
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                eventPublisher.publishEvent(new PersonChangedEvent(person));
+            } catch (RuntimeException e) {
+                log.warn("Diffusion de la modification de la personne {} en échec : {}", person.getId(), e.getMessage());
+            }
+        });
+    }
+
 
 
 
     // Méthode pour obtenir les détails d'un nœud
-    public Mono<String> getNode(String nodeId, String[] include, String[] fields) {
+    public Mono<NodeEntry> getNode(String nodeId, String[] include, String[] fields) {
         // Construire l'URL en ajoutant les paramètres query
         String url = String.format("%s/nodes/%s", alfrescoUrl, nodeId);
         StringBuilder uriBuilder = new StringBuilder(url);
@@ -163,19 +298,19 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
             }
         }
 
-        return webClient.get()
+        String variant = "entry|" + Arrays.toString(include) + "|" + Arrays.toString(fields);
+        return requestCoalescer.execute(AlfrescoMetadataCache.NODES + "|" + nodeId + "|" + variant, () -> metadataCache.get(AlfrescoMetadataCache.NODES, nodeId, variant, () -> webClient.get()
             .uri(uriBuilder.toString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 log.error("Failed to retrieve node details. Status code: {}", response.statusCode());
                 return Mono.error(new RuntimeException("Failed to retrieve node details"));
             })
-            .bodyToMono(String.class);
+            .bodyToMono(NodeEntry.class)));
     }
 
     //////////////////////////////////
-    public Mono<String> getDeletedNodes(Integer maxItems, Integer skipCount, String[] include) {
+    public Mono<NodeListResponse> getDeletedNodes(Integer maxItems, Integer skipCount, String[] include) {
         // Construire l'URL en ajoutant les paramètres query
         String url = String.format("%s/deleted-nodes", alfrescoUrl);
         StringBuilder uriBuilder = new StringBuilder(url);
@@ -205,19 +340,18 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.get()
             .uri(uriBuilder.toString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 return response.bodyToMono(String.class)
                     .flatMap(body -> Mono.error(new RuntimeException("Failed to retrieve deleted nodes: " + body)));
             })
-            .bodyToMono(String.class);
+            .bodyToMono(NodeListResponse.class);
     }
 
 
 //////////////////////////////////////////searchPeople//////////////////////////////////////
 
-    public Mono<String> searchPeople(String term, Integer maxItems, Integer skipCount, String[] orderBy) {
+    public Mono<PeopleListResponse> searchPeople(String term, Integer maxItems, Integer skipCount, String[] orderBy) {
         // Construire l'URL en ajoutant les paramètres query
         String url = String.format("%s/queries/people?term=%s", alfrescoUrl, term);
         StringBuilder uriBuilder = new StringBuilder(url);
@@ -239,13 +373,12 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.get()
             .uri(uriBuilder.toString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 log.error("Failed to retrieve people details. Status code: {}", response.statusCode());
                 return Mono.error(new RuntimeException("Failed to retrieve people details"));
             })
-            .bodyToMono(String.class);
+            .bodyToMono(PeopleListResponse.class);
     }
 
 
@@ -258,14 +391,14 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.put()
             .uri(url)
-            .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header("Content-Type", "application/json")
             .bodyValue(requestBody)
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 return Mono.error(new RuntimeException("Failed to share document: " + response.statusCode()));
             })
-            .bodyToMono(String.class);
+            .bodyToMono(String.class)
+            .transform(mutation -> withNodeChanged(mutation, new NodeChangedEvent(NodeChangedEvent.Type.PERMISSIONS_CHANGED, nodeId)));
     }
 
 
@@ -294,7 +427,6 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.get()
             .uri(finalUri)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response -> {
                 String errorMessage = String.format("Client error while retrieving people list. Status code: %d", response.statusCode().value());
@@ -312,16 +444,77 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
 
     public Mono<ResponseEntity<Object>> getNodeDetails(String nodeId, String include, String fields) {
-        String url = String.format("%s/nodes/%s", alfrescoUrl, nodeId);
+        return getNodeBody(nodeId, include, fields)
+            .map(body -> ResponseEntity.ok((Object) body))
+            .doOnError(error -> log.error("Error fetching node details: {}", error.getMessage()))
+            .onErrorResume(e -> {
+                log.error("An error occurred while fetching node details: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Une erreur s'est produite"));
+            });
+    }
 
-        return webClient.get()
-            .uri(uriBuilder -> uriBuilder
+    /**
+     * Métadonnées de plusieurs nœuds en une requête : un appel Alfresco par nœud, au plus
+     * {@code alfresco.node-batch.concurrency} à la fois, chacun passant par le cache et le regroupement des lectures.
+     * Un nœud introuvable ou en erreur figure dans {@code missing} sans faire échouer les autres.
+     */
+    public Mono<NodeBatchResponse<Object>> getNodesDetails(List<String> nodeIds, String include, String fields) {
+        return Mono.defer(() -> {
+            List<String> ids = batchIds(nodeIds);
+            return Flux.fromIterable(ids)
+                .flatMap(id -> getNodeBody(id, include, fields)
+                    .map(body -> Tuples.of(id, (Object) body))
+                    .onErrorResume(e -> {
+                        log.debug("Node {} unavailable in batch: {}", id, e.getMessage());
+                        return Mono.empty();
+                    }), batchConcurrency)
+                .collectMap(Tuple2::getT1, Tuple2::getT2)
+                .map(found -> NodeBatchResponse.of(ids, found));
+        });
+    }
+
+    /**
+     * {@link DocumentDetails} de plusieurs documents : requêtes CMIS {@code IN} par lots, puis lecture individuelle
+     * des documents que la requête n'a pas rendus.
+     */
+    public Mono<NodeBatchResponse<DocumentDetails>> getDocumentsDetails(List<String> nodeIds) {
+        return Mono.fromCallable(() -> batchIds(nodeIds))
+            .flatMap(ids -> asyncCmisService.getDocumentDetails(ids).map(details -> NodeBatchResponse.<DocumentDetails>of(ids, details)));
+    }
+
+    /**
+     * Noms sans extension de plusieurs documents, avec la même limite d'ids que {@link #getDocumentsDetails}.
+     */
+    public Mono<Map<String, String>> getDocumentNames(List<String> nodeIds) {
+        return Mono.fromCallable(() -> batchIds(nodeIds)).flatMap(asyncCmisService::getDocumentNames);
+    }
+
+    // Identifiants distincts et non vides, dans l'ordre de la demande
+    private List<String> batchIds(List<String> nodeIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (nodeIds != null) {
+            for (String id : nodeIds) {
+                if (id != null && !id.isBlank()) {
+                    ids.add(id.trim());
+                }
+            }
+        }
+        if (ids.size() > batchMaxIds) {
+            throw new IllegalArgumentException(String.format("Too many node ids: %d (max %d)", ids.size(), batchMaxIds));
+        }
+        return new ArrayList<>(ids);
+    }
 
+    // Corps JSON d'un nœud (maps et listes, sérialisables) : seul lui est mis en cache, la réponse est reconstruite
+    private Mono<Serializable> getNodeBody(String nodeId, String include, String fields) {
+        String variant = "details|" + include + "|" + fields;
+        return requestCoalescer.execute(AlfrescoMetadataCache.NODES + "|" + nodeId + "|" + variant, () -> metadataCache.get(AlfrescoMetadataCache.NODES, nodeId, variant, () -> webClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/nodes/{nodeId}")
                 .queryParamIfPresent("include", Optional.ofNullable(include))
                 .queryParamIfPresent("fields", Optional.ofNullable(fields))
                 .build(nodeId))
             .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .toEntity(Object.class) // Remplacez par votre classe de réponse
             .doOnSuccess(response -> {
@@ -329,11 +522,8 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
                     log.info("Received node response: {}", response.getBody());
                 }
             })
-            .doOnError(error -> log.error("Error fetching node details: {}", error.getMessage()))
-            .onErrorResume(e -> {
-                log.error("An error occurred while fetching node details: {}", e.getMessage());
-                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Une erreur s'est produite"));
-            });
+            .filter(response -> response.getBody() instanceof Serializable)
+            .map(response -> (Serializable) response.getBody())));
     }
 
 
@@ -347,9 +537,9 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
     public Mono<PersonneResponse> getPersonById(String personId) {
         String url = String.format("%s/people/%s", alfrescoUrl, personId);
 
-        return webClient.get()
+        // L'évènement n'est publié qu'au chargement depuis Alfresco, pas à chaque lecture du cache
+        return requestCoalescer.execute(AlfrescoMetadataCache.PEOPLE + "|" + personId, () -> metadataCache.get(AlfrescoMetadataCache.PEOPLE, personId, "", () -> webClient.get()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 log.error("Error fetching person: {}", response.statusCode());
@@ -357,8 +547,9 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
             })
             .bodyToMono(PersonneResponse.class)
             .doOnNext(personResponse -> {
+                personChanged(personResponse.getEntry());
                 log.info("Received person response: {}", personResponse);
-            });
+            })));
     }
 /////////////////////////////////put person///////////////////////
 
@@ -367,7 +558,6 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.put()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .contentType(MediaType.APPLICATION_JSON)
             .bodyValue(bodyUpdate)
             .retrieve()
@@ -376,7 +566,16 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
                     .flatMap(errorBody -> Mono.error(new RuntimeException("Error updating person: " + errorBody)));
             })
             .bodyToMono(PersonneResponse.class)
+            // Cache et lectures mémorisées oubliés avant la réponse, hors des threads Netty
+            .flatMap(personResponse -> Mono
+                .fromRunnable(() -> {
+                    metadataCache.evict(AlfrescoMetadataCache.PEOPLE, personId);
+                    requestCoalescer.invalidate(AlfrescoMetadataCache.PEOPLE + "|" + personId);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(personResponse))
             .doOnNext(personResponse -> {
+                personChanged(personResponse.getEntry());
                 // Log ou traitement après une mise à jour réussie
                 System.out.println("Successfully updated person: " + personResponse.getEntry());
             });
@@ -404,7 +603,7 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
     //////////////////searchNodes//////////////////////////////////
 
 
-    public Mono<String> searchNodes(String term, String rootNodeId, Integer skipCount, Integer maxItems, String nodeType, List<String> include, List<String> orderBy, List<String> fields) {
+    public Mono<NodeListResponse> searchNodes(String term, String rootNodeId, Integer skipCount, Integer maxItems, String nodeType, List<String> include, List<String> orderBy, List<String> fields) {
         return webClient.get()
             .uri(uriBuilder -> uriBuilder
                 .path("/queries/nodes")
@@ -417,17 +616,15 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
                 .queryParamIfPresent("orderBy", Optional.ofNullable(orderBy).flatMap(l -> Optional.of(String.join(",", l))))
                 .queryParamIfPresent("fields", Optional.ofNullable(fields).flatMap(l -> Optional.of(String.join(",", l))))
                 .build())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to search nodes")))
-            .bodyToMono(String.class);
+            .bodyToMono(NodeListResponse.class);
     }
     public Mono<String> unlockNode(String nodeId) {
         String url = String.format("%s/nodes/%s/unlock", alfrescoUrl, nodeId);
 
         return webClient.post()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, clientResponse ->
                 clientResponse.bodyToMono(String.class)
@@ -438,7 +635,8 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
                     .flatMap(errorBody -> Mono.error(new RuntimeException("Server error: " + serverResponse.statusCode() + " - " + errorBody)))
             )
             .bodyToMono(String.class)
-            .defaultIfEmpty("Node unlocked successfully");
+            .defaultIfEmpty("Node unlocked successfully")
+            .transform(mutation -> withNodeChanged(mutation, new NodeChangedEvent(NodeChangedEvent.Type.UNLOCKED, nodeId)));
     }
 
 
@@ -454,12 +652,12 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.post()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .contentType(MediaType.APPLICATION_JSON)
             .bodyValue(body)
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to lock node")))
-            .bodyToMono(String.class);
+            .bodyToMono(String.class)
+            .transform(mutation -> withNodeChanged(mutation, new NodeChangedEvent(NodeChangedEvent.Type.LOCKED, nodeId)));
     }
 
 
@@ -480,11 +678,11 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
         return webClient.post()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .bodyValue(body)
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to copy node")))
-            .bodyToMono(String.class);
+            .bodyToMono(String.class)
+            .transform(mutation -> withNodeChanged(mutation, new NodeChangedEvent(NodeChangedEvent.Type.COPIED, nodeId, targetParentId)));
     }
 
               ////////////////////updateNode//////////////////////////////
@@ -495,10 +693,10 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
             .uri(url)
             .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .body(Mono.just(jsonRequestBody), String.class)
             .retrieve()
             .toEntity(String.class)
+            .transform(mutation -> withNodeChanged(mutation, new NodeChangedEvent(NodeChangedEvent.Type.UPDATED, nodeId)))
             .onErrorResume(WebClientResponseException.class, ex -> Mono.error(new RuntimeException("Failed to update node: " + ex.getResponseBodyAsString())));
     }
 
@@ -507,7 +705,6 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
     public Mono<String> getAllDocuments(String folderId, String user, String pass) {
         return webClient.get()
             .uri("/nodes/{folderId}/children", folderId)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .bodyToMono(String.class)
             .onErrorResume(WebClientResponseException.class, ex -> {
@@ -550,6 +747,7 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
     public Document updateDocumentMetadata(String documentId, Map<String, Object> properties) {
         try {
             // Retrieve the document
+            Session session = sessionProvider.getSession();
             Document document = (Document) session.getObject(documentId);
 
             // Retrieve the type definition of the document
@@ -569,6 +767,7 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
             // Update the properties if there are any valid properties
             if (!validProperties.isEmpty()) {
                 document.updateProperties(validProperties);
+                publishNodeChanged(new NodeChangedEvent(NodeChangedEvent.Type.METADATA_UPDATED, documentId));
             }
 
             return document;
@@ -605,7 +804,7 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
     // Méthode pour obtenir le dossier racine
     public Folder getRootFolder() {
         try {
-            return session.getRootFolder();
+            return sessionProvider.getSession().getRootFolder();
         } catch (Exception e) {
             log.error("Erreur lors de la récupération du dossier racine: " + e.getMessage(), e);
             return null;
@@ -614,48 +813,34 @@ public Mono<String> createPerson(PersonneRequest personRequest) {
 
 
 
-    public ResponseEntity<String> uploadFileWithAutoRename(MultipartFile file, String path, String filename, String filenameAux, int index, String authToken) throws IOException {
-
-        if (this.session == null) {
-            throw new IllegalStateException("La session CMIS n'est pas initialisée.");
-        }
+    public ResponseEntity<String> uploadFileWithAutoRename(MultipartFile file, String path, String filename, String authToken) throws IOException {
 
         if (authToken == null || authToken.isEmpty()) {
             return new ResponseEntity<>("Problème d'authentification Alfresco !", HttpStatus.BAD_REQUEST);
         }
 
-        // Créer l'en-tête d'authentification
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + authToken);
-
-        Folder folder = (Folder) session.getObjectByPath(path);
-        InputStream stream = file.getInputStream();
-        ContentStream contentStream = new ContentStreamImpl(file.getOriginalFilename(), BigInteger.valueOf(file.getSize()), file.getContentType(), stream);
-
-        Map<String, Object> properties = new HashMap<>();
-        properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
-        properties.put(PropertyIds.NAME, filename);
+        Folder folder = folderPathResolver.find(path);
+        if (folder == null) {
+            throw new CmisObjectNotFoundException("Dossier introuvable : " + path);
+        }
 
         String noderefFile = null;
 
         try {
-            String filenamePath = folder.getPath() + "/" + filename;
-            boolean fileExists = session.existsPath(filenamePath);
-
-            if (!fileExists) {
-                Document document = folder.createDocument(properties, contentStream, VersioningState.MAJOR);
-                noderefFile = document.getId().split(";")[0];
-            } else {
-                if (filenameAux.isEmpty()) {
-                    String baseName = filename.substring(0, filename.lastIndexOf("."));
-                    int count = index + 1;
-                    String newFilename = baseName + "-" + count + filename.substring(filename.lastIndexOf("."));
-                    return uploadFileWithAutoRename(file, path, newFilename, filename, count, authToken);
-                } else {
-                    String baseName = filenameAux.substring(0, filenameAux.lastIndexOf("."));
-                    int count = index + 1;
-                    String newFilename = baseName + "-" + count + filename.substring(filename.lastIndexOf("."));
-                    return uploadFileWithAutoRename(file, path, newFilename, filenameAux, count, authToken);
+            // Une seule requête pour les noms déjà pris (scan.pdf, scan-1.pdf...), le suffixe est choisi localement
+            Set<String> existingNames = cmisService.getDocumentNamesStartingWith(folder, FileNameCollisionResolver.baseName(filename));
+            for (int attempt = 1; noderefFile == null; attempt++) {
+                String candidate = FileNameCollisionResolver.nextAvailableName(filename, existingNames);
+                // Le flux n'est ouvert qu'une fois le nom choisi, puis transmis sans copie en mémoire
+                try (InputStream stream = file.getInputStream()) {
+                    Document document = cmisService.createDocument(folder, candidate, file.getContentType(), stream, file.getSize());
+                    noderefFile = document.getId().split(";")[0];
+                } catch (CmisContentAlreadyExistsException | CmisNameConstraintViolationException e) {
+                    // Nom pris entre-temps (upload concurrent ou index de recherche pas encore à jour)
+                    if (attempt >= MAX_RENAME_ATTEMPTS) {
+                        throw e;
+                    }
+                    existingNames.add(candidate);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,162 @@
+package com.xtensus.xteged.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Façade asynchrone des appels CMIS : les appels bloquants (OpenCMIS) sont exécutés sur un pool dédié et borné au
+ * lieu des threads de requête, qui restent disponibles si le dépôt ralentit.
+ * <p>
+ * Au-delà de {@code alfresco.repository.executor.threads} appels en cours et
+ * {@code alfresco.repository.executor.queue-capacity} en attente, un appel échoue immédiatement avec une
+ * {@link RejectedExecutionException} (503). L'état du pool est publié sous {@code xteged.cmis.executor.*}.
+ * <p>
+ * Les transferts de contenu longs gardent leurs propres pools bornés ({@link BulkIngestionService},
+ * {@link FolderExportService}) : ils occuperaient ces threads le temps d'un envoi ou d'un export entier, et une
+ * saturation au milieu d'un lot ou d'une archive déjà commencée ne peut plus devenir un 503. La lecture du dossier
+ * exporté, faite avant la réponse, passe en revanche par ce pool.
+ */
+@Service
+public class AsyncCmisService {
+
+    private final Logger log = LoggerFactory.getLogger(AsyncCmisService.class);
+
+    @Value("${alfresco.repository.executor.threads:16}")
+    private int threads;
+
+    // Appels en attente d'un thread au-delà desquels ils sont refusés
+    @Value("${alfresco.repository.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    private final CmisService cmisService;
+
+    private final MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Scheduler scheduler;
+
+    private Counter rejected;
+
+    private Timer queueWait;
+
+    public AsyncCmisService(CmisService cmisService, MeterRegistry meterRegistry) {
+        this.cmisService = cmisService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        rejected = Counter.builder("xteged.cmis.executor.rejected").description("Appels CMIS refusés, pool saturé").register(meterRegistry);
+        queueWait = Timer.builder("xteged.cmis.executor.wait").description("Attente d'un thread du pool CMIS").register(meterRegistry);
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "cmis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor =
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                (runnable, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Dépôt CMIS saturé : " + pool.getQueue().size() + " appels en attente");
+                }
+            );
+        executor.allowCoreThreadTimeOut(true);
+        scheduler = Schedulers.fromExecutorService(executor, "cmis");
+
+        gauge("xteged.cmis.executor.active", "Appels CMIS en cours", executor, ThreadPoolExecutor::getActiveCount);
+        gauge("xteged.cmis.executor.queued", "Appels CMIS en attente d'un thread", executor, pool -> pool.getQueue().size());
+        gauge("xteged.cmis.executor.max", "Threads max", executor, ThreadPoolExecutor::getMaximumPoolSize);
+        log.info("Pool CMIS : {} threads, {} appels en attente max", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Exécute un appel CMIS bloquant sur le pool ; une valeur nulle donne un {@link Mono} vide.
+     */
+    public <T> Mono<T> call(Callable<T> call) {
+        return Mono.defer(() -> {
+            long submitted = System.nanoTime();
+            return Mono
+                .fromCallable(() -> {
+                    queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    return call.call();
+                })
+                .subscribeOn(scheduler);
+        });
+    }
+
+    /**
+     * {@link #call} pour les appelants hors Reactor ; le résultat est complété sur un thread du pool.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        return call(call).toFuture();
+    }
+
+    public Mono<Folder> createFolder(String pathName) {
+        return call(() -> cmisService.createFolder(pathName));
+    }
+
+    public Mono<String> getDocumentName(String idDocument) {
+        return call(() -> cmisService.getDocumentName(idDocument));
+    }
+
+    public Mono<Map<String, String>> getDocumentNames(Collection<String> idDocuments) {
+        return call(() -> cmisService.getDocumentNames(idDocuments));
+    }
+
+    public Mono<DocumentDetails> getDocumentDetails(String alfrescoId) {
+        return call(() -> cmisService.getDocumentDetails(alfrescoId));
+    }
+
+    public Mono<Map<String, DocumentDetails>> getDocumentDetails(Collection<String> alfrescoIds) {
+        return call(() -> cmisService.getDocumentDetails(alfrescoIds));
+    }
+
+    /**
+     * Nombre d'appels en attente d'un thread.
+     */
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    private void gauge(String name, String description, ThreadPoolExecutor pool, ToDoubleFunction<ThreadPoolExecutor> value) {
+        Gauge.builder(name, pool, value).description(description).register(meterRegistry);
+    }
+}
@@ -0,0 +1,261 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.bulk.BulkIngestionReport;
+import com.xtensus.xteged.service.bulk.BulkItem;
+import com.xtensus.xteged.service.bulk.BulkItemResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNameConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Ingestion de lots de documents (courrier numérisé) dans Alfresco.
+ * <p>
+ * Les dossiers cibles sont résolus une seule fois par lot, puis les documents sont envoyés en flux
+ * avec un nombre d'envois simultanés borné : le lot n'est lu qu'au rythme des envois (backpressure),
+ * ce qui borne aussi le nombre de fichiers temporaires d'une archive zip.
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final int MAX_RENAME_ATTEMPTS = 5;
+
+    private final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    // Nombre de documents envoyés simultanément vers Alfresco, tous lots confondus
+    @Value("${alfresco.bulk.concurrency:4}")
+    private int concurrency;
+
+    private final CmisService cmisService;
+
+    private final FolderPathResolver folderPathResolver;
+
+    private final MeterRegistry meterRegistry;
+
+    private Scheduler scheduler;
+
+    private Timer uploadTimer;
+
+    private DistributionSummary uploadedBytes;
+
+    private DistributionSummary documentsPerSecond;
+
+    private DistributionSummary bytesPerSecond;
+
+    public BulkIngestionService(CmisService cmisService, FolderPathResolver folderPathResolver, MeterRegistry meterRegistry) {
+        this.cmisService = cmisService;
+        this.folderPathResolver = folderPathResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Schedulers.newBoundedElastic(concurrency, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "bulk-ingestion");
+        uploadTimer = Timer.builder("xteged.bulk.upload").description("Envoi d'un document d'un lot vers Alfresco").register(meterRegistry);
+        uploadedBytes = DistributionSummary.builder("xteged.bulk.bytes").baseUnit("bytes").register(meterRegistry);
+        documentsPerSecond = DistributionSummary.builder("xteged.bulk.throughput.documents").baseUnit("documents/s").register(meterRegistry);
+        bytesPerSecond = DistributionSummary.builder("xteged.bulk.throughput.bytes").baseUnit("bytes/s").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Ingère les documents sous {@code basePath} et retourne le bilan, dans l'ordre du lot.
+     *
+     * @param autoRename en cas de nom déjà pris, utiliser le premier {@code nom-N.ext} libre au lieu d'échouer.
+     */
+    public Mono<BulkIngestionReport> ingest(String basePath, Flux<BulkItem> items, boolean autoRename) {
+        Map<String, Mono<Folder>> folders = new ConcurrentHashMap<>();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return items
+                .flatMapSequential(item -> upload(basePath, item, folders, autoRename), concurrency, 1)
+                .doOnDiscard(BulkItem.class, BulkItem::release)
+                .collectList()
+                .map(results -> {
+                    BulkIngestionReport report = BulkIngestionReport.of(basePath, results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    documentsPerSecond.record(report.getDocumentsPerSecond());
+                    bytesPerSecond.record(report.getMegabytesPerSecond() * 1024 * 1024);
+                    log.info(
+                        "Lot {} : {} créés, {} en échec en {} ms ({} docs/s, {} Mo/s)",
+                        basePath,
+                        report.getCreated(),
+                        report.getFailed(),
+                        report.getElapsedMs(),
+                        String.format("%.1f", report.getDocumentsPerSecond()),
+                        String.format("%.2f", report.getMegabytesPerSecond())
+                    );
+                    return report;
+                });
+        });
+    }
+
+    /**
+     * Documents d'une archive zip, lus au fil de la demande : chaque entrée est recopiée dans un fichier
+     * temporaire (supprimé après son envoi) afin de pouvoir être envoyée en parallèle des suivantes.
+     * Les répertoires de l'archive deviennent des sous-dossiers du dossier cible.
+     */
+    public Flux<BulkItem> zipEntries(InputStream zip) {
+        return Flux
+            .<BulkItem, ZipInputStream>generate(
+                () -> new ZipInputStream(zip),
+                (entries, sink) -> {
+                    try {
+                        ZipEntry entry = entries.getNextEntry();
+                        while (entry != null && entry.isDirectory()) {
+                            entry = entries.getNextEntry();
+                        }
+                        if (entry == null) {
+                            sink.complete();
+                            return entries;
+                        }
+                        Path spool = Files.createTempFile("bulk-", ".part");
+                        long size;
+                        try {
+                            size = Files.copy(entries, spool, StandardCopyOption.REPLACE_EXISTING);
+                        } catch (IOException | RuntimeException e) {
+                            // Archive tronquée, disque plein... : l'entrée ne sera jamais envoyée ni libérée
+                            delete(spool);
+                            throw e;
+                        }
+                        String entryName = entry.getName();
+                        int slash = entryName.lastIndexOf('/');
+                        String name = entryName.substring(slash + 1);
+                        String directory = slash < 0 ? "" : entryName.substring(0, slash);
+                        sink.next(new BulkItem(name, directory, contentType(name), size, () -> Files.newInputStream(spool), () -> delete(spool)));
+                    } catch (IOException e) {
+                        sink.error(new UncheckedIOException("Archive zip illisible", e));
+                    }
+                    return entries;
+                },
+                entries -> {
+                    try {
+                        entries.close();
+                    } catch (IOException e) {
+                        log.debug("Fermeture de l'archive : {}", e.getMessage());
+                    }
+                }
+            )
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public static String contentType(String name) {
+        String contentType = URLConnection.guessContentTypeFromName(name);
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+
+    private Mono<BulkItemResult> upload(String basePath, BulkItem item, Map<String, Mono<Folder>> folders, boolean autoRename) {
+        long start = System.nanoTime();
+        String path;
+        try {
+            path = targetPath(basePath, item.getRelativePath());
+        } catch (IllegalArgumentException e) {
+            item.release();
+            return Mono.just(failed(item, basePath, e, start));
+        }
+        Mono<Folder> folder = folders.computeIfAbsent(
+            path,
+            p -> Mono.fromCallable(() -> folderPathResolver.findOrCreate(p)).subscribeOn(scheduler).cache()
+        );
+        return folder
+            .publishOn(scheduler)
+            .map(target -> store(target, path, item, autoRename, start))
+            .onErrorResume(e -> Mono.just(failed(item, path, e, start)))
+            .doFinally(signal -> item.release());
+    }
+
+    private BulkItemResult store(Folder folder, String path, BulkItem item, boolean autoRename, long start) {
+        String name = item.getName();
+        Set<String> existingNames = null;
+        for (int attempt = 1;; attempt++) {
+            String candidate = name;
+            try (InputStream content = item.getContent().open()) {
+                Document document = uploadTimer.recordCallable(() ->
+                    cmisService.createDocument(folder, candidate, item.getContentType(), content, item.getSize())
+                );
+                meterRegistry.counter("xteged.bulk.documents", "result", "created").increment();
+                uploadedBytes.record(item.getSize());
+                return BulkItemResult.created(candidate, path, document.getId().split(";")[0], item.getSize(), elapsedMs(start));
+            } catch (CmisContentAlreadyExistsException | CmisNameConstraintViolationException e) {
+                if (!autoRename || attempt >= MAX_RENAME_ATTEMPTS) {
+                    throw e;
+                }
+                // Les noms existants ne sont lus qu'au premier conflit
+                if (existingNames == null) {
+                    existingNames = cmisService.getDocumentNamesStartingWith(folder, FileNameCollisionResolver.baseName(item.getName()));
+                }
+                existingNames.add(candidate);
+                name = FileNameCollisionResolver.nextAvailableName(item.getName(), existingNames);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private BulkItemResult failed(BulkItem item, String path, Throwable error, long start) {
+        log.warn("Échec de l'ingestion de {} dans {} : {}", item.getName(), path, error.getMessage());
+        meterRegistry.counter("xteged.bulk.documents", "result", "failed").increment();
+        return BulkItemResult.failed(item.getName(), path, error.getMessage(), elapsedMs(start));
+    }
+
+    /**
+     * Dossier cible d'un document : {@code basePath} suivi du chemin relatif, sans segment {@code .} ou {@code ..}.
+     */
+    static String targetPath(String basePath, String relativePath) {
+        if (relativePath == null || relativePath.isEmpty()) {
+            return basePath;
+        }
+        String[] segments = relativePath.replace('\\', '/').split("/");
+        if (Arrays.stream(segments).anyMatch(segment -> segment.equals("..") || segment.equals("."))) {
+            throw new IllegalArgumentException("Chemin relatif invalide : " + relativePath);
+        }
+        String suffix = Arrays.stream(segments).filter(segment -> !segment.isEmpty()).collect(Collectors.joining("/"));
+        return suffix.isEmpty() ? basePath : basePath.replaceAll("/+$", "") + "/" + suffix;
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void delete(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Suppression du fichier temporaire {} impossible : {}", spool, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.xtensus.xteged.service;
+
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.client.api.QueryStatement;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.util.OperationContextUtils;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Lecture de documents CMIS par identifiants : une requête {@code cmis:objectId IN (...)} par lot, puis lecture
+ * individuelle de ce que les requêtes n'ont pas rendu (requête refusée, document hors index...).
+ * <p>
+ * Les ids demandés peuvent être un uuid, une référence {@code workspace://SpacesStore/} ou porter un libellé de
+ * version : ils sont interrogés et rapprochés des résultats sous leur forme {@link #normalize normalisée}.
+ */
+public final class CmisIdQuery {
+
+    public static final String WORKSPACE_PREFIX = "workspace://SpacesStore/";
+
+    // Taille des listes IN
+    private static final int CHUNK = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(CmisIdQuery.class);
+
+    private CmisIdQuery() {}
+
+    /**
+     * Documents trouvés, par id demandé ; les ids introuvables sont absents.
+     *
+     * @param properties propriétés sélectionnées par la requête, en plus de {@code cmis:objectId}
+     * @param fromQuery  valeur tirée d'une ligne de résultat
+     * @param single     lecture individuelle d'un id que les requêtes n'ont pas rendu, {@code null} si introuvable
+     */
+    public static <T> Map<String, T> find(
+        Session session,
+        Collection<String> ids,
+        Collection<String> properties,
+        OperationContext operationContext,
+        Function<QueryResult, T> fromQuery,
+        Function<String, T> single
+    ) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<String, T> found = new HashMap<>();
+        List<String> selected = new ArrayList<>();
+        selected.add(PropertyIds.OBJECT_ID);
+        selected.addAll(properties);
+        OperationContext context = OperationContextUtils.copyOperationContext(operationContext);
+        context.setMaxItemsPerPage(CHUNK);
+
+        for (int from = 0; from < distinct.size(); from += CHUNK) {
+            List<String> chunk = distinct.subList(from, Math.min(from + CHUNK, distinct.size()));
+            Map<String, List<String>> requested = new HashMap<>();
+            for (String id : chunk) {
+                requested.computeIfAbsent(normalize(id), key -> new ArrayList<>()).add(id);
+            }
+            try {
+                QueryStatement query = session.createQueryStatement(
+                    "SELECT " + String.join(", ", selected) + " FROM cmis:document WHERE cmis:objectId IN (?)"
+                );
+                query.setString(1, requested.keySet().toArray(new String[0]));
+                for (QueryResult result : session.query(query.toQueryString(), false, context)) {
+                    String objectId = result.getPropertyValueById(PropertyIds.OBJECT_ID);
+                    T value = fromQuery.apply(result);
+                    for (String id : requested.getOrDefault(normalize(objectId), Collections.emptyList())) {
+                        found.put(id, value);
+                    }
+                }
+            } catch (CmisBaseException e) {
+                log.debug("CMIS IN query failed for {} ids, falling back to single reads: {}", chunk.size(), e.getMessage());
+            }
+        }
+
+        // Repli élément par élément pour ce que la requête n'a pas rendu
+        for (String id : distinct) {
+            if (!found.containsKey(id)) {
+                T value = single.apply(id);
+                if (value != null) {
+                    found.put(id, value);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * uuid d'une référence {@code workspace://SpacesStore/uuid;1.0}.
+     */
+    public static String normalize(String id) {
+        int separator = id.indexOf(';');
+        String withoutVersion = separator < 0 ? id : id.substring(0, separator);
+        return withoutVersion.startsWith(WORKSPACE_PREFIX) ? withoutVersion.substring(WORKSPACE_PREFIX.length()) : withoutVersion;
+    }
+}
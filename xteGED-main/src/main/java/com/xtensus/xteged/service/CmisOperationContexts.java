@@ -0,0 +1,84 @@
+package com.xtensus.xteged.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.util.OperationContextUtils;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+
+/**
+ * Profils de lecture CMIS réutilisables : seules les propriétés utiles sont demandées, sans ACL, actions permises,
+ * politiques, relations ni rendus (le contexte par défaut de la session rapporte toutes les propriétés et les
+ * actions permises de chaque objet).
+ * <p>
+ * {@code cmis:objectId}, {@code cmis:baseTypeId} et {@code cmis:objectTypeId} sont toujours ajoutés au filtre par
+ * OpenCMIS. Les contextes sont partagés : ne pas les modifier (en faire une copie avec
+ * {@link OperationContextUtils#copyOperationContext}).
+ */
+public final class CmisOperationContexts {
+
+    /**
+     * Propriétés de {@link DocumentDetails}.
+     */
+    public static final Set<String> DETAILS_PROPERTIES = properties(
+        PropertyIds.NAME,
+        PropertyIds.CREATED_BY,
+        PropertyIds.CREATION_DATE,
+        PropertyIds.CONTENT_STREAM_LENGTH,
+        PropertyIds.LAST_MODIFICATION_DATE
+    );
+
+    /**
+     * Nom seul ; le cache de session est utilisé (un renommage est vu au plus tard à l'expiration du cache).
+     */
+    public static final OperationContext NAME_ONLY = context(properties(PropertyIds.NAME), true);
+
+    /**
+     * Nom, auteur, dates et taille ({@link DocumentDetails}) ; cache de session utilisé.
+     */
+    public static final OperationContext DETAILS = context(DETAILS_PROPERTIES, true);
+
+    /**
+     * Nom et chemin d'un dossier ; sans cache, pour voir les renommages et déplacements faits hors de l'application.
+     */
+    public static final OperationContext FOLDER_PATH = context(properties(PropertyIds.NAME, PropertyIds.PATH, PropertyIds.PARENT_ID), false);
+
+    /**
+     * Ce qu'il faut pour relayer le contenu (nom, type, taille, flux) ; sans cache, pour toujours servir la version
+     * courante.
+     */
+    public static final OperationContext DOWNLOAD = context(
+        properties(
+            PropertyIds.NAME,
+            PropertyIds.CONTENT_STREAM_MIME_TYPE,
+            PropertyIds.CONTENT_STREAM_LENGTH,
+            PropertyIds.CONTENT_STREAM_FILE_NAME,
+            PropertyIds.CONTENT_STREAM_ID
+        ),
+        false
+    );
+
+    private CmisOperationContexts() {}
+
+    private static OperationContext context(Set<String> filter, boolean cacheEnabled) {
+        return OperationContextUtils.createOperationContext(
+            filter,
+            false,
+            false,
+            false,
+            IncludeRelationships.NONE,
+            Collections.singleton("cmis:none"),
+            false,
+            null,
+            cacheEnabled,
+            100
+        );
+    }
+
+    private static Set<String> properties(String... ids) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(ids)));
+    }
+}
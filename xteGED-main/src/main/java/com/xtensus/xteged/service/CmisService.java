@@ -6,7 +6,10 @@ import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.Session;
 import org.springframework.http.ResponseEntity;
 
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 public interface CmisService {
     //create dococument Final
@@ -17,6 +20,15 @@ public interface CmisService {
         byte[] content
     );
 
+    // create document en flux : le contenu est transmis à Alfresco sans être chargé en mémoire
+    Document createDocument(
+        Folder folder,
+        String documentName,
+        String contentType,
+        InputStream content,
+        long length
+    );
+
     public Folder GetFolderByPath(String pathName);
 
     public Folder getRootFolder();
@@ -25,9 +37,15 @@ public interface CmisService {
 
     String getDocumentName(String idDocument);
 
+    // noms sans extension de plusieurs documents (cache + requêtes CMIS IN par lots) ; les ids introuvables sont absents
+    Map<String, String> getDocumentNames(Collection<String> idDocuments);
+
 
     DocumentDetails getDocumentDetails(String alfrescoId);
 
+    // détails de plusieurs documents par id (requêtes CMIS IN par lots) ; les ids introuvables sont absents
+    Map<String, DocumentDetails> getDocumentDetails(Collection<String> alfrescoIds);
+
     Folder getFolderByPath(String pathName);
 
     CmisObject getObject(Session session, Folder parentFolder, String objectName);
@@ -36,6 +54,9 @@ public interface CmisService {
 
     Folder createFolder(String pathName);
 
+    // noms des documents du dossier commençant par prefix, en une seule requête CMIS
+    Set<String> getDocumentNamesStartingWith(Folder folder, String prefix);
+
 
     ResponseEntity<String> getNodeDetails(String nodeId);
 
@@ -0,0 +1,228 @@
+package com.xtensus.xteged.service;
+
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.enums.BindingType;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fournit les sessions CMIS partagées par tous les services.
+ * <p>
+ * Un petit pool de sessions est ouvert au démarrage (découverte du dépôt comprise), vérifié
+ * périodiquement et reconnecté avec un délai croissant lorsqu'Alfresco ne répond plus.
+ * Les sessions OpenCMIS sont thread-safe : les appelants ne les rendent pas au pool.
+ */
+@Component
+public class CmisSessionProvider {
+
+    private final Logger log = LoggerFactory.getLogger(CmisSessionProvider.class);
+
+    @Value("${alfresco.repository.url}")
+    private String atomPubUrl;
+
+    @Value("${alfresco.repository.browser-url:}")
+    private String browserUrl;
+
+    // atompub (XML) ou browser (JSON, plus léger à analyser)
+    @Value("${alfresco.repository.binding:atompub}")
+    private String binding;
+
+    @Value("${alfresco.repository.user}")
+    private String alfrescoUser;
+
+    @Value("${alfresco.repository.pass}")
+    private String alfrescoPass;
+
+    @Value("${alfresco.repository.session.pool-size:2}")
+    private int poolSize;
+
+    @Value("${alfresco.repository.session.cache-size-objects:1000}")
+    private int objectCacheSize;
+
+    @Value("${alfresco.repository.session.cache-ttl-objects-ms:120000}")
+    private long objectCacheTtl;
+
+    @Value("${alfresco.repository.session.cache-size-paths:1000}")
+    private int pathCacheSize;
+
+    @Value("${alfresco.repository.session.connect-timeout-ms:10000}")
+    private int connectTimeout;
+
+    @Value("${alfresco.repository.session.read-timeout-ms:60000}")
+    private int readTimeout;
+
+    @Value("${alfresco.repository.session.reconnect-initial-backoff-ms:1000}")
+    private long initialBackoff;
+
+    @Value("${alfresco.repository.session.reconnect-max-backoff-ms:60000}")
+    private long maxBackoff;
+
+    private final SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private PooledSession[] pool;
+
+    @PostConstruct
+    public void init() {
+        // Échoue au démarrage si le binding configuré est inconnu
+        bindingParameters(binding, atomPubUrl, browserUrl);
+        pool = new PooledSession[Math.max(1, poolSize)];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new PooledSession(i);
+            pool[i].connect();
+        }
+    }
+
+    /**
+     * Retourne une session saine du pool, en tentant une reconnexion si aucune ne l'est.
+     *
+     * @throws CmisConnectionException si le dépôt reste injoignable.
+     */
+    public Session getSession() {
+        int start = Math.floorMod(next.getAndIncrement(), pool.length);
+        for (int i = 0; i < pool.length; i++) {
+            Session session = pool[(start + i) % pool.length].session;
+            if (session != null) {
+                return session;
+            }
+        }
+        for (int i = 0; i < pool.length; i++) {
+            PooledSession slot = pool[(start + i) % pool.length];
+            if (slot.reconnectDue() && slot.connect()) {
+                return slot.session;
+            }
+        }
+        throw new CmisConnectionException("Aucune session CMIS disponible (binding " + binding + ")");
+    }
+
+    /**
+     * Vérifie chaque session par un aller-retour réel (cache désactivé) et reconnecte celles qui ont échoué.
+     */
+    @Scheduled(
+        fixedDelayString = "${alfresco.repository.session.health-check-interval-ms:30000}",
+        initialDelayString = "${alfresco.repository.session.health-check-interval-ms:30000}"
+    )
+    public void checkHealth() {
+        for (PooledSession slot : pool) {
+            Session session = slot.session;
+            if (session != null) {
+                try {
+                    session.getObject(session.getRepositoryInfo().getRootFolderId(), pingContext(session));
+                } catch (Exception e) {
+                    log.warn("Session CMIS #{} hors service : {}", slot.index, e.getMessage());
+                    slot.invalidate();
+                }
+            }
+            if (slot.session == null && slot.reconnectDue()) {
+                slot.connect();
+            }
+        }
+    }
+
+    private Map<String, String> sessionParameters() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(SessionParameter.USER, alfrescoUser);
+        parameters.put(SessionParameter.PASSWORD, alfrescoPass);
+        parameters.putAll(bindingParameters(binding, atomPubUrl, browserUrl));
+        parameters.put(SessionParameter.CACHE_SIZE_OBJECTS, String.valueOf(objectCacheSize));
+        parameters.put(SessionParameter.CACHE_TTL_OBJECTS, String.valueOf(objectCacheTtl));
+        parameters.put(SessionParameter.CACHE_SIZE_PATHTOID, String.valueOf(pathCacheSize));
+        parameters.put(SessionParameter.CACHE_TTL_PATHTOID, String.valueOf(objectCacheTtl));
+        parameters.put(SessionParameter.CONNECT_TIMEOUT, String.valueOf(connectTimeout));
+        parameters.put(SessionParameter.READ_TIMEOUT, String.valueOf(readTimeout));
+        return parameters;
+    }
+
+    /**
+     * Paramètres de transport CMIS pour le binding demandé. Si aucune URL browser n'est configurée,
+     * elle est déduite de l'URL AtomPub d'Alfresco ({@code .../cmis/versions/1.1/atom} → {@code .../browser}).
+     */
+    static Map<String, String> bindingParameters(String binding, String atomPubUrl, String browserUrl) {
+        Map<String, String> parameters = new HashMap<>();
+        if (BindingType.BROWSER.value().equalsIgnoreCase(binding)) {
+            String url = browserUrl == null || browserUrl.isEmpty() ? atomPubUrl.replaceFirst("/atom$", "/browser") : browserUrl;
+            parameters.put(SessionParameter.BROWSER_URL, url);
+            parameters.put(SessionParameter.BROWSER_SUCCINCT, "true");
+            parameters.put(SessionParameter.BINDING_TYPE, BindingType.BROWSER.value());
+        } else if (BindingType.ATOMPUB.value().equalsIgnoreCase(binding)) {
+            parameters.put(SessionParameter.ATOMPUB_URL, atomPubUrl);
+            parameters.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
+        } else {
+            throw new IllegalArgumentException("Binding CMIS non supporté : " + binding + " (browser ou atompub)");
+        }
+        return parameters;
+    }
+
+    private static OperationContext pingContext(Session session) {
+        return session.createOperationContext(
+            Collections.singleton(PropertyIds.OBJECT_ID),
+            false,
+            false,
+            false,
+            IncludeRelationships.NONE,
+            Collections.singleton("cmis:none"),
+            false,
+            null,
+            false,
+            1
+        );
+    }
+
+    private final class PooledSession {
+
+        private final int index;
+
+        private volatile Session session;
+
+        private long backoff = initialBackoff;
+
+        private long nextAttemptAt;
+
+        private PooledSession(int index) {
+            this.index = index;
+        }
+
+        private synchronized boolean connect() {
+            if (session != null) {
+                return true;
+            }
+            try {
+                session = sessionFactory.getRepositories(sessionParameters()).get(0).createSession();
+                backoff = initialBackoff;
+                log.info("Session CMIS #{} ouverte (binding {})", index, binding);
+                return true;
+            } catch (Exception e) {
+                nextAttemptAt = System.currentTimeMillis() + backoff;
+                log.warn("Ouverture de la session CMIS #{} impossible, nouvel essai dans {} ms : {}", index, backoff, e.getMessage());
+                backoff = Math.min(backoff * 2, maxBackoff);
+                return false;
+            }
+        }
+
+        private synchronized void invalidate() {
+            session = null;
+            nextAttemptAt = 0;
+        }
+
+        private synchronized boolean reconnectDue() {
+            return System.currentTimeMillis() >= nextAttemptAt;
+        }
+    }
+}
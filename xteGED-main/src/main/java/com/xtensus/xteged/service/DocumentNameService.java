@@ -0,0 +1,134 @@
+package com.xtensus.xteged.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Noms des documents (sans extension) par id, pour les grilles qui en affichent des centaines par page.
+ * <p>
+ * Les noms sont gardés dans un cache borné (uuid → nom), invalidé quand l'application modifie ou supprime un nœud
+ * ({@link NodeChangedEvent}) et expiré après le TTL (renommages faits directement dans Alfresco). Les ids absents
+ * du cache sont résolus ensemble par {@link CmisIdQuery}.
+ */
+@Service
+public class DocumentNameService {
+
+    private final Logger log = LoggerFactory.getLogger(DocumentNameService.class);
+
+    @Value("${alfresco.repository.name-cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${alfresco.repository.name-cache.ttl-ms:600000}")
+    private long ttl;
+
+    private final CmisSessionProvider sessionProvider;
+
+    private Cache<String, String> names;
+
+    public DocumentNameService(CmisSessionProvider sessionProvider) {
+        this.sessionProvider = sessionProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        names = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofMillis(ttl)).build();
+    }
+
+    /**
+     * Nom sans extension du document, ou {@code null} s'il est introuvable.
+     */
+    public String getName(String id) {
+        return getNames(Collections.singletonList(id)).get(id);
+    }
+
+    /**
+     * Noms sans extension des documents, dans l'ordre de la demande ; les ids introuvables sont absents.
+     */
+    public Map<String, String> getNames(Collection<String> ids) {
+        Map<String, String> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id == null || id.isBlank()) {
+                continue;
+            }
+            String name = names.getIfPresent(CmisIdQuery.normalize(id));
+            if (name != null) {
+                result.put(id, name);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, String> loaded = load(missing);
+            loaded.forEach((id, name) -> names.put(CmisIdQuery.normalize(id), name));
+            // Ordre de la demande
+            Map<String, String> ordered = new LinkedHashMap<>();
+            for (String id : new LinkedHashSet<>(ids)) {
+                String name = result.containsKey(id) ? result.get(id) : loaded.get(id);
+                if (name != null) {
+                    ordered.put(id, name);
+                }
+            }
+            return ordered;
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onNodeChanged(NodeChangedEvent event) {
+        if (event.getNodeId() != null) {
+            names.invalidate(CmisIdQuery.normalize(event.getNodeId()));
+        }
+    }
+
+    private Map<String, String> load(List<String> ids) {
+        Session session = sessionProvider.getSession();
+        return CmisIdQuery.find(
+            session,
+            ids,
+            Collections.singletonList(PropertyIds.NAME),
+            CmisOperationContexts.NAME_ONLY,
+            result -> withoutExtension(result.getPropertyValueById(PropertyIds.NAME)),
+            id -> loadOne(session, id)
+        );
+    }
+
+    private String loadOne(Session session, String id) {
+        try {
+            CmisObject object = session.getObject(id.contains("://") ? id : CmisIdQuery.WORKSPACE_PREFIX + id, CmisOperationContexts.NAME_ONLY);
+            return object instanceof Document ? withoutExtension(object.getName()) : null;
+        } catch (CmisObjectNotFoundException e) {
+            log.debug("Document not found: {}", id);
+            return null;
+        }
+    }
+
+    static String withoutExtension(String name) {
+        if (name == null) {
+            return null;
+        }
+        int lastDotIndex = name.lastIndexOf('.');
+        return lastDotIndex != -1 ? name.substring(0, lastDotIndex) : name;
+    }
+}
@@ -0,0 +1,48 @@
+package com.xtensus.xteged.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Choix d'un nom libre dans un dossier : {@code scan.pdf}, puis {@code scan-1.pdf}, {@code scan-2.pdf}...
+ * <p>
+ * Le calcul est local, à partir des noms existants récupérés en une seule requête
+ * (voir {@link CmisService#getDocumentNamesStartingWith}). Les noms sont comparés sans tenir compte
+ * de la casse, comme le fait Alfresco.
+ */
+public final class FileNameCollisionResolver {
+
+    private FileNameCollisionResolver() {}
+
+    /**
+     * Partie du nom avant le suffixe {@code -N} : {@code scan} pour {@code scan.pdf}, {@code README} pour {@code README}.
+     */
+    public static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    /**
+     * Retourne {@code filename} s'il est libre, sinon le premier {@code base-N.ext} (N ≥ 1) absent de {@code existingNames}.
+     */
+    public static String nextAvailableName(String filename, Collection<String> existingNames) {
+        Set<String> taken = new HashSet<>();
+        for (String name : existingNames) {
+            taken.add(name.toLowerCase(Locale.ROOT));
+        }
+        if (!taken.contains(filename.toLowerCase(Locale.ROOT))) {
+            return filename;
+        }
+        String base = baseName(filename);
+        String extension = filename.substring(base.length());
+        // Au plus existingNames.size() candidats sont occupés : la boucle est bornée
+        for (int count = 1;; count++) {
+            String candidate = base + "-" + count + extension;
+            if (!taken.contains(candidate.toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.xtensus.xteged.service;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export d'une arborescence Alfresco en archive zip écrite directement sur la réponse HTTP.
+ * <p>
+ * L'arborescence est parcourue en profondeur, page par page ({@code getChildren}). Pendant l'écriture
+ * d'un document, les flux des suivants sont ouverts à l'avance (fenêtre de {@code prefetch} documents,
+ * chacun lu par avance sur au plus {@code prefetch-buffer-bytes}) : la mémoire utilisée dépend de cette
+ * fenêtre et non de la taille de l'export.
+ */
+@Service
+public class FolderExportService {
+
+    private final Logger log = LoggerFactory.getLogger(FolderExportService.class);
+
+    @Value("${alfresco.export.prefetch:4}")
+    private int prefetch;
+
+    @Value("${alfresco.export.prefetch-buffer-bytes:262144}")
+    private int prefetchBufferBytes;
+
+    @Value("${alfresco.export.threads:8}")
+    private int threads;
+
+    @Value("${alfresco.export.page-size:100}")
+    private int pageSize;
+
+    private final CmisSessionProvider sessionProvider;
+
+    private ExecutorService executor;
+
+    public FolderExportService(CmisSessionProvider sessionProvider) {
+        this.sessionProvider = sessionProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("folder-export-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Dossier à exporter.
+     *
+     * @throws org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException si le nœud n'existe pas.
+     * @throws CmisInvalidArgumentException si le nœud n'est pas un dossier.
+     */
+    public Folder getFolder(String nodeId) {
+        Session session = sessionProvider.getSession();
+        CmisObject object = session.getObject(nodeId, listingContext(session));
+        if (!(object instanceof Folder)) {
+            throw new CmisInvalidArgumentException("Le nœud " + nodeId + " n'est pas un dossier");
+        }
+        return (Folder) object;
+    }
+
+    /**
+     * Écrit l'archive zip du dossier (lui-même comme racine de l'archive) sur {@code out}.
+     */
+    public void writeZip(Folder folder, OutputStream out) throws IOException {
+        Session session = sessionProvider.getSession();
+        Iterator<Entry> entries = new TreeWalker(session, folder);
+        Deque<Entry> window = new ArrayDeque<>();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        int documents = 0;
+        try {
+            fill(window, entries);
+            while (!window.isEmpty()) {
+                Entry entry = window.poll();
+                // Le document suivant est demandé avant d'écrire celui-ci
+                fill(window, entries);
+                ZipEntry zipEntry = new ZipEntry(entry.path);
+                if (entry.lastModified > 0) {
+                    zipEntry.setTime(entry.lastModified);
+                }
+                zip.putNextEntry(zipEntry);
+                if (entry.content != null) {
+                    try (InputStream content = join(entry.content)) {
+                        content.transferTo(zip);
+                    }
+                    documents++;
+                }
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+            log.debug("Export de {} : {} documents", folder.getPath(), documents);
+        } catch (IOException | RuntimeException e) {
+            // Client déconnecté ou erreur Alfresco : les flux déjà ouverts sont refermés
+            window.forEach(Entry::discard);
+            throw e;
+        }
+    }
+
+    private void fill(Deque<Entry> window, Iterator<Entry> entries) {
+        while (entries.hasNext() && window.stream().filter(entry -> entry.content != null).count() < prefetch) {
+            Entry entry = entries.next();
+            if (entry.document != null) {
+                Document document = entry.document;
+                entry.content = CompletableFuture.supplyAsync(() -> open(document), executor);
+            }
+            window.add(entry);
+        }
+    }
+
+    private InputStream open(Document document) {
+        ContentStream contentStream = document.getContentStream();
+        if (contentStream == null || contentStream.getStream() == null) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            long length = contentStream.getLength();
+            int limit = length >= 0 ? (int) Math.min(length, prefetchBufferBytes) : prefetchBufferBytes;
+            return new ReadAheadInputStream(contentStream.getStream(), limit);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static InputStream join(CompletableFuture<InputStream> content) throws IOException {
+        try {
+            return content.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private OperationContext listingContext(Session session) {
+        return session.createOperationContext(
+            new HashSet<>(
+                Arrays.asList(
+                    PropertyIds.OBJECT_ID,
+                    PropertyIds.NAME,
+                    PropertyIds.OBJECT_TYPE_ID,
+                    PropertyIds.BASE_TYPE_ID,
+                    PropertyIds.CONTENT_STREAM_LENGTH,
+                    PropertyIds.CONTENT_STREAM_MIME_TYPE,
+                    PropertyIds.LAST_MODIFICATION_DATE,
+                    PropertyIds.PATH
+                )
+            ),
+            false,
+            false,
+            false,
+            IncludeRelationships.NONE,
+            null,
+            false,
+            null,
+            false,
+            pageSize
+        );
+    }
+
+    /**
+     * Élément de l'archive : dossier ({@code document == null}) ou document et son contenu.
+     */
+    private static final class Entry {
+
+        private final String path;
+
+        private final Document document;
+
+        private final long lastModified;
+
+        private CompletableFuture<InputStream> content;
+
+        private Entry(String path, Document document, long lastModified) {
+            this.path = path;
+            this.document = document;
+            this.lastModified = lastModified;
+        }
+
+        private void discard() {
+            if (content != null) {
+                // Fermé dès que son ouverture, éventuellement encore en cours, aboutit
+                content.thenAccept(stream -> {
+                    try {
+                        stream.close();
+                    } catch (IOException e) {
+                        // flux abandonné
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Parcours en profondeur de l'arborescence, les enfants étant lus page par page à la demande.
+     */
+    private final class TreeWalker implements Iterator<Entry> {
+
+        private final Session session;
+
+        private final Deque<Iterator<CmisObject>> children = new ArrayDeque<>();
+
+        private final Deque<String> prefixes = new ArrayDeque<>();
+
+        private Entry next;
+
+        private TreeWalker(Session session, Folder root) {
+            this.session = session;
+            String rootPrefix = root.getName() + "/";
+            next = new Entry(rootPrefix, null, time(root));
+            push(root, rootPrefix);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            while (!children.isEmpty()) {
+                Iterator<CmisObject> page = children.peek();
+                if (!page.hasNext()) {
+                    children.pop();
+                    prefixes.pop();
+                    continue;
+                }
+                CmisObject child = page.next();
+                String path = prefixes.peek() + child.getName();
+                if (child instanceof Folder) {
+                    next = new Entry(path + "/", null, time(child));
+                    push((Folder) child, path + "/");
+                    return true;
+                }
+                if (child instanceof Document) {
+                    next = new Entry(path, (Document) child, time(child));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = null;
+            return entry;
+        }
+
+        private void push(Folder folder, String prefix) {
+            children.push(folder.getChildren(listingContext(session)).iterator());
+            prefixes.push(prefix);
+        }
+
+        private long time(CmisObject object) {
+            return object.getLastModificationDate() != null ? object.getLastModificationDate().getTimeInMillis() : 0;
+        }
+    }
+
+    /**
+     * Flux dont le début (au plus {@code limit} octets) est lu dès l'ouverture, sur le thread de préchargement.
+     */
+    private static final class ReadAheadInputStream extends InputStream {
+
+        private final InputStream source;
+
+        private final byte[] head;
+
+        private final int headLength;
+
+        private int position;
+
+        private ReadAheadInputStream(InputStream source, int limit) throws IOException {
+            this.source = source;
+            this.head = new byte[limit];
+            this.headLength = source.readNBytes(head, 0, limit);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return position < headLength ? head[position++] & 0xFF : source.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position < headLength) {
+                int count = Math.min(length, headLength - position);
+                System.arraycopy(head, position, buffer, offset, count);
+                position += count;
+                return count;
+            }
+            return source.read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
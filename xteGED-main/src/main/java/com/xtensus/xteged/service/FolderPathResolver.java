@@ -0,0 +1,254 @@
+package com.xtensus.xteged.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNameConstraintViolationException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Résolution chemin → dossier CMIS avec un cache borné (chemin → id de dossier).
+ * <p>
+ * La résolution part de l'ancêtre le plus profond déjà connu et ne parcourt que les segments
+ * manquants ; une fois un segment absent, les suivants sont créés sans nouvelle recherche.
+ * Les créations concurrentes d'un même dossier sont regroupées sur une seule requête CMIS.
+ * Les entrées sont invalidées à la suppression / modification d'un nœud ({@link NodeChangedEvent}) et expirent après le TTL
+ * (modifications faites directement dans Alfresco ou par une autre instance).
+ */
+@Component
+public class FolderPathResolver {
+
+    private final Logger log = LoggerFactory.getLogger(FolderPathResolver.class);
+
+    @Value("${alfresco.repository.folder-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${alfresco.repository.folder-cache.ttl-ms:600000}")
+    private long ttl;
+
+    private final CmisSessionProvider sessionProvider;
+
+    private final Map<String, CompletableFuture<Folder>> inFlight = new ConcurrentHashMap<>();
+
+    private Cache<String, String> folderIds;
+
+    public FolderPathResolver(CmisSessionProvider sessionProvider) {
+        this.sessionProvider = sessionProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        folderIds = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofMillis(ttl)).build();
+    }
+
+    /**
+     * Retourne le dossier du chemin donné, ou {@code null} s'il n'existe pas.
+     */
+    public Folder find(String path) {
+        return resolve(path, false);
+    }
+
+    /**
+     * Retourne le dossier du chemin donné en créant les dossiers manquants.
+     */
+    public Folder findOrCreate(String path) {
+        return resolve(path, true);
+    }
+
+    /**
+     * Oublie le dossier d'id donné et toute sa descendance (suppression, renommage, déplacement).
+     */
+    public void invalidate(String nodeId) {
+        if (nodeId == null) {
+            return;
+        }
+        String id = stripVersion(nodeId);
+        List<String> paths = new ArrayList<>();
+        folderIds.asMap().forEach((path, folderId) -> {
+            if (stripVersion(folderId).equals(id) || stripVersion(folderId).endsWith("/" + id)) {
+                paths.add(path);
+            }
+        });
+        paths.forEach(this::invalidatePath);
+    }
+
+    /**
+     * Suppression, renommage ou déplacement d'un nœud par l'application : le chemin du dossier et de sa
+     * descendance a pu changer.
+     */
+    @EventListener
+    public void onNodeChanged(NodeChangedEvent event) {
+        if (event.isStructural()) {
+            invalidate(event.getNodeId());
+        }
+    }
+
+    /**
+     * Oublie le chemin donné et tous les chemins qui en descendent.
+     */
+    public void invalidatePath(String path) {
+        String[] segments = segments(path);
+        if (segments.length == 0) {
+            invalidateAll();
+            return;
+        }
+        String normalized = normalize(segments, segments.length);
+        folderIds.asMap().keySet().removeIf(cached -> cached.equals(normalized) || cached.startsWith(normalized + "/"));
+    }
+
+    public void invalidateAll() {
+        folderIds.invalidateAll();
+    }
+
+    private Folder resolve(String path, boolean create) {
+        Session session = sessionProvider.getSession();
+        String[] segments = segments(path);
+        if (segments.length == 0) {
+            return session.getRootFolder();
+        }
+
+        // Ancêtre le plus profond dont l'id est en cache
+        Folder folder = null;
+        int depth = segments.length;
+        for (; depth > 0; depth--) {
+            folder = cachedFolder(session, normalize(segments, depth));
+            if (folder != null) {
+                break;
+            }
+        }
+        if (depth == segments.length) {
+            return folder;
+        }
+        if (folder == null) {
+            folder = session.getRootFolder();
+        }
+
+        boolean missing = false;
+        for (; depth < segments.length; depth++) {
+            String childPath = normalize(segments, depth + 1);
+            Folder child = missing ? null : lookup(session, childPath);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                missing = true;
+                child = create(session, folder, childPath, segments[depth]);
+            }
+            folder = child;
+        }
+        return folder;
+    }
+
+    private Folder cachedFolder(Session session, String path) {
+        String id = folderIds.getIfPresent(path);
+        if (id == null) {
+            return null;
+        }
+        try {
+            Folder folder = (Folder) session.getObject(id, CmisOperationContexts.FOLDER_PATH);
+            // Renommé ou déplacé hors de cette instance (Share, autre membre du cluster), ou sous un ancêtre renommé
+            // dont l'entrée n'était plus en cache ; les noms Alfresco ne distinguent pas la casse
+            if (!path.equalsIgnoreCase(folder.getPath())) {
+                log.debug("Dossier {} déplacé vers {}", path, folder.getPath());
+                invalidatePath(path);
+                return null;
+            }
+            return folder;
+        } catch (CmisObjectNotFoundException e) {
+            // Dossier supprimé hors de cette instance
+            invalidatePath(path);
+            return null;
+        }
+    }
+
+    private Folder lookup(Session session, String path) {
+        try {
+            CmisObject object = session.getObjectByPath(path, CmisOperationContexts.FOLDER_PATH);
+            if (!(object instanceof Folder)) {
+                throw new IllegalArgumentException("Le chemin " + path + " ne désigne pas un dossier");
+            }
+            folderIds.put(path, object.getId());
+            return (Folder) object;
+        } catch (CmisObjectNotFoundException e) {
+            return null;
+        }
+    }
+
+    private Folder create(Session session, Folder parent, String path, String name) {
+        CompletableFuture<Folder> creation = new CompletableFuture<>();
+        CompletableFuture<Folder> pending = inFlight.putIfAbsent(path, creation);
+        if (pending != null) {
+            // Création déjà en cours sur un autre thread : on attend son résultat
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Folder folder = cachedFolder(session, path);
+            if (folder != null) {
+                // Terminé par un autre thread entre la recherche et la création
+                creation.complete(folder);
+                return folder;
+            }
+            try {
+                Map<String, Object> properties = new HashMap<>();
+                properties.put(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_FOLDER.value());
+                properties.put(PropertyIds.NAME, name);
+                folder = parent.createFolder(properties);
+                log.debug("Dossier créé : {}", path);
+            } catch (CmisContentAlreadyExistsException | CmisNameConstraintViolationException e) {
+                // Créé entre-temps par une autre instance
+                folder = (Folder) session.getObjectByPath(path, CmisOperationContexts.FOLDER_PATH);
+            }
+            folderIds.put(path, folder.getId());
+            creation.complete(folder);
+            return folder;
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(path, creation);
+        }
+    }
+
+    private static String[] segments(String path) {
+        return path == null ? new String[0] : Arrays.stream(path.split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    private static String normalize(String[] segments, int depth) {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            path.append('/').append(segments[i]);
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    private static String stripVersion(String id) {
+        int separator = id.indexOf(';');
+        return separator < 0 ? id : id.substring(0, separator);
+    }
+}
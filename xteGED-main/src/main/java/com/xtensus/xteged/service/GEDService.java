@@ -1,5 +1,9 @@
 package com.xtensus.xteged.service;
 
+import java.io.InputStream;
+
 public interface GEDService {
     public String saveDocumentToAlfrescoInPath(byte[] files, String pathName, String fileName, String extension);
+
+    public String saveDocumentToAlfrescoInPath(InputStream content, long length, String pathName, String fileName, String extension);
 }
@@ -1,85 +1,183 @@
 package com.xtensus.xteged.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.http.MediaType;
-import org.json.JSONObject;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 @Service
 public class KeycloakUserSyncService {
 
+    private final Logger log = LoggerFactory.getLogger(KeycloakUserSyncService.class);
+
     private final WebClient webClient;
 
+    @Value("${alfresco.http.keycloak-token-url:http://localhost:9080/auth/realms/master/protocol/openid-connect/token}")
+    private String tokenUrl;
+
+    @Value("${alfresco.http.keycloak-admin-user:admin}")
+    private String adminUser;
+
+    @Value("${alfresco.http.keycloak-admin-password:admin}")
+    private String adminPassword;
+
+    // Le jeton n'est plus utilisé à moins de cette marge de son expiration (au plus un quart de sa durée de vie)
+    @Value("${alfresco.http.keycloak-token-expiry-margin-ms:10000}")
+    private long expiryMargin;
+
+    // Jeton d'administration partagé : une seule demande en cours, réutilisé jusqu'à son expiration
+    private final AtomicReference<Mono<AdminToken>> adminToken = new AtomicReference<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
     @Autowired
-    public KeycloakUserSyncService(WebClient.Builder webClientBuilder) {
-        // Utilisation de webClientBuilder pour construire un WebClient
-        this.webClient = webClientBuilder
-            .baseUrl("http://localhost:9080/auth/admin/realms/postarion")
-            .build();
+    public KeycloakUserSyncService(AlfrescoHttpClient httpClient) {
+        this.webClient = httpClient.keycloakAdmin();
+    }
+
+    @PostConstruct
+    public void init() {
+        adminToken.set(cachedToken());
     }
 
     public Mono<Void> synchronizeUserToKeycloak(String username, String email) {
-        return getKeycloakAdminToken("admin", "admin") // Remplacez par les informations d'identification appropriées
-            .flatMap(token -> {
+        Mono<AdminToken> token = adminToken.get();
+        return adminToken()
+            .flatMap(accessToken -> {
                 // Préparer la requête JSON
                 String userJson = String.format("{\"username\": \"%s\", \"email\": \"%s\", \"enabled\": true}", username, email);
 
                 return webClient.post()
-                    .uri("http://localhost:9080/auth/admin/realms/postarion/users") // Assurez-vous que l'URI est correcte
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .uri("/users")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(BodyInserters.fromValue(userJson))
                     .retrieve()
                     .bodyToMono(Void.class) // Vous pouvez traiter la réponse si nécessaire
                     .onErrorResume(e -> {
+                        if (e instanceof WebClientResponseException.Unauthorized) {
+                            // Jeton révoqué côté Keycloak : le prochain appel en redemande un
+                            adminToken.compareAndSet(token, cachedToken());
+                        }
                         // Gestion des erreurs lors de la synchronisation avec Keycloak
                         return Mono.error(new RuntimeException("Erreur de synchronisation avec Keycloak: " + e.getMessage()));
                     });
             });
     }
 
-    public Mono<String> getKeycloakAdminToken(String username, String password) {
+    /**
+     * Création idempotente d'un utilisateur Keycloak : {@code false} s'il existe déjà (409), les autres erreurs
+     * ({@link WebClientResponseException}) sont propagées telles quelles pour permettre une nouvelle tentative.
+     */
+    public Mono<Boolean> createUserIfAbsent(String username, String email, String firstName, String lastName) {
+        Mono<AdminToken> token = adminToken.get();
+        Map<String, Object> user = new HashMap<>();
+        user.put("username", username);
+        user.put("email", email);
+        user.put("firstName", firstName);
+        user.put("lastName", lastName);
+        user.put("enabled", true);
+        return adminToken()
+            .flatMap(accessToken ->
+                webClient.post()
+                    .uri("/users")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(user)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .thenReturn(true)
+            )
+            .onErrorResume(WebClientResponseException.Conflict.class, e -> Mono.just(false))
+            .doOnError(WebClientResponseException.Unauthorized.class, e -> adminToken.compareAndSet(token, cachedToken()));
+    }
+
+    /**
+     * Jeton d'administration Keycloak partagé. Passée la moitié de sa durée de vie, un nouveau jeton est demandé
+     * en arrière-plan tandis que l'actuel continue d'être servi ; un jeton expiré est redemandé une seule fois pour
+     * tous les appelants concurrents.
+     */
+    public Mono<String> adminToken() {
+        return adminToken
+            .get()
+            .map(token -> {
+                if (System.currentTimeMillis() >= token.refreshAt && refreshing.compareAndSet(false, true)) {
+                    refreshInBackground();
+                }
+                return token.value;
+            });
+    }
+
+    private void refreshInBackground() {
+        Mono<AdminToken> next = cachedToken();
+        next
+            .doFinally(signal -> refreshing.set(false))
+            .subscribe(
+                token -> adminToken.set(next),
+                e -> log.warn("Renouvellement du jeton d'administration Keycloak impossible : {}", e.getMessage())
+            );
+    }
+
+    /**
+     * Demande de jeton mise en cache jusqu'à l'expiration du jeton obtenu, puis redemandée au premier appel suivant.
+     */
+    private Mono<AdminToken> cachedToken() {
+        return requestToken()
+            .cache(token -> Duration.ofMillis(Math.max(0, token.expiresAt - System.currentTimeMillis())), e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    private Mono<AdminToken> requestToken() {
         return webClient.post()
-            .uri("")
+            .uri(tokenUrl)
             .headers(headers -> headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED))
-            .bodyValue("client_id=admin-cli" +
-                "&username=" + username +
-                "&password=" + password +
-                "&grant_type=password")
+            .body(
+                BodyInserters
+                    .fromFormData("client_id", "admin-cli")
+                    .with("username", adminUser)
+                    .with("password", adminPassword)
+                    .with("grant_type", "password")
+            )
             .retrieve()
             .bodyToMono(Map.class)
-            .map(response -> (String) response.get("access_token"))
-            .onErrorResume(e -> {
-                // Gérer les erreurs ici
-                return Mono.empty();
+            .map(response -> {
+                long now = System.currentTimeMillis();
+                long lifetime = ((Number) response.getOrDefault("expires_in", 60)).longValue() * 1000;
+                log.debug("Nouveau jeton d'administration Keycloak, valide {} s", lifetime / 1000);
+                return new AdminToken(
+                    (String) response.get("access_token"),
+                    now + lifetime / 2,
+                    now + lifetime - Math.min(expiryMargin, lifetime / 4)
+                );
             });
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    private static final class AdminToken {
 
+        private final String value;
 
+        private final long refreshAt;
 
+        private final long expiresAt;
 
+        private AdminToken(String value, long refreshAt, long expiresAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
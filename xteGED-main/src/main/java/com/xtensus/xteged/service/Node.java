@@ -1,18 +1,39 @@
 package com.xtensus.xteged.service;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class Node {
+/**
+ * Nœud renvoyé par l'API REST Alfresco ({@code /nodes}, {@code /queries/nodes}, {@code /deleted-nodes}).
+ * Les champs non modélisés (selon {@code include}) sont conservés tels quels et renvoyés au client.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Node implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private String id;
     private String name;
     private String nodeType;
+    private String parentId;
+
     private boolean isFile;
     private boolean isFolder;
+
     private String createdAt;
     private String modifiedAt;
-    private String createdByUser;
-    private String modifiedByUser;
-    private Map<String, String> properties;
+    private UserInfo createdByUser;
+    private UserInfo modifiedByUser;
+    private ContentInfo content;
+    private List<String> aspectNames;
+    private Map<String, Object> properties;
+    private final Map<String, Object> additionalProperties = new LinkedHashMap<>();
 
     public String getId() {
         return id;
@@ -38,18 +59,30 @@ public class Node {
         this.nodeType = nodeType;
     }
 
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
+    @JsonProperty("isFile")
     public boolean isFile() {
         return isFile;
     }
 
+    @JsonProperty("isFile")
     public void setFile(boolean file) {
         isFile = file;
     }
 
+    @JsonProperty("isFolder")
     public boolean isFolder() {
         return isFolder;
     }
 
+    @JsonProperty("isFolder")
     public void setFolder(boolean folder) {
         isFolder = folder;
     }
@@ -70,27 +103,120 @@ public class Node {
         this.modifiedAt = modifiedAt;
     }
 
-    public String getCreatedByUser() {
+    public UserInfo getCreatedByUser() {
         return createdByUser;
     }
 
-    public void setCreatedByUser(String createdByUser) {
+    public void setCreatedByUser(UserInfo createdByUser) {
         this.createdByUser = createdByUser;
     }
 
-    public String getModifiedByUser() {
+    public UserInfo getModifiedByUser() {
         return modifiedByUser;
     }
 
-    public void setModifiedByUser(String modifiedByUser) {
+    public void setModifiedByUser(UserInfo modifiedByUser) {
         this.modifiedByUser = modifiedByUser;
     }
 
-    public Map<String, String> getProperties() {
+    public ContentInfo getContent() {
+        return content;
+    }
+
+    public void setContent(ContentInfo content) {
+        this.content = content;
+    }
+
+    public List<String> getAspectNames() {
+        return aspectNames;
+    }
+
+    public void setAspectNames(List<String> aspectNames) {
+        this.aspectNames = aspectNames;
+    }
+
+    public Map<String, Object> getProperties() {
         return properties;
     }
 
-    public void setProperties(Map<String, String> properties) {
+    public void setProperties(Map<String, Object> properties) {
         this.properties = properties;
     }
+
+    @JsonAnyGetter
+    public Map<String, Object> getAdditionalProperties() {
+        return additionalProperties;
+    }
+
+    @JsonAnySetter
+    public void setAdditionalProperty(String name, Object value) {
+        additionalProperties.put(name, value);
+    }
+
+    public static class UserInfo implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String id;
+        private String displayName;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public void setDisplayName(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ContentInfo implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String mimeType;
+        private String mimeTypeName;
+        private long sizeInBytes;
+        private String encoding;
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public void setMimeType(String mimeType) {
+            this.mimeType = mimeType;
+        }
+
+        public String getMimeTypeName() {
+            return mimeTypeName;
+        }
+
+        public void setMimeTypeName(String mimeTypeName) {
+            this.mimeTypeName = mimeTypeName;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+
+        public void setSizeInBytes(long sizeInBytes) {
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.ldap.OrgTree;
+import com.xtensus.xteged.service.ldap.Unit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Organigramme (unités, bureaux d'ordre et leurs membres), chargé une fois en {@link OrgTree} puis rechargé
+ * périodiquement depuis {@code alfresco.org-directory.url}, qui renvoie les unités racines en JSON.
+ * <p>
+ * Chaque rechargement construit un nouvel arbre à côté de l'actuel puis le publie d'un coup : les lectures en
+ * cours gardent l'arbre qu'elles ont obtenu par {@link #tree()}, et plusieurs questions posées au même arbre
+ * obtiennent des réponses cohérentes entre elles.
+ */
+@Service
+public class OrgDirectoryService {
+
+    private static final ParameterizedTypeReference<List<Unit>> UNITS = new ParameterizedTypeReference<List<Unit>>() {};
+
+    private final Logger log = LoggerFactory.getLogger(OrgDirectoryService.class);
+
+    @Value("${alfresco.org-directory.url:}")
+    private String url;
+
+    private final AlfrescoHttpClient alfrescoHttpClient;
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private volatile OrgTree tree = OrgTree.empty();
+
+    public OrgDirectoryService(AlfrescoHttpClient alfrescoHttpClient) {
+        this.alfrescoHttpClient = alfrescoHttpClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!url.isEmpty()) {
+            reload().subscribe();
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${alfresco.org-directory.refresh-interval-ms:600000}",
+        initialDelayString = "${alfresco.org-directory.refresh-interval-ms:600000}"
+    )
+    public void refresh() {
+        load();
+    }
+
+    /**
+     * Arbre courant (vide tant que rien n'est chargé).
+     */
+    public OrgTree tree() {
+        return tree;
+    }
+
+    /**
+     * Relit l'organigramme et remplace l'arbre ; sans effet si un rechargement est en cours. En cas d'échec,
+     * l'arbre précédent reste en place.
+     */
+    public Mono<OrgTree> reload() {
+        if (!loading.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        return alfrescoHttpClient
+            .builder()
+            .build()
+            .get()
+            .uri(url)
+            .retrieve()
+            .bodyToMono(UNITS)
+            .map(this::replace)
+            .doOnError(e -> log.warn("Chargement de l'organigramme impossible : {}", e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .doFinally(signal -> loading.set(false));
+    }
+
+    /**
+     * Remplace l'arbre par celui des unités racines {@code roots}.
+     */
+    public OrgTree replace(Collection<Unit> roots) {
+        long start = System.currentTimeMillis();
+        OrgTree built = OrgTree.of(roots);
+        OrgTree previous = tree;
+        tree = built;
+        log.info(
+            "Organigramme : {} nœuds ({} auparavant, {} rattachements en double ignorés) en {} ms",
+            built.size(),
+            previous.size(),
+            built.getDuplicates(),
+            System.currentTimeMillis() - start
+        );
+        return built;
+    }
+}
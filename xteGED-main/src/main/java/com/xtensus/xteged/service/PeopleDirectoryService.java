@@ -0,0 +1,327 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.ldap.Person;
+import com.xtensus.xteged.service.ldap.PersonNameIndex;
+import com.xtensus.xteged.service.person.Pagination;
+import com.xtensus.xteged.service.person.PeopleList;
+import com.xtensus.xteged.service.person.PeopleListResponse;
+import com.xtensus.xteged.service.person.PersonChangedEvent;
+import com.xtensus.xteged.service.person.PersonEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Annuaire local des personnes Alfresco, pour les listes de sélection (assignation, partage).
+ * <p>
+ * L'annuaire est chargé en entier (page par page) au démarrage puis resynchronisé périodiquement ; les
+ * créations / modifications faites par l'application ({@link PersonChangedEvent}) y sont appliquées par lots, au
+ * plus {@code alfresco.people-directory.change-delay-ms} plus tard et hors du thread appelant (un import de
+ * milliers de personnes ne reconstruit l'index que quelques fois). Recherche et listes sont servies depuis un
+ * instantané immuable, remplacé à chaque lot : les lectures ne prennent aucun verrou. Tant que le premier chargement n'a pas abouti, {@link #search} et
+ * {@link #list} ne répondent pas ({@link Mono#empty()}) et l'appelant interroge Alfresco.
+ */
+@Service
+public class PeopleDirectoryService {
+
+    private final Logger log = LoggerFactory.getLogger(PeopleDirectoryService.class);
+
+    @Value("${alfresco.people-directory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alfresco.people-directory.page-size:100}")
+    private int pageSize;
+
+    // Délai de regroupement des modifications avant la reconstruction de l'instantané
+    @Value("${alfresco.people-directory.change-delay-ms:200}")
+    private long changeDelay;
+
+    private final AlfrescoService alfrescoService;
+
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    private final Object lock = new Object();
+
+    // Modifications reçues pendant une resynchronisation, réappliquées sur son résultat
+    private Map<String, Person> changedDuringSync;
+
+    // Modifications en attente du prochain lot
+    private Map<String, Person> pendingChanges = new LinkedHashMap<>();
+
+    private boolean applyScheduled;
+
+    private volatile Snapshot snapshot;
+
+    public PeopleDirectoryService(AlfrescoService alfrescoService) {
+        this.alfrescoService = alfrescoService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            synchronize().subscribe();
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${alfresco.people-directory.refresh-interval-ms:300000}",
+        initialDelayString = "${alfresco.people-directory.refresh-interval-ms:300000}"
+    )
+    public void refresh() {
+        if (enabled) {
+            synchronize().subscribe();
+        }
+    }
+
+    @EventListener
+    public void onPersonChanged(PersonChangedEvent event) {
+        Person changed = event.getPerson();
+        if (changed == null || changed.getId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (changedDuringSync != null) {
+                changedDuringSync.merge(changed.getId(), changed, PeopleDirectoryService::merge);
+            }
+            if (snapshot == null) {
+                return;
+            }
+            pendingChanges.merge(changed.getId(), changed, PeopleDirectoryService::merge);
+            if (!applyScheduled) {
+                applyScheduled = true;
+                Schedulers.boundedElastic().schedule(this::applyPendingChanges, changeDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void applyPendingChanges() {
+        synchronized (lock) {
+            applyScheduled = false;
+            if (pendingChanges.isEmpty() || snapshot == null) {
+                return;
+            }
+            Map<String, Person> people = new LinkedHashMap<>(snapshot.byId);
+            pendingChanges.forEach((id, changed) -> people.merge(id, changed, PeopleDirectoryService::merge));
+            log.debug("Annuaire des personnes : {} modifications appliquées", pendingChanges.size());
+            pendingChanges = new LinkedHashMap<>();
+            snapshot = new Snapshot(people);
+        }
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Relit toutes les personnes d'Alfresco et remplace l'annuaire ; sans effet si une resynchronisation est en cours.
+     */
+    public Mono<Integer> synchronize() {
+        if (!syncing.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        long start = System.currentTimeMillis();
+        synchronized (lock) {
+            changedDuringSync = new HashMap<>();
+        }
+        return fetchAll()
+            .collectMap(Person::getId, person -> person, LinkedHashMap::new)
+            .map(people -> {
+                synchronized (lock) {
+                    changedDuringSync.forEach((id, changed) -> people.merge(id, changed, PeopleDirectoryService::merge));
+                    changedDuringSync = null;
+                    // Déjà reportées ci-dessus, ou antérieures à la relecture
+                    pendingChanges = new LinkedHashMap<>();
+                    Snapshot previous = snapshot;
+                    snapshot = new Snapshot(people);
+                    log.info(
+                        "Annuaire des personnes : {} personnes ({} auparavant) en {} ms",
+                        people.size(),
+                        previous == null ? 0 : previous.byId.size(),
+                        System.currentTimeMillis() - start
+                    );
+                }
+                return people.size();
+            })
+            .doOnError(e -> {
+                synchronized (lock) {
+                    changedDuringSync = null;
+                }
+                log.warn("Chargement de l'annuaire des personnes impossible : {}", e.getMessage());
+            })
+            .onErrorResume(e -> Mono.empty())
+            .doFinally(signal -> syncing.set(false));
+    }
+
+    /**
+     * Recherche locale sur l'identifiant, le prénom, le nom, l'email et le nom arabe ({@link PersonNameIndex}), chaque
+     * mot de {@code term} devant correspondre ; les meilleures correspondances d'abord.
+     */
+    public Mono<PeopleListResponse> search(String term, Integer skipCount, Integer maxItems) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Mono.empty();
+        }
+        int skip = skipCount == null ? 0 : Math.max(0, skipCount);
+        int max = maxItems == null ? 100 : Math.max(0, maxItems);
+        PersonNameIndex.Result result = current.index.search(term, skip + max);
+        List<Person> people = result.getPeople();
+        return Mono.just(response(people.subList(Math.min(skip, people.size()), people.size()), skip, max, result.getTotal()));
+    }
+
+    /**
+     * Liste paginée, triée selon {@code orderBy} ({@code id}, {@code firstName}, {@code lastName} ou {@code email},
+     * suivi de {@code ASC}/{@code DESC}). Vide (l'appelant interroge Alfresco) pour un autre tri.
+     */
+    public Mono<PeopleListResponse> list(int skipCount, int maxItems, String orderBy) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Mono.empty();
+        }
+        Comparator<Person> comparator = comparator(orderBy);
+        if (comparator == null) {
+            return Mono.empty();
+        }
+        // Tri calculé une fois par instantané et par ordre demandé
+        List<Person> people = current.sorted.computeIfAbsent(
+            orderBy == null ? "" : orderBy.trim(),
+            key -> {
+                List<Person> sorted = new ArrayList<>(current.byId.values());
+                sorted.sort(comparator);
+                return Collections.unmodifiableList(sorted);
+            }
+        );
+        return Mono.just(page(people, skipCount, maxItems));
+    }
+
+    private Flux<Person> fetchAll() {
+        return alfrescoService
+            .getPeopleList(0, pageSize, null, null, null)
+            .expand(response -> {
+                Pagination pagination = response.getList().getPagination();
+                if (pagination == null || !pagination.isHasMoreItems()) {
+                    return Mono.empty();
+                }
+                return alfrescoService.getPeopleList(pagination.getSkipCount() + pagination.getCount(), pageSize, null, null, null);
+            })
+            .concatMapIterable(response -> response.getList().getEntries() != null ? response.getList().getEntries() : Collections.emptyList())
+            .map(PersonEntry::getEntry)
+            .filter(person -> person.getId() != null);
+    }
+
+    private static PeopleListResponse page(List<Person> people, Integer skipCount, Integer maxItems) {
+        int skip = skipCount == null ? 0 : Math.max(0, skipCount);
+        int max = maxItems == null ? 100 : Math.max(0, maxItems);
+        return response(people.subList(Math.min(skip, people.size()), Math.min(skip + max, people.size())), skip, max, people.size());
+    }
+
+    private static PeopleListResponse response(List<Person> people, int skip, int max, int total) {
+        List<PersonEntry> entries = people
+            .stream()
+            .map(person -> {
+                PersonEntry entry = new PersonEntry();
+                entry.setEntry(person);
+                return entry;
+            })
+            .collect(Collectors.toList());
+        Pagination pagination = new Pagination();
+        pagination.setCount(entries.size());
+        pagination.setSkipCount(skip);
+        pagination.setMaxItems(max);
+        pagination.setTotalItems(total);
+        pagination.setHasMoreItems(skip + entries.size() < total);
+        PeopleList list = new PeopleList();
+        list.setPagination(pagination);
+        list.setEntries(entries);
+        PeopleListResponse response = new PeopleListResponse();
+        response.setList(list);
+        return response;
+    }
+
+    private static Comparator<Person> comparator(String orderBy) {
+        String[] parts = orderBy == null || orderBy.isBlank() ? new String[] { "id" } : orderBy.trim().split("\\s+");
+        if (parts.length > 2 || (parts.length == 2 && !parts[1].equalsIgnoreCase("ASC") && !parts[1].equalsIgnoreCase("DESC"))) {
+            return null;
+        }
+        Comparator<Person> comparator;
+        switch (parts[0]) {
+            case "id":
+                comparator = Comparator.comparing(person -> PersonNameIndex.normalize(person.getId()));
+                break;
+            case "firstName":
+                comparator = Comparator.comparing(person -> PersonNameIndex.normalize(person.getFirstName()));
+                break;
+            case "lastName":
+                comparator = Comparator.comparing(person -> PersonNameIndex.normalize(person.getLastName()));
+                break;
+            case "email":
+                comparator = Comparator.comparing(person -> PersonNameIndex.normalize(person.getEmail()));
+                break;
+            default:
+                return null;
+        }
+        return parts.length == 2 && parts[1].equalsIgnoreCase("DESC") ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * Applique une modification à une personne connue : seuls les champs renseignés sont remplacés.
+     */
+    private static Person merge(Person existing, Person changed) {
+        Person merged = new Person();
+        merged.setId(existing.getId());
+        merged.setFirstName(changed.getFirstName() != null ? changed.getFirstName() : existing.getFirstName());
+        merged.setLastName(changed.getLastName() != null ? changed.getLastName() : existing.getLastName());
+        merged.setEmail(changed.getEmail() != null ? changed.getEmail() : existing.getEmail());
+        merged.setDescription(changed.getDescription() != null ? changed.getDescription() : existing.getDescription());
+        merged.setCompany(changed.getCompany() != null ? changed.getCompany() : existing.getCompany());
+        merged.setNomArabe(changed.getNomArabe() != null ? changed.getNomArabe() : existing.getNomArabe());
+        merged.setEnabled(changed.isEnabled());
+        merged.setEmailNotificationsEnabled(changed.isEmailNotificationsEnabled());
+        merged.setAvatarId(existing.getAvatarId());
+        merged.setJobTitle(existing.getJobTitle());
+        merged.setLocation(existing.getLocation());
+        merged.setMobile(existing.getMobile());
+        merged.setTelephone(existing.getTelephone());
+        merged.setSkypeId(existing.getSkypeId());
+        merged.setGoogleId(existing.getGoogleId());
+        merged.setInstantMessageId(existing.getInstantMessageId());
+        merged.setUserStatus(existing.getUserStatus());
+        merged.setStatusUpdatedAt(existing.getStatusUpdatedAt());
+        merged.setAspectNames(existing.getAspectNames());
+        merged.setProperties(existing.getProperties());
+        existing.getAdditionalProperties().forEach(merged::setAdditionalProperty);
+        return merged;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, Person> byId;
+
+        private final PersonNameIndex index;
+
+        private final Map<String, List<Person>> sorted = new ConcurrentHashMap<>();
+
+        private Snapshot(Map<String, Person> byId) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.index = PersonNameIndex.of(byId.values());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.xtensus.xteged.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xtensus.xteged.service.person.PeopleImportReport;
+import com.xtensus.xteged.service.person.PeopleImportResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Import en masse de personnes : création dans Alfresco puis synchronisation dans Keycloak.
+ * <p>
+ * Les deux étapes forment un pipeline, chacune avec son propre nombre d'appels simultanés : les créations
+ * Keycloak avancent pendant que les suivantes sont créées dans Alfresco. Une personne déjà présente (409)
+ * compte comme un succès, un même fichier peut donc être réimporté après un échec partiel ; les erreurs
+ * transitoires (5xx, 429, réseau) sont retentées avec un délai croissant. La latence de chaque étape est publiée
+ * sous {@code xteged.people.import.stage} (tags {@code stage}, {@code result}).
+ */
+@Service
+public class PeopleImportService {
+
+    private final Logger log = LoggerFactory.getLogger(PeopleImportService.class);
+
+    @Value("${alfresco.people-import.alfresco-concurrency:8}")
+    private int alfrescoConcurrency;
+
+    @Value("${alfresco.people-import.keycloak-concurrency:4}")
+    private int keycloakConcurrency;
+
+    @Value("${alfresco.people-import.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${alfresco.people-import.retry-backoff-ms:500}")
+    private long retryBackoff;
+
+    private final AlfrescoService alfrescoService;
+
+    private final KeycloakUserSyncService keycloakUserSyncService;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    public PeopleImportService(
+        AlfrescoService alfrescoService,
+        KeycloakUserSyncService keycloakUserSyncService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
+    ) {
+        this.alfrescoService = alfrescoService;
+        this.keycloakUserSyncService = keycloakUserSyncService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Importe les personnes et retourne le bilan, dans l'ordre du fichier.
+     *
+     * @param keycloak synchroniser aussi les personnes dans Keycloak.
+     */
+    public Mono<PeopleImportReport> importPeople(Flux<PersonneRequest> people, boolean keycloak) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return people
+                .flatMapSequential(person -> createInAlfresco(person), alfrescoConcurrency, 1)
+                .flatMapSequential(imported -> keycloak ? createInKeycloak(imported) : Mono.just(imported.result), keycloakConcurrency, 1)
+                .collectList()
+                .map(results -> {
+                    PeopleImportReport report = PeopleImportReport.of(results, elapsedMs(start));
+                    log.info(
+                        "Import de {} personnes : {} réussies, {} en échec en {} ms (Alfresco {} ms, Keycloak {} ms en moyenne)",
+                        report.getTotal(),
+                        report.getSucceeded(),
+                        report.getFailed(),
+                        report.getElapsedMs(),
+                        String.format("%.0f", report.getAlfrescoAverageMs()),
+                        String.format("%.0f", report.getKeycloakAverageMs())
+                    );
+                    return report;
+                });
+        });
+    }
+
+    /**
+     * Personnes d'un fichier CSV (séparateur {@code ,} ou {@code ;}), lues au fil de la demande. La première ligne
+     * nomme les colonnes : {@code id, firstName, lastName, email, password}, dans un ordre quelconque. Les champs
+     * entre guillemets peuvent contenir le séparateur, des sauts de ligne et des guillemets doublés ({@code ""}).
+     */
+    public Flux<PersonneRequest> csv(InputStream content) {
+        return Flux
+            .using(
+                () -> new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8)),
+                reader -> {
+                    char separator = separator(reader);
+                    List<String> header = readRecord(reader, separator);
+                    if (header == null) {
+                        return Flux.<PersonneRequest>empty();
+                    }
+                    List<String> columns = new ArrayList<>();
+                    for (String column : header) {
+                        columns.add(column.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+                    }
+                    if (!columns.containsAll(Arrays.asList("id", "email"))) {
+                        return Flux.<PersonneRequest>error(new IllegalArgumentException("Colonnes id et email obligatoires : " + header));
+                    }
+                    return Flux
+                        .<List<String>>generate(sink -> {
+                            List<String> record = readRecord(reader, separator);
+                            if (record == null) {
+                                sink.complete();
+                            } else {
+                                sink.next(record);
+                            }
+                        })
+                        .filter(record -> record.stream().anyMatch(value -> !value.isEmpty()))
+                        .map(record -> person(columns, record));
+                },
+                reader -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        log.debug("Fermeture du fichier CSV : {}", e.getMessage());
+                    }
+                }
+            )
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Personnes d'un tableau JSON (ou d'objets JSON successifs, NDJSON), lues au fil de la demande.
+     */
+    public Flux<PersonneRequest> json(InputStream content) {
+        return Flux
+            .using(
+                () -> objectMapper.readerFor(PersonneRequest.class).<PersonneRequest>readValues(content),
+                iterator -> Flux.fromIterable(() -> iterator),
+                iterator -> {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        log.debug("Fermeture du flux JSON : {}", e.getMessage());
+                    }
+                }
+            )
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Imported> createInAlfresco(PersonneRequest person) {
+        PeopleImportResult result = new PeopleImportResult(person.getId(), person.getEmail());
+        if (isBlank(person.getId()) || isBlank(person.getEmail())) {
+            result.setAlfresco(PeopleImportResult.Status.FAILED);
+            result.setError("id et email obligatoires");
+            return Mono.just(new Imported(person, result));
+        }
+        long start = System.nanoTime();
+        return stage("alfresco", () -> alfrescoService.createPersonIfAbsent(person))
+            .map(created -> created ? PeopleImportResult.Status.CREATED : PeopleImportResult.Status.EXISTING)
+            .onErrorResume(e -> {
+                result.setError("Alfresco : " + message(e));
+                return Mono.just(PeopleImportResult.Status.FAILED);
+            })
+            .map(status -> {
+                result.setAlfresco(status);
+                result.setAlfrescoMs(elapsedMs(start));
+                return new Imported(person, result);
+            });
+    }
+
+    private Mono<PeopleImportResult> createInKeycloak(Imported imported) {
+        PeopleImportResult result = imported.result;
+        if (result.getAlfresco() == PeopleImportResult.Status.FAILED) {
+            return Mono.just(result);
+        }
+        PersonneRequest person = imported.person;
+        long start = System.nanoTime();
+        return stage(
+            "keycloak",
+            () -> keycloakUserSyncService.createUserIfAbsent(person.getId(), person.getEmail(), person.getFirstName(), person.getLastName())
+        )
+            .map(created -> created ? PeopleImportResult.Status.CREATED : PeopleImportResult.Status.EXISTING)
+            .onErrorResume(e -> {
+                result.setError("Keycloak : " + message(e));
+                return Mono.just(PeopleImportResult.Status.FAILED);
+            })
+            .map(status -> {
+                result.setKeycloak(status);
+                result.setKeycloakMs(elapsedMs(start));
+                return result;
+            });
+    }
+
+    /**
+     * Appel d'une étape, retenté sur erreur transitoire ; chaque tentative est mesurée.
+     */
+    private Mono<Boolean> stage(String stage, Supplier<Mono<Boolean>> call) {
+        return Mono
+            .defer(() -> {
+                long start = System.nanoTime();
+                return call
+                    .get()
+                    .doOnSuccess(created -> record(stage, created ? "created" : "existing", start))
+                    .doOnError(e -> record(stage, isTransient(e) ? "retried" : "failed", start));
+            })
+            .retryWhen(
+                Retry
+                    .backoff(maxRetries, Duration.ofMillis(retryBackoff))
+                    .filter(PeopleImportService::isTransient)
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure())
+            );
+    }
+
+    private void record(String stage, String result, long start) {
+        meterRegistry.timer("xteged.people.import.stage", "stage", stage, "result", result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            HttpStatus status = ((WebClientResponseException) e).getStatusCode();
+            return status.is5xxServerError() || status == HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    private static String message(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            WebClientResponseException response = (WebClientResponseException) e;
+            return response.getRawStatusCode() + " " + response.getResponseBodyAsString();
+        }
+        return e.getMessage();
+    }
+
+    private static PersonneRequest person(List<String> columns, List<String> values) {
+        PersonneRequest person = new PersonneRequest();
+        for (int i = 0; i < columns.size() && i < values.size(); i++) {
+            String value = values.get(i);
+            switch (columns.get(i)) {
+                case "id":
+                    person.setId(value);
+                    break;
+                case "firstname":
+                    person.setFirstName(value);
+                    break;
+                case "lastname":
+                    person.setLastName(value);
+                    break;
+                case "email":
+                    person.setEmail(value);
+                    break;
+                case "password":
+                    person.setPassword(value);
+                    break;
+                default:
+                    // colonne ignorée
+            }
+        }
+        return person;
+    }
+
+    // Séparateur de la ligne d'en-tête, lue sans être consommée
+    private static char separator(BufferedReader reader) {
+        try {
+            reader.mark(64 * 1024);
+            String header = reader.readLine();
+            reader.reset();
+            return header != null && header.contains(";") ? ';' : ',';
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fichier CSV illisible", e);
+        }
+    }
+
+    /**
+     * Enregistrement CSV suivant (RFC 4180), {@code null} en fin de fichier. Les champs sans guillemets sont
+     * rognés ; un champ entre guillemets est repris tel quel.
+     */
+    static List<String> readRecord(BufferedReader reader, char separator) {
+        try {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            // Champ entre guillemets refermé : la suite jusqu'au séparateur est ignorée
+            boolean closed = false;
+            for (; c != -1; c = reader.read()) {
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                    } else {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                            closed = true;
+                        }
+                    }
+                } else if (c == separator || c == '\n') {
+                    fields.add(closed ? field.toString() : field.toString().trim());
+                    field.setLength(0);
+                    closed = false;
+                    if (c == '\n') {
+                        return fields;
+                    }
+                } else if (c == '"' && !closed && field.toString().isBlank()) {
+                    field.setLength(0);
+                    quoted = true;
+                } else if (c != '\r' && !closed) {
+                    field.append((char) c);
+                }
+            }
+            fields.add(closed ? field.toString() : field.toString().trim());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fichier CSV illisible", e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Personne créée (ou non) dans Alfresco, en attente de l'étape Keycloak.
+     */
+    private static final class Imported {
+
+        private final PersonneRequest person;
+
+        private final PeopleImportResult result;
+
+        private Imported(PersonneRequest person, PeopleImportResult result) {
+            this.person = person;
+            this.result = result;
+        }
+    }
+}
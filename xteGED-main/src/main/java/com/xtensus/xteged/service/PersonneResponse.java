@@ -2,8 +2,11 @@ package com.xtensus.xteged.service;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.xtensus.xteged.service.person.Company;
+import java.io.Serializable;
 
-public class PersonneResponse {
+public class PersonneResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Entry entry;
 
@@ -16,7 +19,10 @@ public class PersonneResponse {
     }
 
     // Classe interne pour correspondre à la structure de "entry"
-    public static class Entry {
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
         private String id;
         private String firstName;
         private String lastName;
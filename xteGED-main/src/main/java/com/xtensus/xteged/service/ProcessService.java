@@ -1,10 +1,6 @@
 package com.xtensus.xteged.service;
 
 import org.springframework.stereotype.Service;
-import org.apache.chemistry.opencmis.client.api.*;
-import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
-import org.apache.chemistry.opencmis.commons.enums.BindingType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -15,22 +11,17 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 @Service
 public class ProcessService {
-    private Session session;
     private final WebClient webClient;
 
-    @Value("${alfresco.repository.user}")
-    private String alfrescoUser;
     @Value("${alfresco.url}")
     private String alfrescoUrl;
-    @Value("${alfresco.repository.pass}")
-    private String alfrescoPass;
 
     @Value("${alfresco.repository.url}")
     private String alfrescoRepoUrl;
 
 
-    public ProcessService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build(); // Assurez-vous de définir l'URL de base appropriée
+    public ProcessService(AlfrescoHttpClient httpClient) {
+        this.webClient = httpClient.alfresco();
     }
 
     public Mono<String> getProcesses(int skipCount, int maxItems, String[] properties, String[] orderBy, String where) {
@@ -49,7 +40,6 @@ public class ProcessService {
 
         return webClient.get()
             .uri(uriBuilder.toString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header(HttpHeaders.ACCEPT, "application/json")
             .retrieve()
             .onStatus(HttpStatus::isError, response ->
@@ -63,17 +53,6 @@ public class ProcessService {
 
 
 
-    // Méthode pour initialiser la session Alfresco
-    public void initializeSession(String username, String password, String atomPubUrl) {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.put(SessionParameter.USER, username);
-        parameters.put(SessionParameter.PASSWORD, password);
-        parameters.put(SessionParameter.ATOMPUB_URL, atomPubUrl);
-        parameters.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
-
-        SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
-        this.session = sessionFactory.getRepositories(parameters).get(0).createSession();
-    }
 
 
 
@@ -83,7 +62,6 @@ public class ProcessService {
 
         return webClient.delete()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header(HttpHeaders.ACCEPT, "application/json")
             .retrieve()
             .onStatus(HttpStatus::isError, response ->
@@ -96,10 +74,6 @@ public class ProcessService {
 
     // Méthode pour créer un processus
     public Mono<String> createProcess(String processDefinitionKey, ProcessVariables variables) {
-        if (session == null) {
-            throw new IllegalStateException("Session not initialized");
-        }
-
         String requestBody = String.format(
             "{ \"processDefinitionKey\": \"%s\", \"variables\": { \"bpm_assignee\": \"%s\", \"bpm_sendEMailNotifications\": %b, \"bpm_workflowPriority\": %d } }",
             processDefinitionKey,
@@ -110,7 +84,6 @@ public class ProcessService {
 
         return webClient.post()
             .uri(String.format("%s/alfresco/api/-default-/public/workflow/versions/1/processes", alfrescoUrl))
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header(HttpHeaders.CONTENT_TYPE, "application/json")
             .bodyValue(requestBody)
             .retrieve()
@@ -0,0 +1,80 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Regroupement des lectures identiques simultanées (« single-flight ») : tant qu'un appel est en cours pour une clé
+ * (opération, id, include, fields...), les demandes suivantes s'y abonnent au lieu d'en lancer un nouveau. La charge
+ * vers Alfresco suit ainsi le nombre d'objets distincts et non celui des utilisateurs.
+ * <p>
+ * Un résultat peut rester partagé pendant {@code alfresco.single-flight.memo-ms} après sa réception (0 : libéré dès
+ * la fin de l'appel). Les erreurs ne sont jamais conservées. Le désabonnement d'un demandeur n'annule pas l'appel
+ * partagé. Une écriture de l'application retire les résultats de l'objet modifié ({@link #invalidate}, appelé pour
+ * chaque {@link NodeChangedEvent} et par {@code AlfrescoService.updatePerson}) : la lecture suivante repart d'Alfresco.
+ */
+@Component
+public class RequestCoalescer {
+
+    @Value("${alfresco.single-flight.memo-ms:0}")
+    private long memoMs;
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(key, k -> share(k, call)));
+    }
+
+    /**
+     * Oublie les appels de la clé {@code key} et de ses variantes ({@code key|...}) ; un appel déjà en cours se
+     * termine pour ceux qui l'attendent, les demandes suivantes en lancent un nouveau.
+     */
+    public void invalidate(String key) {
+        String variants = key + "|";
+        inFlight.keySet().removeIf(k -> k.equals(key) || k.startsWith(variants));
+    }
+
+    @EventListener
+    public void onNodeChanged(NodeChangedEvent event) {
+        if (event.getNodeId() != null) {
+            invalidate(AlfrescoMetadataCache.NODES + "|" + event.getNodeId());
+        }
+        if (event.getTargetParentId() != null) {
+            invalidate(AlfrescoMetadataCache.NODES + "|" + event.getTargetParentId());
+        }
+    }
+
+    /**
+     * Appels partagés en cours ou mémorisés.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private <T> Mono<T> share(String key, Supplier<Mono<T>> call) {
+        Mono<?>[] shared = new Mono<?>[1];
+        shared[0] = Mono
+            .defer(call)
+            .doOnSuccess(value -> {
+                if (memoMs > 0) {
+                    Schedulers.parallel().schedule(() -> inFlight.remove(key, shared[0]), memoMs, TimeUnit.MILLISECONDS);
+                } else {
+                    inFlight.remove(key, shared[0]);
+                }
+            })
+            .doOnError(e -> inFlight.remove(key, shared[0]))
+            .cache();
+        @SuppressWarnings("unchecked")
+        Mono<T> mono = (Mono<T>) shared[0];
+        return mono;
+    }
+}
@@ -0,0 +1,26 @@
+package com.xtensus.xteged.service;
+
+import com.xtensus.xteged.service.person.Pagination;
+import java.util.List;
+
+public class SiteList {
+
+    private Pagination pagination;
+    private List<SiteResponse> entries;
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
+    public List<SiteResponse> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<SiteResponse> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,14 @@
+package com.xtensus.xteged.service;
+
+public class SiteListResponse {
+
+    private SiteList list;
+
+    public SiteList getList() {
+        return list;
+    }
+
+    public void setList(SiteList list) {
+        this.list = list;
+    }
+}
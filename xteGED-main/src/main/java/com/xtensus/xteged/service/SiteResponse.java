@@ -1,9 +1,17 @@
 package com.xtensus.xteged.service;
 
-public class SiteResponse {
+import java.io.Serializable;
+
+public class SiteResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private Entry entry;
 
-    public static class Entry {
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
         private String id;
         private String guid;
         private String title;
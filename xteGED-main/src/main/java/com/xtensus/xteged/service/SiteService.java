@@ -3,11 +3,7 @@ package com.xtensus.xteged.service;
 
 import com.xtensus.xteged.service.impl.CmisServiceImpl;
 import com.xtensus.xteged.web.rest.vm.SiteUpdateRequest;
-import org.apache.chemistry.opencmis.client.api.*;
-import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
 
-import org.apache.chemistry.opencmis.commons.enums.BindingType;
 
 import org.springframework.beans.factory.annotation.Value;
 
@@ -31,16 +27,10 @@ import reactor.core.publisher.Mono;
 @Service
 public class SiteService {
 
-    private Session session;
-
     private final WebClient webClient;
 
-    @Value("${alfresco.repository.user}")
-    private String alfrescoUser;
     @Value("${alfresco.url}")
     private String alfrescoUrl;
-    @Value("${alfresco.repository.pass}")
-    private String alfrescoPass;
 
     @Value("${alfresco.repository.url}")
     private String alfrescoRepoUrl;
@@ -51,29 +41,17 @@ public class SiteService {
     private final Logger log = LoggerFactory.getLogger(CmisServiceImpl.class);
 
 
-    public SiteService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build(); // Assurez-vous de définir l'URL de base appropriée
-    }
-
+    private final AlfrescoMetadataCache metadataCache;
 
-    // Méthode pour initialiser la session Alfresco
-    public void setSession(Session session) {
-        this.session = session;
+    public SiteService(AlfrescoHttpClient httpClient, AlfrescoMetadataCache metadataCache) {
+        this.webClient = httpClient.alfresco();
+        this.metadataCache = metadataCache;
     }
 
-    public void initializeSession(String username, String password, String atomPubUrl) {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.put(SessionParameter.USER, username);
-        parameters.put(SessionParameter.PASSWORD, password);
-        parameters.put(SessionParameter.ATOMPUB_URL, atomPubUrl);
-        parameters.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
 
-        SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
-        this.session = sessionFactory.getRepositories(parameters).get(0).createSession();
-    }
 
     ///////////////////////// Méthode pour obtenir la liste des sites
-    public Mono<String> getSites(String visibility, String orderBy, int skipCount, int maxItems) {
+    public Mono<SiteListResponse> getSites(String visibility, String orderBy, int skipCount, int maxItems) {
         String url = String.format("%s/sites?skipCount=%d&maxItems=%d", alfrescoUrl, skipCount, maxItems);
         StringBuilder uriBuilder = new StringBuilder(url);
 
@@ -86,14 +64,13 @@ public class SiteService {
 
         return webClient.get()
             .uri(uriBuilder.toString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 log.error("Failed to retrieve sites. Status code: {}", response.statusCode());
                 return response.bodyToMono(String.class)
                     .flatMap(body -> Mono.error(new RuntimeException("Failed to retrieve sites: " + body)));
             })
-            .bodyToMono(String.class);
+            .bodyToMono(SiteListResponse.class);
     }
      //////////////////createSite///////////////
     public Mono<String> createSite(String title, String visibility, String description, boolean skipConfiguration, boolean skipAddToFavorites) {
@@ -106,7 +83,6 @@ public class SiteService {
 
         return webClient.post()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .body(BodyInserters.fromValue(siteDetails))
             .retrieve()
@@ -119,7 +95,6 @@ public class SiteService {
 
         return webClient.delete()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 // Log de l'erreur pour plus de détails
@@ -130,7 +105,8 @@ public class SiteService {
                         return Mono.error(new RuntimeException("Failed to delete site: " + errorBody));
                     });
             })
-            .bodyToMono(Void.class);
+            .bodyToMono(Void.class)
+            .doOnSuccess(done -> metadataCache.evict(AlfrescoMetadataCache.SITES, siteId));
     }
 
     // Méthode pour mettre à jour un site
@@ -139,11 +115,11 @@ public class SiteService {
 
         return webClient.put()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .bodyValue(siteUpdateRequest)
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to update site")))
-            .bodyToMono(SiteResponse.class);
+            .bodyToMono(SiteResponse.class)
+            .doOnNext(site -> metadataCache.evict(AlfrescoMetadataCache.SITES, siteId));
     }
 
     // Méthode pour ajouter un membre à un site
@@ -156,7 +132,6 @@ public class SiteService {
 
         return webClient.post()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .body(BodyInserters.fromValue(memberDetails))
             .retrieve()
@@ -178,7 +153,6 @@ public class SiteService {
 
         return webClient.delete()
             .uri(url)
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> {
                 return response.bodyToMono(String.class)
@@ -204,10 +178,10 @@ public class SiteService {
             uriBuilder.queryParam("fields", String.join(",", fields));
         }
 
-        return webClient.get()
+        String variant = relations + "|" + fields;
+        return metadataCache.get(AlfrescoMetadataCache.SITES, siteId, variant, () -> webClient.get()
             .uri(uriBuilder.toUriString())
-            .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString((alfrescoUser + ":" + alfrescoPass).getBytes()))
             .retrieve()
             .onStatus(HttpStatus::isError, response -> Mono.error(new RuntimeException("Failed to get site information")))
-            .bodyToMono(SiteResponse.class);
+            .bodyToMono(SiteResponse.class));
     }}
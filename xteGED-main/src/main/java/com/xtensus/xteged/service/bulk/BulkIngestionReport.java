@@ -0,0 +1,111 @@
+package com.xtensus.xteged.service.bulk;
+
+import java.util.List;
+
+/**
+ * Bilan d'un lot : résultat par document et débit observé.
+ */
+public class BulkIngestionReport {
+
+    private String path;
+    private int total;
+    private int created;
+    private int failed;
+    private long bytes;
+    private long elapsedMs;
+    private double documentsPerSecond;
+    private double megabytesPerSecond;
+    private List<BulkItemResult> items;
+
+    public static BulkIngestionReport of(String path, List<BulkItemResult> items, long elapsedMs) {
+        BulkIngestionReport report = new BulkIngestionReport();
+        report.path = path;
+        report.items = items;
+        report.total = items.size();
+        report.elapsedMs = elapsedMs;
+        for (BulkItemResult item : items) {
+            if (item.getStatus() == BulkItemResult.Status.CREATED) {
+                report.created++;
+                report.bytes += item.getSize();
+            } else {
+                report.failed++;
+            }
+        }
+        double seconds = Math.max(elapsedMs, 1) / 1000d;
+        report.documentsPerSecond = report.created / seconds;
+        report.megabytesPerSecond = report.bytes / (1024d * 1024d) / seconds;
+        return report;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
+    public double getMegabytesPerSecond() {
+        return megabytesPerSecond;
+    }
+
+    public void setMegabytesPerSecond(double megabytesPerSecond) {
+        this.megabytesPerSecond = megabytesPerSecond;
+    }
+
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResult> items) {
+        this.items = items;
+    }
+}
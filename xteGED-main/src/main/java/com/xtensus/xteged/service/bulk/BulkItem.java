@@ -0,0 +1,67 @@
+package com.xtensus.xteged.service.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Document à ingérer : nom, sous-dossier relatif au dossier cible du lot et accès différé au contenu.
+ */
+public class BulkItem {
+
+    /**
+     * Ouvre le contenu au moment de l'envoi vers Alfresco.
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    private final String name;
+    private final String relativePath;
+    private final String contentType;
+    private final long size;
+    private final ContentSource content;
+    private final Runnable release;
+
+    public BulkItem(String name, String relativePath, String contentType, long size, ContentSource content) {
+        this(name, relativePath, contentType, size, content, null);
+    }
+
+    /**
+     * @param release libère le contenu (fichier temporaire...) une fois le document traité ou abandonné.
+     */
+    public BulkItem(String name, String relativePath, String contentType, long size, ContentSource content, Runnable release) {
+        this.name = name;
+        this.relativePath = relativePath;
+        this.contentType = contentType;
+        this.size = size;
+        this.content = content;
+        this.release = release;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public ContentSource getContent() {
+        return content;
+    }
+
+    public void release() {
+        if (release != null) {
+            release.run();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.xtensus.xteged.service.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED,
+        FAILED,
+    }
+
+    private String name;
+    private String path;
+    private Status status;
+    private String documentId;
+    private long size;
+    private long durationMs;
+    private String error;
+
+    public static BulkItemResult created(String name, String path, String documentId, long size, long durationMs) {
+        BulkItemResult result = new BulkItemResult();
+        result.name = name;
+        result.path = path;
+        result.status = Status.CREATED;
+        result.documentId = documentId;
+        result.size = size;
+        result.durationMs = durationMs;
+        return result;
+    }
+
+    public static BulkItemResult failed(String name, String path, String error, long durationMs) {
+        BulkItemResult result = new BulkItemResult();
+        result.name = name;
+        result.path = path;
+        result.status = Status.FAILED;
+        result.error = error;
+        result.durationMs = durationMs;
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -4,18 +4,20 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xtensus.xteged.service.CmisIdQuery;
+import com.xtensus.xteged.service.CmisOperationContexts;
 import com.xtensus.xteged.service.CmisService;
+import com.xtensus.xteged.service.CmisSessionProvider;
 import com.xtensus.xteged.service.DocumentDetails;
+import com.xtensus.xteged.service.DocumentNameService;
+import com.xtensus.xteged.service.FolderPathResolver;
 import org.apache.chemistry.opencmis.client.api.*;
-import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
-import org.apache.chemistry.opencmis.commons.enums.BindingType;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
@@ -24,13 +26,13 @@ import org.springframework.http.ResponseEntity;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import javax.annotation.PostConstruct;
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
 import java.nio.file.attribute.AclEntry;
 import java.util.*;
 @Service
@@ -40,18 +42,13 @@ public class CmisServiceImpl implements CmisService {
 
     private final Logger log = LoggerFactory.getLogger(CmisServiceImpl.class);
 
-    // Set values from "application.properties" file
-    @Value("${alfresco.repository.url}")
-    String alfrescoUrl;
-
-    @Value("${alfresco.repository.user}")
-    String alfrescoUser;
-
-    @Value("${alfresco.repository.pass}")
-    String alfrescoPass;
     private final ObjectMapper objectMapper;
-    // CMIS living session
-    private Session session;
+    // Sessions CMIS partagées
+    private final CmisSessionProvider sessionProvider;
+    // Cache chemin -> dossier
+    private final FolderPathResolver folderPathResolver;
+    // Cache id -> nom de document
+    private final DocumentNameService documentNameService;
     private static HashMap<String, String> mimeTypeMapping;
 
     static {
@@ -68,33 +65,22 @@ public class CmisServiceImpl implements CmisService {
         mimeTypeMapping.put("csv", "application/csv");
     }
 
-    public CmisServiceImpl(ObjectMapper objectMapper) {
+    public CmisServiceImpl(
+        ObjectMapper objectMapper,
+        CmisSessionProvider sessionProvider,
+        FolderPathResolver folderPathResolver,
+        DocumentNameService documentNameService
+    ) {
         this.objectMapper = objectMapper;
+        this.sessionProvider = sessionProvider;
+        this.folderPathResolver = folderPathResolver;
+        this.documentNameService = documentNameService;
     }
 
     public String getMimeType(String ext) {
         return mimeTypeMapping.get(ext.toLowerCase());
     }
 
-    @PostConstruct
-    public void init() {
-        try {
-            String alfrescoBrowserUrl = alfrescoUrl;
-            Map<String, String> parameter = new HashMap<String, String>();
-            parameter.put(SessionParameter.USER, alfrescoUser);
-            parameter.put(SessionParameter.PASSWORD, alfrescoPass);
-            parameter.put(SessionParameter.ATOMPUB_URL, alfrescoBrowserUrl);
-            parameter.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
-            for (Map.Entry mapentry : parameter.entrySet()) {
-                System.out.println("clé: " + mapentry.getKey() + " | valeur: " + mapentry.getValue());
-            }
-            SessionFactory factory = SessionFactoryImpl.newInstance();
-            session = factory.getRepositories(parameter).get(0).createSession();
-            Folder root = session.getRootFolder();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
     @Override
     public CmisObject getObject(Session session, Folder parentFolder, String objectName) {
         CmisObject object = null;
@@ -115,7 +101,7 @@ public class CmisServiceImpl implements CmisService {
     @Override
     public Folder createSite(String siteId) {
         try {
-            Folder rootFolder = session.getRootFolder();
+            Folder rootFolder = sessionProvider.getSession().getRootFolder();
 
             Map<String, String> properties = new HashMap<>();
             properties.put(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_FOLDER.value());
@@ -132,22 +118,28 @@ public class CmisServiceImpl implements CmisService {
 
     @Override
     public Folder createFolder(String pathName) {
-        String[] pathSegments = pathName.split("/");
-        Folder parentFolder = session.getRootFolder();
-
-        for (String segment : pathSegments) {
-            if (!segment.isEmpty()) {
-                try {
-                    parentFolder = (Folder) session.getObjectByPath(parentFolder.getPath() + "/" + segment);
-                } catch (CmisObjectNotFoundException e) {
-                    Map<String, String> folderProps = new HashMap<>();
-                    folderProps.put(PropertyIds.OBJECT_TYPE_ID, "cmis:folder");
-                    folderProps.put(PropertyIds.NAME, segment);
-                    parentFolder = parentFolder.createFolder(folderProps);
-                }
-            }
+        // Seuls les segments absents du cache et d'Alfresco sont créés
+        return folderPathResolver.findOrCreate(pathName);
+    }
+
+    @Override
+    public Set<String> getDocumentNamesStartingWith(Folder folder, String prefix) {
+        Session session = sessionProvider.getSession();
+        QueryStatement query = session.createQueryStatement("SELECT cmis:name FROM cmis:document WHERE IN_FOLDER(?) AND cmis:name LIKE ?");
+        query.setString(1, folder.getId());
+        // % et _ du préfixe sont pris littéralement
+        query.setStringLike(2, prefix.replace("%", "\\%").replace("_", "\\_") + "%");
+
+        OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.NAME);
+        context.setIncludeAllowableActions(false);
+        context.setMaxItemsPerPage(1000);
+
+        Set<String> names = new HashSet<>();
+        for (QueryResult result : session.query(query.toQueryString(), false, context)) {
+            names.add(result.getPropertyValueById(PropertyIds.NAME));
         }
-        return parentFolder;
+        return names;
     }
 
     @Override
@@ -158,33 +150,33 @@ public class CmisServiceImpl implements CmisService {
 
     @Override
     public Document createDocument(Folder folder, String name, String mimeType, byte[] content) {
+        return createDocument(folder, name, mimeType, new ByteArrayInputStream(content), content.length);
+    }
+
+    @Override
+    public Document createDocument(Folder folder, String name, String mimeType, InputStream content, long length) {
         Map<String, String> props = new HashMap<>();
         props.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
         props.put(PropertyIds.NAME, name);
-        ContentStream contentStream = session.getObjectFactory().createContentStream(name, content.length, mimeType, new ByteArrayInputStream(content));
+        // Le flux est lu au fil de l'envoi par OpenCMIS, aucune copie intermédiaire en mémoire
+        ContentStream contentStream = sessionProvider.getSession().getObjectFactory().createContentStream(name, length, mimeType, content);
         return folder.createDocument(props, contentStream, VersioningState.MAJOR);
     }
 
     @Override
     public Folder GetFolderByPath(String pathName) {
-        try {
-            return (Folder) session.getObjectByPath(pathName);
-        } catch (CmisObjectNotFoundException e) {
-            // Log the error or handle it as per your application's requirements
-            e.printStackTrace(); // Logging the stack trace for debugging
-            return null; // Or throw a custom exception, depending on your error handling strategy
-        }
+        return getFolderByPath(pathName);
     }
 
     @Override
     public Folder getRootFolder() {
-        return session.getRootFolder();
+        return sessionProvider.getSession().getRootFolder();
     }
 
     @Override
     public Document DownloadDocument(Integer idModel, String idDocument, String model, String extension) {
         try {
-            CmisObject doc = session.getObject("workspace://SpacesStore/" + idDocument);
+            CmisObject doc = sessionProvider.getSession().getObject("workspace://SpacesStore/" + idDocument, CmisOperationContexts.DOWNLOAD);
             if (doc instanceof Document) {
                 return (Document) doc;
             } else {
@@ -205,30 +197,18 @@ public class CmisServiceImpl implements CmisService {
 
     @Override
     public String getDocumentName(String idDocument) {
-        Document document = DownloadDocument(null, idDocument, null, null);
-        if (document != null) {
-            String documentNameWithExtension = document.getName();
-            int lastDotIndex = documentNameWithExtension.lastIndexOf('.');
-
-            // Vérifiez que lastDotIndex est valide
-            if (lastDotIndex != -1) {
-                return documentNameWithExtension.substring(0, lastDotIndex);
-            } else {
-                // Si le document n'a pas d'extension, retournez le nom tel quel
-                return documentNameWithExtension;
-            }
-        }
-        return null;
+        return documentNameService.getName(idDocument);
     }
 
     @Override
-    public DocumentDetails getDocumentDetails(String alfrescoId) {
-        if (session == null) {
-            return null; // Gérer correctement le cas où la session est nulle
-        }
+    public Map<String, String> getDocumentNames(Collection<String> idDocuments) {
+        return documentNameService.getNames(idDocuments);
+    }
 
+    @Override
+    public DocumentDetails getDocumentDetails(String alfrescoId) {
         try {
-            CmisObject object = session.getObject(alfrescoId);
+            CmisObject object = sessionProvider.getSession().getObject(alfrescoId, CmisOperationContexts.DETAILS);
             if (object instanceof Document) {
                 Document document = (Document) object;
                 DocumentDetails details = new DocumentDetails();
@@ -258,18 +238,37 @@ public class CmisServiceImpl implements CmisService {
 
 
     @Override
-    public Folder getFolderByPath(String pathName) {
-        try {
-            return (Folder) session.getObjectByPath(pathName);
-        } catch (CmisObjectNotFoundException e) {
-            log.error("Folder not found: {}", pathName, e);
-            return null;
-        }
-
-
-
+    public Map<String, DocumentDetails> getDocumentDetails(Collection<String> alfrescoIds) {
+        return CmisIdQuery.find(
+            sessionProvider.getSession(),
+            alfrescoIds,
+            CmisOperationContexts.DETAILS_PROPERTIES,
+            CmisOperationContexts.DETAILS,
+            CmisServiceImpl::documentDetails,
+            this::getDocumentDetails
+        );
+    }
 
+    private static DocumentDetails documentDetails(QueryResult result) {
+        DocumentDetails details = new DocumentDetails();
+        details.setName(result.getPropertyValueById(PropertyIds.NAME));
+        details.setAuthor(result.getPropertyValueById(PropertyIds.CREATED_BY));
+        GregorianCalendar creationDate = result.getPropertyValueById(PropertyIds.CREATION_DATE);
+        details.setCreationDate(creationDate != null ? creationDate.getTime() : null);
+        BigInteger size = result.getPropertyValueById(PropertyIds.CONTENT_STREAM_LENGTH);
+        details.setSize(size != null ? size.longValue() : -1);
+        GregorianCalendar modifiedAt = result.getPropertyValueById(PropertyIds.LAST_MODIFICATION_DATE);
+        details.setModifiedAt(modifiedAt != null ? modifiedAt.getTime() : null);
+        return details;
+    }
 
+    @Override
+    public Folder getFolderByPath(String pathName) {
+        Folder folder = folderPathResolver.find(pathName);
+        if (folder == null) {
+            log.debug("Folder not found: {}", pathName);
+        }
+        return folder;
     }
 
 /*
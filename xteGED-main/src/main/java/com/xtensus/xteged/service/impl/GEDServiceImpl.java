@@ -8,6 +8,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 @Service
 public class GEDServiceImpl implements GEDService {
 
@@ -18,9 +21,14 @@ public class GEDServiceImpl implements GEDService {
 
     @Override
     public String saveDocumentToAlfrescoInPath(byte[] files, String pathName, String fileName, String extension) {
+        return saveDocumentToAlfrescoInPath(new ByteArrayInputStream(files), files.length, pathName, fileName, extension);
+    }
+
+    @Override
+    public String saveDocumentToAlfrescoInPath(InputStream content, long length, String pathName, String fileName, String extension) {
         Folder folder = cmisService.GetFolderByPath(pathName);
         // create document
-        org.apache.chemistry.opencmis.client.api.Document docum = cmisService.createDocument(folder, fileName, extension, files);
+        org.apache.chemistry.opencmis.client.api.Document docum = cmisService.createDocument(folder, fileName, extension, content, length);
         String idAlfresco = docum.getId();
         String alfrescoId = idAlfresco.substring(24, idAlfresco.length());
         return alfrescoId;
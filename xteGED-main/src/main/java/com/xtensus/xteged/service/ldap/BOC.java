@@ -28,7 +28,99 @@ public class BOC implements java.io.Serializable {
 
         private Unit associatedDirection;
 
-    }
+        public int getIdBOC() {
+            return idBOC;
+        }
+
+        public void setIdBOC(int idBOC) {
+            this.idBOC = idBOC;
+        }
+
+        public String getNameBOC() {
+            return nameBOC;
+        }
+
+        public void setNameBOC(String nameBOC) {
+            this.nameBOC = nameBOC;
+        }
+
+        public String getShortNameBOC() {
+            return shortNameBOC;
+        }
+
+        public void setShortNameBOC(String shortNameBOC) {
+            this.shortNameBOC = shortNameBOC;
+        }
+
+        public List<BOC> getListChildBOCsBOC() {
+            return listChildBOCsBOC;
+        }
+
+        public void setListChildBOCsBOC(List<BOC> listChildBOCsBOC) {
+            this.listChildBOCsBOC = listChildBOCsBOC;
+        }
+
+        public List<BOC> getListAdjoiningBOCsBOC() {
+            return listAdjoiningBOCsBOC;
+        }
+
+        public void setListAdjoiningBOCsBOC(List<BOC> listAdjoiningBOCsBOC) {
+            this.listAdjoiningBOCsBOC = listAdjoiningBOCsBOC;
+        }
+
+        public List<Unit> getListDirectionsChildBOC() {
+            return listDirectionsChildBOC;
+        }
 
+        public void setListDirectionsChildBOC(List<Unit> listDirectionsChildBOC) {
+            this.listDirectionsChildBOC = listDirectionsChildBOC;
+        }
 
+        public List<Person> getMembersBOC() {
+            return membersBOC;
+        }
 
+        public void setMembersBOC(List<Person> membersBOC) {
+            this.membersBOC = membersBOC;
+        }
+
+        public List<Person> getResponsiblBOC() {
+            return responsiblBOC;
+        }
+
+        public void setResponsiblBOC(List<Person> responsiblBOC) {
+            this.responsiblBOC = responsiblBOC;
+        }
+
+        public String getTypeBOC() {
+            return typeBOC;
+        }
+
+        public void setTypeBOC(String typeBOC) {
+            this.typeBOC = typeBOC;
+        }
+
+        public String getDescriptionBOC() {
+            return descriptionBOC;
+        }
+
+        public void setDescriptionBOC(String descriptionBOC) {
+            this.descriptionBOC = descriptionBOC;
+        }
+
+        public String getRowKeyBOC() {
+            return rowKeyBOC;
+        }
+
+        public void setRowKeyBOC(String rowKeyBOC) {
+            this.rowKeyBOC = rowKeyBOC;
+        }
+
+        public Unit getAssociatedDirection() {
+            return associatedDirection;
+        }
+
+        public void setAssociatedDirection(Unit associatedDirection) {
+            this.associatedDirection = associatedDirection;
+        }
+    }
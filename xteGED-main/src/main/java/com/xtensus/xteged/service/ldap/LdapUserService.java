@@ -1,134 +1,365 @@
 package com.xtensus.xteged.service.ldap;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import javax.naming.Binding;
+import javax.annotation.PreDestroy;
+import javax.naming.Context;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
-import javax.naming.directory.DirContext;
-import javax.naming.directory.InitialDirContext;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import javax.naming.ldap.SortControl;
+import javax.naming.ldap.SortKey;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
-/*
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Annuaire LDAP des utilisateurs.
+ * <p>
+ * Une page d'utilisateurs est lue par une seule recherche qui ne ramène que les attributs utiles, paginée
+ * ({@link PagedResultsControl}) et triée ({@link SortControl}) par le serveur. Les connexions sont réutilisées
+ * grâce au pool du fournisseur JNDI : chaque appel ouvre un contexte et le referme, ce qui rend la connexion au pool.
+ * <p>
+ * Le cookie de pagination n'est valable que sur la connexion qui l'a reçu : après une page qui en a d'autres à
+ * suivre, le contexte est gardé ouvert avec son cookie ({@code alfresco.ldap.directory.cursor.*}) et la page
+ * suivante des mêmes filtre, tri et taille est lue en un seul aller-retour. Sans curseur (accès direct à une page,
+ * curseur expiré ou refusé), les pages précédentes sont sautées.
+ */
 @Service
 public class LdapUserService {
 
-    private DirContext dirContext; // Injectez ou initialisez le DirContext ici
+    private static final String[] ATTRIBUTES = { "uid", "cn", "sn", "givenName", "mail", "employeeNumber", "businessCategory", "roomNumber", "st" };
+
+    // Champs de tri acceptés (nom dans l'API -> attribut LDAP)
+    private static final Map<String, String> SORT_ATTRIBUTES = new HashMap<>();
+
+    static {
+        SORT_ATTRIBUTES.put("id", "uid");
+        SORT_ATTRIBUTES.put("nom", "sn");
+        SORT_ATTRIBUTES.put("lastname", "sn");
+        SORT_ATTRIBUTES.put("prenom", "givenName");
+        SORT_ATTRIBUTES.put("firstname", "givenName");
+        SORT_ATTRIBUTES.put("shortname", "employeeNumber");
+        SORT_ATTRIBUTES.put("email", "mail");
+        SORT_ATTRIBUTES.put("nomarabe", "businessCategory");
+    }
+
+    private final Logger log = LoggerFactory.getLogger(LdapUserService.class);
+
+    @Value("${alfresco.ldap.synchronization.active:true}")
+    private boolean active;
+
+    @Value("${alfresco.ldap.synchronization.java.naming.security.provider.url:ldap://localhost:389}")
+    private String url;
+
+    @Value("${alfresco.ldap.synchronization.java.naming.security.principal:}")
+    private String principal;
+
+    @Value("${alfresco.ldap.synchronization.java.naming.security.credentials:}")
+    private String credentials;
+
+    @Value("${alfresco.ldap.synchronization.userSearchBase:ou=users,dc=xtensus,dc=com}")
+    private String userSearchBase;
+
+    @Value("${alfresco.ldap.synchronization.userQuery:(objectclass=inetOrgPerson)}")
+    private String userQuery;
+
+    @Value("${alfresco.ldap.directory.context-factory:com.sun.jndi.ldap.LdapCtxFactory}")
+    private String contextFactory;
+
+    @Value("${alfresco.ldap.directory.connect-timeout-ms:5000}")
+    private long connectTimeout;
+
+    @Value("${alfresco.ldap.directory.read-timeout-ms:30000}")
+    private long readTimeout;
+
+    @Value("${alfresco.ldap.directory.pool.max-size:20}")
+    private int poolMaxSize;
+
+    @Value("${alfresco.ldap.directory.pool.pref-size:2}")
+    private int poolPrefSize;
+
+    @Value("${alfresco.ldap.directory.pool.timeout-ms:300000}")
+    private long poolTimeout;
+
+    // Contextes gardés ouverts pour la page suivante ; chacun occupe une connexion du pool
+    @Value("${alfresco.ldap.directory.cursor.max-size:8}")
+    private long cursorMaxSize;
+
+    @Value("${alfresco.ldap.directory.cursor.ttl-ms:60000}")
+    private long cursorTtl;
+
+    // (filtre, tri, taille, page) -> contexte et cookie de la page
+    private Cache<String, Cursor> cursors;
+
     @PostConstruct
     public void init() {
-        try {
-            Hashtable<String, String> env = new Hashtable<>();
-            env.put(DirContext.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
-            env.put(DirContext.PROVIDER_URL, "ldap://localhost:389"); // Mettez votre URL LDAP
-            // Ajoutez d'autres paramètres d'authentification si nécessaire
-
-            dirContext = new InitialDirContext(env);
-        } catch (NamingException e) {
-            throw new RuntimeException("Erreur lors de l'initialisation du contexte LDAP", e);
+        // Lues une seule fois par le JDK, à la première connexion mise en pool
+        setIfAbsent("com.sun.jndi.ldap.connect.pool.maxsize", String.valueOf(poolMaxSize));
+        setIfAbsent("com.sun.jndi.ldap.connect.pool.prefsize", String.valueOf(poolPrefSize));
+        setIfAbsent("com.sun.jndi.ldap.connect.pool.timeout", String.valueOf(poolTimeout));
+        cursors =
+            Caffeine
+                .newBuilder()
+                .maximumSize(cursorMaxSize)
+                .expireAfterWrite(Duration.ofMillis(cursorTtl))
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String key, Cursor cursor, RemovalCause cause) -> {
+                    // Un curseur repris par une requête (EXPLICIT) est fermé par celle-ci
+                    if (cursor != null && cause != RemovalCause.EXPLICIT) {
+                        close(cursor.context);
+                    }
+                })
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (cursors != null) {
+            cursors.invalidateAll();
         }
     }
-    public List<Person> getAllUsers(int page, int size, String sort, String searchQuery) {
-        List<Person> result = new ArrayList<>();
-        try {
-            int startIndex = page * size;
-            NamingEnumeration<Binding> e = dirContext.listBindings("CONTEXT_USER");
 
-            while (e.hasMore()) {
-                Binding b = e.next();
-                String name = b.getNameInNamespace();
+    /**
+     * Page {@code page} (à partir de 0) de {@code size} utilisateurs, triée selon {@code sort} ({@code nom},
+     * {@code prenom}, {@code id}, {@code shortName}, {@code email} ou {@code nomArabe}, suivi de {@code ,asc} /
+     * {@code ,desc}) et filtrée par {@code searchQuery} (sous-chaîne de l'identifiant, du nom, du prénom, du
+     * matricule ou du nom arabe).
+     */
+    public List<Person> getAllUsers(int page, int size, String sort, String searchQuery) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("page >= 0 et size > 0 attendus");
+        }
+        if (!active) {
+            return Collections.emptyList();
+        }
+        SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        searchControls.setReturningAttributes(ATTRIBUTES);
+        boolean filtered = searchQuery != null && !searchQuery.isBlank();
+        String filter = filtered
+            ? "(&" + userQuery + "(|(uid=*{0}*)(sn=*{0}*)(givenName=*{0}*)(employeeNumber=*{0}*)(businessCategory=*{0}*)))"
+            : userQuery;
+        Object[] filterArgs = filtered ? new Object[] { searchQuery.trim() } : new Object[0];
 
-                if (startIndex > 0) {
-                    startIndex--;
-                    continue;
+        String cursorKey = String.join("\u0000", filter, filtered ? searchQuery.trim() : "", sort == null ? "" : sort, String.valueOf(size)) + "\u0000";
+        try {
+            Control sortControl = sortControl(sort);
+            Cursor cursor = page > 0 ? cursors.asMap().remove(cursorKey + page) : null;
+            if (cursor != null) {
+                try {
+                    return readPage(cursor.context, cursor.cookie, sortControl, size, filter, filterArgs, searchControls, cursorKey + (page + 1));
+                } catch (NamingException e) {
+                    // Connexion fermée ou cookie refusé par le serveur : relecture depuis le début
+                    log.debug("Curseur LDAP inutilisable, pages précédentes sautées : {}", e.getMessage());
                 }
+            }
 
-                if (result.size() >= size) {
-                    break;
+            LdapContext context = new InitialLdapContext(environment(), null);
+            byte[] cookie = null;
+            int skip = page * size;
+            if (skip > 0) {
+                int skipped = 0;
+                try {
+                    // Les pages précédentes sont sautées en une page de leur taille cumulée (la taille peut changer
+                    // d'une requête paginée à l'autre) ; le serveur peut la plafonner (MaxPageSize d'AD, size.pr
+                    // d'OpenLDAP) : on poursuit avec le cookie jusqu'à avoir sauté toutes les entrées
+                    int read;
+                    do {
+                        context.setRequestControls(controls(new PagedResultsControl(skip - skipped, cookie, Control.CRITICAL), sortControl));
+                        NamingEnumeration<SearchResult> results = context.search(userSearchBase, filter, filterArgs, searchControls);
+                        read = 0;
+                        while (results.hasMore()) {
+                            results.next();
+                            read++;
+                        }
+                        skipped += read;
+                        cookie = cookie(context);
+                    } while (cookie != null && read > 0 && skipped < skip);
+                } catch (NamingException | RuntimeException e) {
+                    close(context);
+                    throw e;
                 }
-
-                Person person = buildPersonFromLdapEntry(name);
-                if (matchesSearchQuery(person, searchQuery)) {
-                    result.add(person);
+                if (cookie == null || skipped < skip) {
+                    close(context);
+                    return Collections.emptyList();
                 }
             }
-        } catch (NamingException e) {
+            return readPage(context, cookie, sortControl, size, filter, filterArgs, searchControls, cursorKey + (page + 1));
+        } catch (NamingException | IOException e) {
             throw new RuntimeException("Erreur lors de la récupération des utilisateurs LDAP", e);
         }
-        return result;
     }
 
-    private Person buildPersonFromLdapEntry(String name) {
-        Person person = new Person();
-        person.setCn(getLdapEntryAttribute("cn", name));
-        person.setId(Integer.parseInt(getLdapEntryAttribute("uid", name)));
-        person.setNom(getLdapEntryAttribute("sn", name));
-        person.setPrenom(getLdapEntryAttribute("givenName", name));
-        person.setShortName(getLdapEntryAttribute("employeeNumber", name));
-        person.setNomArabe(getLdapEntryAttribute("businessCategory", name));
-
-        if (getLdapEntryAttribute("roomNumber", name) != null && !getLdapEntryAttribute("roomNumber", name).isEmpty()) {
-            person.setUserActive(getLdapEntryAttribute("roomNumber", name));
-        } else {
-            person.setUserActive("0");
+    /**
+     * Lit une page sur {@code context} ; s'il reste des pages, le contexte est gardé sous {@code nextKey}, sinon
+     * il est fermé.
+     */
+    private List<Person> readPage(
+        LdapContext context,
+        byte[] cookie,
+        Control sortControl,
+        int size,
+        String filter,
+        Object[] filterArgs,
+        SearchControls searchControls,
+        String nextKey
+    ) throws NamingException, IOException {
+        boolean kept = false;
+        try {
+            List<Person> people = new ArrayList<>(size);
+            byte[] next = cookie;
+            int read;
+            // Page plafonnée par le serveur : complétée avec le cookie, pour que la page suivante reparte au bon endroit
+            do {
+                context.setRequestControls(controls(new PagedResultsControl(size - people.size(), next, Control.CRITICAL), sortControl));
+                NamingEnumeration<SearchResult> results = context.search(userSearchBase, filter, filterArgs, searchControls);
+                read = 0;
+                while (results.hasMore()) {
+                    people.add(person(results.next().getAttributes()));
+                    read++;
+                }
+                next = cookie(context);
+            } while (next != null && read > 0 && people.size() < size);
+            if (next != null && people.size() >= size) {
+                cursors.put(nextKey, new Cursor(context, next));
+                kept = true;
+            }
+            return people;
+        } finally {
+            if (!kept) {
+                close(context);
+            }
         }
+    }
 
-        if (getLdapEntryAttribute("st", name) != null && !getLdapEntryAttribute("st", name).isEmpty()) {
-            person.setOtp(getLdapEntryAttribute("st", name));
-        } else {
-            person.setOtp("0");
+    private Hashtable<String, Object> environment() {
+        Hashtable<String, Object> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, contextFactory);
+        env.put(Context.PROVIDER_URL, url);
+        if (!principal.isEmpty()) {
+            env.put(Context.SECURITY_AUTHENTICATION, "simple");
+            env.put(Context.SECURITY_PRINCIPAL, principal);
+            env.put(Context.SECURITY_CREDENTIALS, credentials);
         }
+        env.put("com.sun.jndi.ldap.connect.pool", "true");
+        env.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(connectTimeout));
+        env.put("com.sun.jndi.ldap.read.timeout", String.valueOf(readTimeout));
+        return env;
+    }
 
-
-
-        return person;
+    /**
+     * Tri côté serveur, non critique : un serveur qui ne sait pas trier renvoie la page dans son ordre naturel.
+     */
+    private static Control sortControl(String sort) throws IOException {
+        if (sort == null || sort.isBlank()) {
+            return null;
+        }
+        String[] parts = sort.split(",");
+        String attribute = SORT_ATTRIBUTES.get(parts[0].trim().toLowerCase(Locale.ROOT));
+        if (attribute == null) {
+            throw new IllegalArgumentException("Tri non supporté : " + sort);
+        }
+        boolean ascending = parts.length < 2 || !"desc".equalsIgnoreCase(parts[1].trim());
+        return new SortControl(new SortKey[] { new SortKey(attribute, ascending, null) }, Control.NONCRITICAL);
     }
 
+    private static Control[] controls(Control pagedControl, Control sortControl) {
+        return sortControl == null ? new Control[] { pagedControl } : new Control[] { pagedControl, sortControl };
+    }
 
-    public String getLdapEntryAttribute(String attribute, String path) {
-        String result = "";
+    private static byte[] cookie(LdapContext context) throws NamingException {
+        Control[] responseControls = context.getResponseControls();
+        if (responseControls != null) {
+            for (Control control : responseControls) {
+                if (control instanceof PagedResultsResponseControl) {
+                    byte[] cookie = ((PagedResultsResponseControl) control).getCookie();
+                    return cookie == null || cookie.length == 0 ? null : cookie;
+                }
+            }
+        }
+        return null;
+    }
 
-        //        System.out.println("L735 path "+path );
-        //        System.out.println("L736 attribute "+attribute );
-        try {
-            //            System.out.println("L738  res "+dirContext.getAttributes(path)  );
-            //            System.out.println("L739  res "+dirContext.getAttributes(path).get(attribute) );
+    static Person person(Attributes attributes) throws NamingException {
+        Person person = new Person();
+        person.setId(value(attributes, "uid"));
+        person.setFirstName(value(attributes, "givenName"));
+        person.setLastName(value(attributes, "sn"));
+        person.setEmail(value(attributes, "mail"));
+        person.setNomArabe(value(attributes, "businessCategory"));
+        String userActive = value(attributes, "roomNumber");
+        person.setEnabled(userActive != null && !"0".equals(userActive));
+        String cn = value(attributes, "cn");
+        if (cn != null) {
+            person.setAdditionalProperty("cn", cn);
+        }
+        String shortName = value(attributes, "employeeNumber");
+        if (shortName != null) {
+            person.setAdditionalProperty("shortName", shortName);
+        }
+        String otp = value(attributes, "st");
+        person.setAdditionalProperty("otp", otp != null ? otp : "0");
+        return person;
+    }
 
-            String res = dirContext.getAttributes(path).get(attribute).get(0).toString();
+    private static String value(Attributes attributes, String name) throws NamingException {
+        Attribute attribute = attributes.get(name);
+        if (attribute == null || attribute.size() == 0) {
+            return null;
+        }
+        String value = attribute.get().toString().trim();
+        return value.isEmpty() ? null : value;
+    }
 
-            if (!res.equals(" ")) {
-                result = res;
-            } else {
-                //System.out.println("!res.equals  "+res);
+    private void close(LdapContext context) {
+        if (context != null) {
+            try {
+                context.close();
+            } catch (NamingException e) {
+                log.debug("Fermeture du contexte LDAP : {}", e.getMessage());
             }
-        } catch (NamingException e) {
-            System.out.println("Erreur lors de l'acces au serveur LDAP:" + e);
-            e.printStackTrace();
-        } catch (NullPointerException ex) {} catch (NumberFormatException ex) {
-            result = null;
         }
-        return result;
     }
 
+    private static final class Cursor {
 
+        private final LdapContext context;
 
+        private final byte[] cookie;
 
-    private boolean matchesSearchQuery(Person person, String searchQuery) {
-        if (searchQuery == null || searchQuery.isEmpty()) {
-            return true; // Si la requête de recherche est vide, toutes les personnes correspondent
+        private Cursor(LdapContext context, byte[] cookie) {
+            this.context = context;
+            this.cookie = cookie;
         }
-
-        // Vérifier si ShortName, Nom ou NomArabe contiennent la requête de recherche (ignorer la casse)
-        String query = searchQuery.toLowerCase();
-        return (
-            person.getShortName().toLowerCase().contains(query) ||
-                person.getNom().toLowerCase().contains(query) ||
-                person.getNomArabe().toLowerCase().contains(query)
-        );
-    }
     }
 
-
-*/
+    private static void setIfAbsent(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
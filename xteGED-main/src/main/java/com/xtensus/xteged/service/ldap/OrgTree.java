@@ -0,0 +1,348 @@
+package com.xtensus.xteged.service.ldap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Organigramme (unités et bureaux d'ordre) mis à plat et indexé, pour les décisions de routage et de droits.
+ * <p>
+ * Les nœuds sont rangés dans l'ordre préfixe du parcours : le sous-arbre d'un nœud est la plage
+ * {@code [pre, last]}, si bien que « X est sous Y » se vérifie en temps constant par comparaison d'intervalles,
+ * et que les membres d'un sous-arbre se lisent sur une tranche contiguë. Chaque personne renvoie à ses nœuds
+ * (index inverse), chaque nœud à son parent. L'instance est immuable : un rechargement en construit une nouvelle.
+ * <p>
+ * Les clés de nœud sont {@code unit:<idUnit>} et {@code boc:<idBOC>} ({@link #unitKey}, {@link #bocKey}).
+ */
+public final class OrgTree {
+
+    public enum Type {
+        UNIT,
+        BOC,
+    }
+
+    private static final OrgTree EMPTY = new OrgTree(new Node[0], Collections.emptyMap(), Collections.emptyMap(), 0);
+
+    private final Node[] nodes;
+
+    private final Map<String, Integer> byKey;
+
+    private final Map<String, int[]> byPerson;
+
+    private final int duplicates;
+
+    private OrgTree(Node[] nodes, Map<String, Integer> byKey, Map<String, int[]> byPerson, int duplicates) {
+        this.nodes = nodes;
+        this.byKey = byKey;
+        this.byPerson = byPerson;
+        this.duplicates = duplicates;
+    }
+
+    public static OrgTree empty() {
+        return EMPTY;
+    }
+
+    public static String unitKey(Integer idUnit) {
+        return "unit:" + idUnit;
+    }
+
+    public static String bocKey(int idBOC) {
+        return "boc:" + idBOC;
+    }
+
+    /**
+     * Met à plat l'organigramme à partir des unités racines (directions) : sous-unités et bureaux d'ordre de chaque
+     * unité, sous-bureaux de chaque bureau. Un nœud atteint une seconde fois (cycle, double rattachement) garde
+     * son premier parent.
+     */
+    public static OrgTree of(Collection<Unit> roots) {
+        List<Node> nodes = new ArrayList<>();
+        Map<String, Integer> byKey = new HashMap<>();
+        int duplicates = 0;
+
+        // Parcours préfixe itératif : les enfants sont empilés en ordre inverse pour être visités dans l'ordre
+        Deque<Pending> stack = new ArrayDeque<>();
+        List<Unit> rootList = roots == null ? Collections.emptyList() : new ArrayList<>(roots);
+        for (int i = rootList.size() - 1; i >= 0; i--) {
+            if (rootList.get(i) != null) {
+                stack.push(new Pending(rootList.get(i), -1));
+            }
+        }
+        while (!stack.isEmpty()) {
+            Pending pending = stack.pop();
+            Node node = pending.unit != null ? unitNode(pending.unit) : bocNode(pending.boc);
+            if (byKey.containsKey(node.key)) {
+                duplicates++;
+                continue;
+            }
+            node.index = nodes.size();
+            node.parent = pending.parent;
+            node.depth = pending.parent < 0 ? 0 : nodes.get(pending.parent).depth + 1;
+            nodes.add(node);
+            byKey.put(node.key, node.index);
+
+            List<Pending> children = new ArrayList<>();
+            if (pending.unit != null) {
+                forEach(pending.unit.getListUnitsChildUnit(), child -> children.add(new Pending(child, node.index)));
+                forEach(pending.unit.getListBOChildUnit(), child -> children.add(new Pending(child, node.index)));
+            } else {
+                forEach(pending.boc.getListChildBOCsBOC(), child -> children.add(new Pending(child, node.index)));
+                forEach(pending.boc.getListDirectionsChildBOC(), child -> children.add(new Pending(child, node.index)));
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+
+        Node[] ordered = nodes.toArray(new Node[0]);
+        // Fin de sous-arbre : remontée des enfants vers les parents, de la fin vers le début
+        for (Node node : ordered) {
+            node.last = node.index;
+        }
+        for (int i = ordered.length - 1; i > 0; i--) {
+            Node node = ordered[i];
+            if (node.parent >= 0 && ordered[node.parent].last < node.last) {
+                ordered[node.parent].last = node.last;
+            }
+        }
+
+        Map<String, List<Integer>> personNodes = new HashMap<>();
+        for (Node node : ordered) {
+            for (String personId : node.memberIds) {
+                personNodes.computeIfAbsent(personId, key -> new ArrayList<>()).add(node.index);
+            }
+        }
+        Map<String, int[]> byPerson = new HashMap<>(personNodes.size() * 4 / 3 + 1);
+        personNodes.forEach((personId, indexes) -> byPerson.put(personId, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        return new OrgTree(ordered, Collections.unmodifiableMap(byKey), byPerson, duplicates);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Nœuds ignorés au chargement car déjà rattachés ailleurs.
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public Optional<Node> node(String key) {
+        Integer index = byKey.get(key);
+        return index == null ? Optional.empty() : Optional.of(nodes[index]);
+    }
+
+    /**
+     * {@code descendantKey} est {@code ancestorKey} ou se trouve sous lui ; temps constant.
+     */
+    public boolean contains(String ancestorKey, String descendantKey) {
+        Integer ancestor = byKey.get(ancestorKey);
+        Integer descendant = byKey.get(descendantKey);
+        return ancestor != null && descendant != null && contains(nodes[ancestor], descendant);
+    }
+
+    /**
+     * La personne est membre (responsable, secrétaire ou agent) de {@code key} ou d'un nœud sous lui ; temps
+     * proportionnel au nombre de rattachements de la personne.
+     */
+    public boolean isMemberUnder(String personId, String key) {
+        Integer index = byKey.get(key);
+        int[] personNodes = byPerson.get(personId);
+        if (index == null || personNodes == null) {
+            return false;
+        }
+        for (int personNode : personNodes) {
+            if (contains(nodes[index], personNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parents successifs de {@code key}, du parent direct à la racine.
+     */
+    public List<Node> ancestors(String key) {
+        Integer index = byKey.get(key);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        List<Node> ancestors = new ArrayList<>(nodes[index].depth);
+        for (int parent = nodes[index].parent; parent >= 0; parent = nodes[parent].parent) {
+            ancestors.add(nodes[parent]);
+        }
+        return ancestors;
+    }
+
+    /**
+     * {@code key} et tous les nœuds sous lui, dans l'ordre du parcours.
+     */
+    public List<Node> subtree(String key) {
+        Integer index = byKey.get(key);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(nodes).subList(index, nodes[index].last + 1));
+    }
+
+    /**
+     * Identifiants des personnes rattachées à {@code key} ou à un nœud sous lui.
+     */
+    public Set<String> membersUnder(String key) {
+        Set<String> members = new LinkedHashSet<>();
+        for (Node node : subtree(key)) {
+            members.addAll(node.memberIds);
+        }
+        return members;
+    }
+
+    /**
+     * Nœuds auxquels la personne est directement rattachée.
+     */
+    public List<Node> nodesOf(String personId) {
+        int[] personNodes = byPerson.get(personId);
+        if (personNodes == null) {
+            return Collections.emptyList();
+        }
+        List<Node> result = new ArrayList<>(personNodes.length);
+        for (int index : personNodes) {
+            result.add(nodes[index]);
+        }
+        return result;
+    }
+
+    private static boolean contains(Node ancestor, int descendant) {
+        return ancestor.index <= descendant && descendant <= ancestor.last;
+    }
+
+    private static Node unitNode(Unit unit) {
+        Node node = new Node(unitKey(unit.getIdUnit()), Type.UNIT, unit.getNameUnit(), unit.getShortNameUnit());
+        node.addResponsible(unit.getResponsibleUnit());
+        node.addMember(unit.getSecretaryUnit());
+        forEach(unit.getMembersUnit(), node::addMember);
+        return node;
+    }
+
+    private static Node bocNode(BOC boc) {
+        Node node = new Node(bocKey(boc.getIdBOC()), Type.BOC, boc.getNameBOC(), boc.getShortNameBOC());
+        forEach(boc.getResponsiblBOC(), node::addResponsible);
+        forEach(boc.getMembersBOC(), node::addMember);
+        return node;
+    }
+
+    private static <T> void forEach(List<T> values, Consumer<T> action) {
+        if (values != null) {
+            for (T value : values) {
+                if (value != null) {
+                    action.accept(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Nœud de l'organigramme : unité ou bureau d'ordre, avec ses rattachements directs.
+     */
+    public static final class Node {
+
+        private final String key;
+
+        private final Type type;
+
+        private final String name;
+
+        private final String shortName;
+
+        private final Set<String> memberIds = new LinkedHashSet<>();
+
+        private final Set<String> responsibleIds = new LinkedHashSet<>();
+
+        private int index;
+
+        private int last;
+
+        private int parent;
+
+        private int depth;
+
+        private Node(String key, Type type, String name, String shortName) {
+            this.key = key;
+            this.type = type;
+            this.name = name;
+            this.shortName = shortName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getShortName() {
+            return shortName;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public Set<String> getMemberIds() {
+            return Collections.unmodifiableSet(memberIds);
+        }
+
+        public Set<String> getResponsibleIds() {
+            return Collections.unmodifiableSet(responsibleIds);
+        }
+
+        private void addMember(Person person) {
+            if (person != null && person.getId() != null) {
+                memberIds.add(person.getId());
+            }
+        }
+
+        private void addResponsible(Person person) {
+            if (person != null && person.getId() != null) {
+                responsibleIds.add(person.getId());
+                memberIds.add(person.getId());
+            }
+        }
+    }
+
+    private static final class Pending {
+
+        private final Unit unit;
+
+        private final BOC boc;
+
+        private final int parent;
+
+        private Pending(Unit unit, int parent) {
+            this.unit = unit;
+            this.boc = null;
+            this.parent = parent;
+        }
+
+        private Pending(BOC boc, int parent) {
+            this.unit = null;
+            this.boc = boc;
+            this.parent = parent;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.xtensus.xteged.service.ldap;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.xtensus.xteged.service.person.Company;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +32,13 @@ public class Person {
     private List<String> aspectNames;
     private Map<String, Object> properties;
 
+    // Nom en arabe (annuaire LDAP : businessCategory), absent des personnes Alfresco
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nomArabe;
+
+    // Champs Alfresco non modélisés (displayName, capabilities...), renvoyés tels quels
+    private final Map<String, Object> additionalProperties = new LinkedHashMap<>();
+
     public Person() {
     }
 
@@ -213,4 +224,22 @@ public class Person {
     public void setProperties(Map<String, Object> properties) {
         this.properties = properties;
     }
+
+    public String getNomArabe() {
+        return nomArabe;
+    }
+
+    public void setNomArabe(String nomArabe) {
+        this.nomArabe = nomArabe;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getAdditionalProperties() {
+        return additionalProperties;
+    }
+
+    @JsonAnySetter
+    public void setAdditionalProperty(String name, Object value) {
+        additionalProperties.put(name, value);
+    }
 }
@@ -0,0 +1,380 @@
+package com.xtensus.xteged.service.ldap;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Index en mémoire des noms de personnes (identifiant, prénom, nom, email, nom arabe), pour la recherche
+ * insensible à la casse, aux accents et aux voyelles arabes.
+ * <p>
+ * Deux structures évitent de parcourir tout l'annuaire à chaque frappe :
+ * <ul>
+ *     <li>les mots de chaque champ, triés : un préfixe est une plage trouvée par dichotomie ;</li>
+ *     <li>les trigrammes de chaque champ : une sous-chaîne d'au moins trois caractères n'est cherchée que dans
+ *     les personnes ayant tous ses trigrammes.</li>
+ * </ul>
+ * L'index est immuable : une reconstruction produit une nouvelle instance pendant que les lectures continuent
+ * sur l'ancienne, il suffit de publier la référence (champ {@code volatile}) une fois construite.
+ */
+public final class PersonNameIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int GRAM = 3;
+
+    private static final int ID = 0;
+
+    private static final int FIRST_NAME = 1;
+
+    private static final int LAST_NAME = 2;
+
+    private static final int EMAIL = 3;
+
+    private static final int ARABIC_NAME = 4;
+
+    private static final int[] NAMES = { LAST_NAME, FIRST_NAME, ARABIC_NAME };
+
+    // Personnes triées par nom, prénom puis identifiant : à pertinence égale, l'ordre de l'index
+    private final Person[] people;
+
+    private final String[][] fields;
+
+    private final String[] words;
+
+    private final int[][] wordPeople;
+
+    private final Map<String, int[]> gramPeople;
+
+    private PersonNameIndex(Person[] people, String[][] fields, String[] words, int[][] wordPeople, Map<String, int[]> gramPeople) {
+        this.people = people;
+        this.fields = fields;
+        this.words = words;
+        this.wordPeople = wordPeople;
+        this.gramPeople = gramPeople;
+    }
+
+    public static PersonNameIndex of(Collection<Person> people) {
+        List<Indexed> sorted = new ArrayList<>(people.size());
+        for (Person person : people) {
+            sorted.add(new Indexed(person));
+        }
+        sorted.sort(Comparator.comparing((Indexed indexed) -> indexed.sortKey));
+
+        Person[] persons = new Person[sorted.size()];
+        String[][] fields = new String[sorted.size()][];
+        Map<String, Postings> words = new HashMap<>();
+        Map<String, Postings> grams = new HashMap<>();
+        for (int index = 0; index < persons.length; index++) {
+            persons[index] = sorted.get(index).person;
+            fields[index] = sorted.get(index).fields;
+            for (String field : fields[index]) {
+                if (field.isEmpty()) {
+                    continue;
+                }
+                // Le champ entier (a.bensalah) et chacun de ses mots (a, bensalah)
+                words.computeIfAbsent(field, key -> new Postings()).add(index);
+                for (String word : SEPARATORS.split(field)) {
+                    if (!word.isEmpty()) {
+                        words.computeIfAbsent(word, key -> new Postings()).add(index);
+                    }
+                }
+                for (int start = 0; start + GRAM <= field.length(); start++) {
+                    grams.computeIfAbsent(field.substring(start, start + GRAM), key -> new Postings()).add(index);
+                }
+            }
+        }
+
+        String[] sortedWords = words.keySet().toArray(new String[0]);
+        Arrays.sort(sortedWords);
+        int[][] wordPeople = new int[sortedWords.length][];
+        for (int i = 0; i < sortedWords.length; i++) {
+            wordPeople[i] = words.get(sortedWords[i]).toArray();
+        }
+        Map<String, int[]> gramPeople = new HashMap<>(grams.size() * 4 / 3 + 1);
+        grams.forEach((gram, postings) -> gramPeople.put(gram, postings.toArray()));
+        return new PersonNameIndex(persons, fields, sortedWords, wordPeople, gramPeople);
+    }
+
+    public int size() {
+        return people.length;
+    }
+
+    /**
+     * Les {@code limit} personnes les plus pertinentes pour {@code query}, chaque mot de la requête devant
+     * correspondre (préfixe d'un mot, ou sous-chaîne à partir de trois caractères) ; une requête vide retient
+     * tout l'annuaire, par ordre alphabétique.
+     */
+    public Result search(String query, int limit) {
+        String[] terms = Arrays.stream(WHITESPACE.split(normalize(query))).filter(term -> !term.isEmpty()).toArray(String[]::new);
+        if (terms.length == 0) {
+            return new Result(Arrays.asList(people).subList(0, Math.min(Math.max(0, limit), people.length)), people.length);
+        }
+
+        BitSet matches = null;
+        for (String term : terms) {
+            BitSet termMatches = matches(term);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.and(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return new Result(Collections.emptyList(), 0);
+            }
+        }
+
+        // Meilleures correspondances gardées dans un tas borné : (pertinence, rang inversé) sur un long
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        int total = 0;
+        for (int index = matches.nextSetBit(0); index >= 0; index = matches.nextSetBit(index + 1)) {
+            int score = 0;
+            for (String term : terms) {
+                int termScore = score(fields[index], term);
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            if (limit <= 0) {
+                continue;
+            }
+            long key = ((long) score << 32) | (Integer.MAX_VALUE - index);
+            if (best.size() < limit) {
+                best.add(key);
+            } else if (key > best.peek()) {
+                best.poll();
+                best.add(key);
+            }
+        }
+
+        List<Person> top = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            top.add(people[Integer.MAX_VALUE - (int) (best.poll() & 0xFFFFFFFFL)]);
+        }
+        Collections.reverse(top);
+        return new Result(top, total);
+    }
+
+    private BitSet matches(String term) {
+        BitSet matches = new BitSet(people.length);
+        int from = Arrays.binarySearch(words, term);
+        for (int i = from >= 0 ? from : -from - 1; i < words.length && words[i].startsWith(term); i++) {
+            for (int index : wordPeople[i]) {
+                matches.set(index);
+            }
+        }
+        if (term.length() >= GRAM) {
+            for (int index : candidates(term)) {
+                if (!matches.get(index) && contains(fields[index], term)) {
+                    matches.set(index);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Personnes ayant tous les trigrammes de {@code term}, en partant de la liste la plus courte.
+     */
+    private int[] candidates(String term) {
+        int[][] postings = new int[term.length() - GRAM + 1][];
+        for (int start = 0; start < postings.length; start++) {
+            postings[start] = gramPeople.get(term.substring(start, start + GRAM));
+            if (postings[start] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(postings, Comparator.comparingInt(list -> list.length));
+        int[] candidates = postings[0];
+        for (int i = 1; i < postings.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, postings[i]);
+        }
+        return candidates;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean contains(String[] fields, String term) {
+        for (String field : fields) {
+            if (field.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pertinence d'un mot : identifiant exact, puis préfixe (identifiant, nom, prénom, email), puis début d'un mot
+     * du nom, puis sous-chaîne ; 0 si aucun champ ne correspond.
+     */
+    private static int score(String[] fields, String term) {
+        if (fields[ID].equals(term)) {
+            return 100;
+        }
+        if (fields[ID].startsWith(term)) {
+            return 60;
+        }
+        for (int name : NAMES) {
+            if (fields[name].startsWith(term)) {
+                return 50;
+            }
+        }
+        if (fields[EMAIL].startsWith(term)) {
+            return 40;
+        }
+        for (int name : NAMES) {
+            if (wordStartsWith(fields[name], term)) {
+                return 30;
+            }
+        }
+        return contains(fields, term) ? 10 : 0;
+    }
+
+    private static boolean wordStartsWith(String field, String term) {
+        int index = field.indexOf(term);
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                return true;
+            }
+            index = field.indexOf(term, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Forme de comparaison : minuscules, sans accents ni voyelles courtes arabes, alif / ya / ta marbuta unifiés
+     * (« أحمد » et « احمد », « Héla » et « hela » se rejoignent).
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        // La décomposition sépare aussi les hamzas et madda portés par alif, waw et ya (أ → ا + ٔ)
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            switch (c) {
+                case '\u0640': // tatweel
+                    break;
+                case '\u0671': // alif wasla
+                    normalized.append('\u0627');
+                    break;
+                case '\u0629': // ta marbuta
+                    normalized.append('\u0647');
+                    break;
+                case '\u0649': // alif maqsura
+                    normalized.append('\u064A');
+                    break;
+                default:
+                    normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Résultat d'une recherche : les meilleures personnes et le nombre total de correspondances.
+     */
+    public static final class Result {
+
+        private final List<Person> people;
+
+        private final int total;
+
+        private Result(List<Person> people, int total) {
+            this.people = people;
+            this.total = total;
+        }
+
+        public List<Person> getPeople() {
+            return people;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Indexed {
+
+        private final Person person;
+
+        private final String[] fields;
+
+        private final String sortKey;
+
+        private Indexed(Person person) {
+            this.person = person;
+            this.fields = new String[] {
+                normalize(person.getId()),
+                normalize(person.getFirstName()),
+                normalize(person.getLastName()),
+                normalize(person.getEmail()),
+                normalize(person.getNomArabe()),
+            };
+            this.sortKey = fields[LAST_NAME] + " " + fields[FIRST_NAME] + " " + fields[ID];
+        }
+    }
+
+    /**
+     * Liste croissante d'indices de personnes, construite dans l'ordre de l'index (pas de doublon consécutif).
+     */
+    private static final class Postings {
+
+        private int[] values = new int[2];
+
+        private int size;
+
+        private void add(int index) {
+            if (size > 0 && values[size - 1] == index) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = index;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
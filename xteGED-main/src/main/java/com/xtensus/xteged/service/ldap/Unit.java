@@ -31,6 +31,123 @@ public class Unit {
         private List<String> titleUnit;
         private boolean responsibleResponse;
 
-    }
+        public Integer getIdUnit() {
+            return idUnit;
+        }
+
+        public void setIdUnit(Integer idUnit) {
+            this.idUnit = idUnit;
+        }
+
+        public String getNameUnit() {
+            return nameUnit;
+        }
+
+        public void setNameUnit(String nameUnit) {
+            this.nameUnit = nameUnit;
+        }
+
+        public String getShortNameUnit() {
+            return shortNameUnit;
+        }
+
+        public void setShortNameUnit(String shortNameUnit) {
+            this.shortNameUnit = shortNameUnit;
+        }
+
+        public Person getResponsibleUnit() {
+            return responsibleUnit;
+        }
+
+        public void setResponsibleUnit(Person responsibleUnit) {
+            this.responsibleUnit = responsibleUnit;
+        }
+
+        public Person getSecretaryUnit() {
+            return secretaryUnit;
+        }
+
+        public void setSecretaryUnit(Person secretaryUnit) {
+            this.secretaryUnit = secretaryUnit;
+        }
+
+        public List<Person> getMembersUnit() {
+            return membersUnit;
+        }
+
+        public void setMembersUnit(List<Person> membersUnit) {
+            this.membersUnit = membersUnit;
+        }
+
+        public List<Unit> getListUnitsChildUnit() {
+            return listUnitsChildUnit;
+        }
+
+        public void setListUnitsChildUnit(List<Unit> listUnitsChildUnit) {
+            this.listUnitsChildUnit = listUnitsChildUnit;
+        }
+
+        public List<Unit> getListAdjoiningUnitsUnit() {
+            return listAdjoiningUnitsUnit;
+        }
 
+        public void setListAdjoiningUnitsUnit(List<Unit> listAdjoiningUnitsUnit) {
+            this.listAdjoiningUnitsUnit = listAdjoiningUnitsUnit;
+        }
 
+        public List<BOC> getListBOChildUnit() {
+            return listBOChildUnit;
+        }
+
+        public void setListBOChildUnit(List<BOC> listBOChildUnit) {
+            this.listBOChildUnit = listBOChildUnit;
+        }
+
+        public Unit getAssociatedUnit() {
+            return associatedUnit;
+        }
+
+        public void setAssociatedUnit(Unit associatedUnit) {
+            this.associatedUnit = associatedUnit;
+        }
+
+        public BOC getAssociatedBOC() {
+            return associatedBOC;
+        }
+
+        public void setAssociatedBOC(BOC associatedBOC) {
+            this.associatedBOC = associatedBOC;
+        }
+
+        public String getDescriptionUnit() {
+            return descriptionUnit;
+        }
+
+        public void setDescriptionUnit(String descriptionUnit) {
+            this.descriptionUnit = descriptionUnit;
+        }
+
+        public String getRowKeyDirection() {
+            return rowKeyDirection;
+        }
+
+        public void setRowKeyDirection(String rowKeyDirection) {
+            this.rowKeyDirection = rowKeyDirection;
+        }
+
+        public List<String> getTitleUnit() {
+            return titleUnit;
+        }
+
+        public void setTitleUnit(List<String> titleUnit) {
+            this.titleUnit = titleUnit;
+        }
+
+        public boolean isResponsibleResponse() {
+            return responsibleResponse;
+        }
+
+        public void setResponsibleResponse(boolean responsibleResponse) {
+            this.responsibleResponse = responsibleResponse;
+        }
+    }
@@ -10,20 +10,22 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
-/*
+
     private final LdapUserService ldapUserService;
 
     public UserController(LdapUserService ldapUserService) {
         this.ldapUserService = ldapUserService;
     }
 
+    /**
+     * GET /api/users?page=0&size=50&sort=nom,asc&searchQuery=ben : une page d'utilisateurs de l'annuaire LDAP.
+     */
     @GetMapping
     public List<Person> getUsers(
-        @RequestParam int page,
-        @RequestParam int size,
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "50") int size,
         @RequestParam(required = false) String sort,
         @RequestParam(required = false) String searchQuery) {
         return ldapUserService.getAllUsers(page, size, sort, searchQuery);
-    }*/
+    }
 }
-
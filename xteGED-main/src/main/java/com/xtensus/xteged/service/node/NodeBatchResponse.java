@@ -0,0 +1,45 @@
+package com.xtensus.xteged.service.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réponse d'une lecture groupée de nœuds : entrées trouvées dans l'ordre de la demande, identifiants introuvables
+ * ou en erreur à part.
+ */
+public class NodeBatchResponse<T> {
+
+    private final Map<String, T> entries;
+
+    private final List<String> missing;
+
+    private NodeBatchResponse(Map<String, T> entries, List<String> missing) {
+        this.entries = entries;
+        this.missing = missing;
+    }
+
+    public static <T> NodeBatchResponse<T> of(List<String> ids, Map<String, ? extends T> found) {
+        Map<String, T> entries = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            T entry = found.get(id);
+            if (entry != null) {
+                entries.put(id, entry);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new NodeBatchResponse<>(Collections.unmodifiableMap(entries), Collections.unmodifiableList(missing));
+    }
+
+    public Map<String, T> getEntries() {
+        return entries;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,58 @@
+package com.xtensus.xteged.service.node;
+
+/**
+ * Nœud modifié dans Alfresco par l'application (publié par {@code AlfrescoService} une fois l'appel réussi).
+ * <p>
+ * Les caches de métadonnées, la résolution des chemins de dossiers et tout index de recherche s'y abonnent pour ne
+ * pas servir de données périmées après nos propres écritures.
+ */
+public class NodeChangedEvent {
+
+    public enum Type {
+        DELETED,
+        COPIED,
+        UPDATED,
+        LOCKED,
+        UNLOCKED,
+        PERMISSIONS_CHANGED,
+        METADATA_UPDATED,
+    }
+
+    private final Type type;
+
+    private final String nodeId;
+
+    private final String targetParentId;
+
+    public NodeChangedEvent(Type type, String nodeId) {
+        this(type, nodeId, null);
+    }
+
+    public NodeChangedEvent(Type type, String nodeId, String targetParentId) {
+        this.type = type;
+        this.nodeId = nodeId;
+        this.targetParentId = targetParentId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Dossier de destination d'une copie ; nul pour les autres modifications.
+     */
+    public String getTargetParentId() {
+        return targetParentId;
+    }
+
+    /**
+     * La modification peut changer le chemin du nœud et de sa descendance (suppression, renommage, déplacement).
+     */
+    public boolean isStructural() {
+        return type == Type.DELETED || type == Type.UPDATED;
+    }
+}
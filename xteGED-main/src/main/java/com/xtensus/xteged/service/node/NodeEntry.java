@@ -0,0 +1,19 @@
+package com.xtensus.xteged.service.node;
+
+import com.xtensus.xteged.service.Node;
+import java.io.Serializable;
+
+public class NodeEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Node entry;
+
+    public Node getEntry() {
+        return entry;
+    }
+
+    public void setEntry(Node entry) {
+        this.entry = entry;
+    }
+}
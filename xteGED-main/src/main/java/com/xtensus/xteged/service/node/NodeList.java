@@ -0,0 +1,39 @@
+package com.xtensus.xteged.service.node;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.xtensus.xteged.service.Node;
+import com.xtensus.xteged.service.person.Pagination;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NodeList {
+
+    private Pagination pagination;
+    private List<NodeEntry> entries;
+    // dossier parent, avec includeSource=true
+    private Node source;
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
+    public List<NodeEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<NodeEntry> entries) {
+        this.entries = entries;
+    }
+
+    public Node getSource() {
+        return source;
+    }
+
+    public void setSource(Node source) {
+        this.source = source;
+    }
+}
@@ -0,0 +1,14 @@
+package com.xtensus.xteged.service.node;
+
+public class NodeListResponse {
+
+    private NodeList list;
+
+    public NodeList getList() {
+        return list;
+    }
+
+    public void setList(NodeList list) {
+        this.list = list;
+    }
+}
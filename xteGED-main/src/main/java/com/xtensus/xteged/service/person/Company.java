@@ -1,6 +1,10 @@
 package com.xtensus.xteged.service.person;
 
-public class Company {
+import java.io.Serializable;
+
+public class Company implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String organization;
     private String address1;
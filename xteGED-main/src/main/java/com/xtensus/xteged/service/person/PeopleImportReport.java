@@ -0,0 +1,136 @@
+package com.xtensus.xteged.service.person;
+
+import java.util.List;
+
+/**
+ * Bilan d'un import de personnes : résultat par personne et latence moyenne de chaque système.
+ */
+public class PeopleImportReport {
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private int alfrescoCreated;
+    private int keycloakCreated;
+    private long elapsedMs;
+    private double peoplePerSecond;
+    private double alfrescoAverageMs;
+    private double keycloakAverageMs;
+    private List<PeopleImportResult> items;
+
+    public static PeopleImportReport of(List<PeopleImportResult> items, long elapsedMs) {
+        PeopleImportReport report = new PeopleImportReport();
+        report.items = items;
+        report.total = items.size();
+        report.elapsedMs = elapsedMs;
+        long alfrescoMs = 0;
+        long keycloakMs = 0;
+        int alfrescoCalls = 0;
+        int keycloakCalls = 0;
+        for (PeopleImportResult item : items) {
+            if (item.isSucceeded()) {
+                report.succeeded++;
+            } else {
+                report.failed++;
+            }
+            if (item.getAlfresco() == PeopleImportResult.Status.CREATED) {
+                report.alfrescoCreated++;
+            }
+            if (item.getKeycloak() == PeopleImportResult.Status.CREATED) {
+                report.keycloakCreated++;
+            }
+            if (item.getAlfresco() != PeopleImportResult.Status.SKIPPED) {
+                alfrescoMs += item.getAlfrescoMs();
+                alfrescoCalls++;
+            }
+            if (item.getKeycloak() != PeopleImportResult.Status.SKIPPED) {
+                keycloakMs += item.getKeycloakMs();
+                keycloakCalls++;
+            }
+        }
+        report.peoplePerSecond = report.succeeded / (Math.max(elapsedMs, 1) / 1000d);
+        report.alfrescoAverageMs = alfrescoCalls == 0 ? 0 : (double) alfrescoMs / alfrescoCalls;
+        report.keycloakAverageMs = keycloakCalls == 0 ? 0 : (double) keycloakMs / keycloakCalls;
+        return report;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public int getAlfrescoCreated() {
+        return alfrescoCreated;
+    }
+
+    public void setAlfrescoCreated(int alfrescoCreated) {
+        this.alfrescoCreated = alfrescoCreated;
+    }
+
+    public int getKeycloakCreated() {
+        return keycloakCreated;
+    }
+
+    public void setKeycloakCreated(int keycloakCreated) {
+        this.keycloakCreated = keycloakCreated;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getPeoplePerSecond() {
+        return peoplePerSecond;
+    }
+
+    public void setPeoplePerSecond(double peoplePerSecond) {
+        this.peoplePerSecond = peoplePerSecond;
+    }
+
+    public double getAlfrescoAverageMs() {
+        return alfrescoAverageMs;
+    }
+
+    public void setAlfrescoAverageMs(double alfrescoAverageMs) {
+        this.alfrescoAverageMs = alfrescoAverageMs;
+    }
+
+    public double getKeycloakAverageMs() {
+        return keycloakAverageMs;
+    }
+
+    public void setKeycloakAverageMs(double keycloakAverageMs) {
+        this.keycloakAverageMs = keycloakAverageMs;
+    }
+
+    public List<PeopleImportResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PeopleImportResult> items) {
+        this.items = items;
+    }
+}
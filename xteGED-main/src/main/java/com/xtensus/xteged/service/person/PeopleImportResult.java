@@ -0,0 +1,95 @@
+package com.xtensus.xteged.service.person;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Résultat de l'import d'une personne, par système cible.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PeopleImportResult {
+
+    public enum Status {
+        CREATED,
+        // Déjà présente (409) : un nouvel import du même fichier ne crée rien
+        EXISTING,
+        FAILED,
+        SKIPPED,
+    }
+
+    private String id;
+    private String email;
+    private Status alfresco;
+    private Status keycloak;
+    private long alfrescoMs;
+    private long keycloakMs;
+    private String error;
+
+    public PeopleImportResult() {}
+
+    public PeopleImportResult(String id, String email) {
+        this.id = id;
+        this.email = email;
+        this.alfresco = Status.SKIPPED;
+        this.keycloak = Status.SKIPPED;
+    }
+
+    public boolean isSucceeded() {
+        return alfresco != Status.FAILED && keycloak != Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Status getAlfresco() {
+        return alfresco;
+    }
+
+    public void setAlfresco(Status alfresco) {
+        this.alfresco = alfresco;
+    }
+
+    public Status getKeycloak() {
+        return keycloak;
+    }
+
+    public void setKeycloak(Status keycloak) {
+        this.keycloak = keycloak;
+    }
+
+    public long getAlfrescoMs() {
+        return alfrescoMs;
+    }
+
+    public void setAlfrescoMs(long alfrescoMs) {
+        this.alfrescoMs = alfrescoMs;
+    }
+
+    public long getKeycloakMs() {
+        return keycloakMs;
+    }
+
+    public void setKeycloakMs(long keycloakMs) {
+        this.keycloakMs = keycloakMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,19 @@
+package com.xtensus.xteged.service.person;
+
+import com.xtensus.xteged.service.ldap.Person;
+
+/**
+ * Personne créée ou modifiée dans Alfresco par l'application (publié par {@code AlfrescoService}).
+ */
+public class PersonChangedEvent {
+
+    private final Person person;
+
+    public PersonChangedEvent(Person person) {
+        this.person = person;
+    }
+
+    public Person getPerson() {
+        return person;
+    }
+}
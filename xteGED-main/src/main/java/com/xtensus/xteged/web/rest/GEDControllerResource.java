@@ -1,12 +1,21 @@
 package com.xtensus.xteged.web.rest;
 
+import com.xtensus.xteged.service.AlfrescoService;
+import com.xtensus.xteged.service.AsyncCmisService;
+import com.xtensus.xteged.service.BulkIngestionService;
 import com.xtensus.xteged.service.CmisService;
 import com.xtensus.xteged.service.GEDService;
+import com.xtensus.xteged.service.bulk.BulkIngestionReport;
+import com.xtensus.xteged.service.bulk.BulkItem;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import com.xtensus.xteged.service.CmisService;
 import com.xtensus.xteged.service.DocumentDetails;
@@ -16,7 +25,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
-import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
@@ -29,6 +37,7 @@ import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -45,9 +54,19 @@ public class GEDControllerResource {
     @Autowired
     private CmisService cmisService;
 
+    // Appels CMIS bloquants hors des threads de requête
+    @Autowired
+    private AsyncCmisService asyncCmisService;
+
     @Autowired
     private GEDService gEDService;
 
+    @Autowired
+    private AlfrescoService alfrescoService;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
     private final Logger log = LoggerFactory.getLogger(GEDControllerResource.class);
 
     /**
@@ -57,19 +76,50 @@ public class GEDControllerResource {
     @PostMapping("/upload")
     public Mono<String> uploadFile(@RequestParam("pathName") String pathName,
                                    @RequestParam("fileName") String fileName,
-                                   @RequestParam("file") MultipartFile multipartFile) throws IOException {
-        byte[] fileContent = multipartFile.getBytes();
-        Folder folder = cmisService.getFolderByPath(pathName);
+                                   @RequestParam("file") MultipartFile multipartFile) {
+        return asyncCmisService
+            .call(() -> {
+                // Résolu depuis le cache de chemins, les dossiers manquants sont créés
+                Folder folder = cmisService.createFolder(pathName);
+
+                // Le fichier est transmis en flux depuis le stockage temporaire du multipart
+                try (InputStream content = multipartFile.getInputStream()) {
+                    return cmisService.createDocument(folder, fileName, multipartFile.getContentType(), content, multipartFile.getSize());
+                }
+            })
+            .map(document -> "Document uploaded: " + document.getId());
+    }
 
-        if (folder == null) {
-            // Créer le dossier si inexistant
-            folder = cmisService.createFolder(pathName);
-        }
+    /**
+     * POST bulk-upload : lot de fichiers multipart déposés dans {@code pathName}.
+     */
+    @PostMapping(value = "/bulk-upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<BulkIngestionReport> bulkUpload(@RequestParam("pathName") String pathName,
+                                                @RequestParam("files") List<MultipartFile> files,
+                                                @RequestParam(value = "autoRename", defaultValue = "true") boolean autoRename) {
+        Flux<BulkItem> items = Flux
+            .fromIterable(files)
+            .map(file -> {
+                String name = file.getOriginalFilename() == null ? file.getName() : file.getOriginalFilename();
+                // Certains navigateurs envoient le chemin complet du fichier
+                name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+                String contentType = file.getContentType() != null ? file.getContentType() : BulkIngestionService.contentType(name);
+                return new BulkItem(name, "", contentType, file.getSize(), file::getInputStream);
+            });
+        return bulkIngestionService.ingest(pathName, items, autoRename);
+    }
 
-        Document document = cmisService.createDocument(folder, fileName, multipartFile.getContentType(),
-            fileContent);
-        return Mono.just("Document uploaded: " + document.getId());
+    /**
+     * POST bulk-upload : archive zip envoyée telle quelle dans le corps de la requête (sans la limite de
+     * taille du multipart). Les répertoires de l'archive sont recréés sous {@code pathName}.
+     */
+    @PostMapping(value = "/bulk-upload", consumes = { "application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public Mono<BulkIngestionReport> bulkUploadZip(@RequestParam("pathName") String pathName,
+                                                   @RequestParam(value = "autoRename", defaultValue = "true") boolean autoRename,
+                                                   HttpServletRequest request) throws IOException {
+        return bulkIngestionService.ingest(pathName, bulkIngestionService.zipEntries(request.getInputStream()), autoRename);
     }
+
    /* @PostMapping(value = "/upload-document", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> uploadDocument(
         @RequestParam(value = "pathName", required = true) String pathName,
@@ -127,41 +177,53 @@ public class GEDControllerResource {
     }*/
 
     @GetMapping(value = "/downloadDocumentByAlfrescoId/{alfrescoId}")
-    public ResponseEntity<Object> downloadDocumentByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
-        try {
-            org.apache.chemistry.opencmis.client.api.Document document = cmisService.DownloadDocument(null, alfrescoId, null, null);
-
-            if (document == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            ContentStream content = document.getContentStream();
-            if (content == null) {
-                return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Le document n'a pas de contenu.");
-            }
-
-            String mimeType = document.getContentStreamMimeType();
-            String name = document.getName();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(mimeType));
-            headers.setContentDisposition(ContentDisposition.builder("attachment").filename(name).build());
-
-            return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(content.getLength())
-                .body(new InputStreamResource(content.getStream()));
-
-        } catch (Exception e) {
-            log.error("Erreur lors du téléchargement du document: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur inattendue");
-        }
+    public Mono<ResponseEntity<Object>> downloadDocumentByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
+        return asyncCmisService
+            .<ResponseEntity<Object>>call(() -> {
+                org.apache.chemistry.opencmis.client.api.Document document = cmisService.DownloadDocument(null, alfrescoId, null, null);
+
+                if (document == null) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                ContentStream content = document.getContentStream();
+                if (content == null) {
+                    return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Le document n'a pas de contenu.");
+                }
+
+                String mimeType = document.getContentStreamMimeType();
+                String name = document.getName();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.parseMediaType(mimeType));
+                headers.setContentDisposition(ContentDisposition.builder("attachment").filename(name).build());
+
+                // Le contenu est ensuite recopié vers le client par Spring, hors du pool CMIS
+                return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentLength(content.getLength())
+                    .body(new InputStreamResource(content.getStream()));
+            })
+            // Pool CMIS saturé : 503 par ExceptionTranslator
+            .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> {
+                log.error("Erreur lors du téléchargement du document: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur inattendue"));
+            });
     }
 
     @GetMapping(value = "/getDocumentNameByAlfrescoId/{alfrescoId}")
-    public ResponseEntity<String> getDocumentNameByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
-        String documentName = cmisService.getDocumentName(alfrescoId);
-        return ResponseEntity.ok(documentName);
+    public Mono<ResponseEntity<String>> getDocumentNameByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
+        return asyncCmisService.getDocumentName(alfrescoId).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.ok().build());
+    }
+
+    // noms de plusieurs documents en un appel (grilles) : id -> nom sans extension, les ids introuvables sont absents ;
+    // au plus alfresco.node-batch.max-ids ids (400 au-delà)
+    @PostMapping(value = "/getDocumentNamesByAlfrescoId")
+    public Mono<ResponseEntity<Object>> getDocumentNamesByAlfrescoId(@RequestBody List<String> alfrescoIds) {
+        return alfrescoService
+            .getDocumentNames(alfrescoIds)
+            .map(names -> ResponseEntity.<Object>ok(names))
+            .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())));
     }
 
 
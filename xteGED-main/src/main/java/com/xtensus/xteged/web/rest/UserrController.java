@@ -3,16 +3,24 @@ package com.xtensus.xteged.web.rest;
 
 import com.xtensus.xteged.service.AlfrescoService;
 import com.xtensus.xteged.service.KeycloakUserSyncService;
+import com.xtensus.xteged.service.PeopleImportService;
 import com.xtensus.xteged.service.PersonneRequest;
+import com.xtensus.xteged.service.person.PeopleImportReport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/ged-controller")
 public class UserrController {
@@ -22,6 +30,9 @@ public class UserrController {
     @Autowired
     private KeycloakUserSyncService keycloakUserSyncService; // Service pour synchroniser les utilisateurs avec Keycloak
 
+    @Autowired
+    private PeopleImportService peopleImportService;
+
     @PostMapping("/api/ged-controller/create-person")
     public Mono<ResponseEntity<String>> createPerson(@RequestBody PersonneRequest personRequest) {
         return alfrescoService.createPerson(personRequest) // Crée l'utilisateur dans Alfresco
@@ -37,4 +48,21 @@ public class UserrController {
             })
             .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Erreur lors de la création de la personne: " + e.getMessage())));
-    }}
+    }
+
+    /**
+     * POST people/import : import en masse de personnes (CSV avec ligne d'en-tête, tableau JSON ou NDJSON)
+     * dans Alfresco puis Keycloak ; bilan par personne.
+     */
+    @PostMapping(
+        value = "/people/import",
+        consumes = { "text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE }
+    )
+    public Mono<PeopleImportReport> importPeople(@RequestParam(value = "keycloak", defaultValue = "true") boolean keycloak,
+                                                 HttpServletRequest request) throws IOException {
+        Flux<PersonneRequest> people = request.getContentType().startsWith("text/csv")
+            ? peopleImportService.csv(request.getInputStream())
+            : peopleImportService.json(request.getInputStream());
+        return peopleImportService.importPeople(people, keycloak);
+    }
+}
@@ -2,21 +2,33 @@ package com.xtensus.xteged.web.rest.vm;
 
 import com.xtensus.xteged.service.*;
 import com.xtensus.xteged.service.ldap.Person;
+import com.xtensus.xteged.service.node.NodeEntry;
+import com.xtensus.xteged.service.node.NodeListResponse;
 import com.xtensus.xteged.service.person.PeopleListResponse;
 import com.xtensus.xteged.service.person.PersonEntry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
@@ -26,19 +38,29 @@ public class AlfrescoController {
     private final AlfrescoService alfrescoService;
     @Autowired
     private CmisService cmisService;
+    // Appels CMIS bloquants hors des threads de requête
+    @Autowired
+    private AsyncCmisService asyncCmisService;
 
+    // En-têtes de la réponse Alfresco relayés tels quels au client lors d'un téléchargement
+    private static final List<String> RELAYED_CONTENT_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.CONTENT_LENGTH,
+        HttpHeaders.CONTENT_RANGE,
+        HttpHeaders.ACCEPT_RANGES,
+        HttpHeaders.CONTENT_DISPOSITION,
+        HttpHeaders.ETAG,
+        HttpHeaders.LAST_MODIFIED
+    );
 
-    @Value("${alfresco.repository.url}")
-    private String alfrescoUrl;
-
-    @Value("${alfresco.repository.user}")
-    private String alfrescoUser;
+    private final FolderExportService folderExportService;
 
-    @Value("${alfresco.repository.pass}")
-    private String alfrescoPassword;
+    private final PeopleDirectoryService peopleDirectoryService;
 
-    public AlfrescoController(AlfrescoService alfrescoService) {
+    public AlfrescoController(AlfrescoService alfrescoService, FolderExportService folderExportService, PeopleDirectoryService peopleDirectoryService) {
         this.alfrescoService = alfrescoService;
+        this.folderExportService = folderExportService;
+        this.peopleDirectoryService = peopleDirectoryService;
     }
     @PutMapping("/uu/share")
     public Mono<String> shareDocument(
@@ -53,7 +75,7 @@ public class AlfrescoController {
         @RequestParam(required = false, defaultValue = "properties") String include) {
 
         return alfrescoService.getAllDocuments(nodeId, include)
-            .map(response -> ResponseEntity.ok(response))
+            .map(response -> ResponseEntity.<Object>ok(response))
             .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
     }
 
@@ -65,7 +87,12 @@ public class AlfrescoController {
             @RequestParam(required = false) String orderBy,
             @RequestParam(required = false) String[] include,
             @RequestParam(required = false) String[] fields) {
-            return alfrescoService.getPeopleList(skipCount, maxItems, orderBy, include, fields)
+            // Annuaire local si la requête ne demande pas de champs supplémentaires
+            Mono<PeopleListResponse> local = (include == null || include.length == 0) && (fields == null || fields.length == 0)
+                ? peopleDirectoryService.list(skipCount, maxItems, orderBy)
+                : Mono.empty();
+            return local
+                .switchIfEmpty(Mono.defer(() -> alfrescoService.getPeopleList(skipCount, maxItems, orderBy, include, fields)))
                 .map(response -> ResponseEntity.ok().body(response))
                 .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
         }
@@ -98,7 +125,7 @@ public class AlfrescoController {
             .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
     }
     @GetMapping("/oo/search")
-    public Mono<ResponseEntity<String>> searchNodes(
+    public Mono<ResponseEntity<Object>> searchNodes(
         @RequestParam String term,
         @RequestParam(required = false) String rootNodeId,
         @RequestParam(required = false) Integer skipCount,
@@ -109,12 +136,23 @@ public class AlfrescoController {
         @RequestParam(required = false) List<String> fields) {
 
         return alfrescoService.searchNodes(term, rootNodeId, skipCount, maxItems, nodeType, include, orderBy, fields)
-            .map(response -> ResponseEntity.ok().body(response))
+            .map(response -> ResponseEntity.ok().<Object>body(response))
             .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
     }
 
+    /**
+     * Tous les enfants d'un nœud en NDJSON (une entrée par ligne), lus page par page auprès d'Alfresco.
+     */
+    @GetMapping(value = "/{nodeId}/children/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<NodeEntry> streamChildren(
+        @PathVariable String nodeId,
+        @RequestParam(required = false, defaultValue = "properties") String include,
+        @RequestParam(defaultValue = "100") int pageSize) {
+        return alfrescoService.streamChildren(nodeId, include, pageSize);
+    }
+
     @GetMapping("/nodes/deleted")
-    public Mono<String> getDeletedNodes(
+    public Mono<NodeListResponse> getDeletedNodes(
         @RequestParam(required = false) Integer maxItems,
         @RequestParam(required = false) Integer skipCount,
         @RequestParam(required = false) String[] include) {
@@ -122,24 +160,28 @@ public class AlfrescoController {
     }
 
     @GetMapping("/search/people")
-    public Mono<String> searchPeople(
+    public Mono<PeopleListResponse> searchPeople(
         @RequestParam String term, // Terme de recherche pour filtrer les personnes
         @RequestParam(required = false) Integer maxItems,
         @RequestParam(required = false) Integer skipCount,
         @RequestParam(required = false) String[] orderBy) {
 
-        return alfrescoService.searchPeople(term, maxItems, skipCount, orderBy);
+        // Annuaire local (trié par pertinence) sauf tri explicite
+        Mono<PeopleListResponse> local = orderBy == null || orderBy.length == 0
+            ? peopleDirectoryService.search(term, skipCount, maxItems)
+            : Mono.empty();
+        return local.switchIfEmpty(Mono.defer(() -> alfrescoService.searchPeople(term, maxItems, skipCount, orderBy)));
     }
 
 
     @GetMapping("/yyy/{nodeId}")
-    public Mono<ResponseEntity<String>> getNode(
+    public Mono<ResponseEntity<Object>> getNode(
         @PathVariable String nodeId,
         @RequestParam(value = "include", required = false) String[] include,
         @RequestParam(value = "fields", required = false) String[] fields) {
 
         return alfrescoService.getNode(nodeId, include, fields)
-            .map(response -> ResponseEntity.ok().body(response))
+            .map(response -> ResponseEntity.ok().<Object>body(response))
             .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
     }
     @PostMapping("/nodes/{nodeId}/copy")
@@ -154,28 +196,21 @@ public class AlfrescoController {
         return alfrescoService.updateNode(nodeId, jsonRequestBody);
     }
     @PostMapping("/alfresco/upload")
-    public ResponseEntity<String> uploadFileToAlfresco(@RequestParam("file") MultipartFile file,
-                                                       @RequestParam("path") String path,
-                                                       @RequestHeader("Authorization") String authToken) {
-        try {
-            // Initialize the Alfresco session
-            alfrescoService.initializeSession(alfrescoUser, alfrescoPassword, alfrescoUrl);
-
-            String filename = file.getOriginalFilename();
-            return alfrescoService.uploadFileWithAutoRename(file, path, filename, "", 0, authToken);
-        } catch (IOException e) {
-            return new ResponseEntity<>("Erreur lors du téléchargement du fichier: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public Mono<ResponseEntity<String>> uploadFileToAlfresco(@RequestParam("file") MultipartFile file,
+                                                             @RequestParam("path") String path,
+                                                             @RequestHeader("Authorization") String authToken) {
+        String filename = file.getOriginalFilename();
+        return asyncCmisService
+            .call(() -> alfrescoService.uploadFileWithAutoRename(file, path, filename, authToken))
+            .onErrorResume(IOException.class, e ->
+                Mono.just(new ResponseEntity<>("Erreur lors du téléchargement du fichier: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR)));
     }
     @GetMapping(value = "/getDocumentDetailsByAlfrescoId/{alfrescoId}")
-    public ResponseEntity<DocumentDetails> getDocumentDetailsByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
-        DocumentDetails documentDetails = cmisService.getDocumentDetails(alfrescoId);
-
-        if (documentDetails != null) {
-            return ResponseEntity.ok(documentDetails);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public Mono<ResponseEntity<DocumentDetails>> getDocumentDetailsByAlfrescoId(@PathVariable("alfrescoId") String alfrescoId) {
+        return asyncCmisService
+            .getDocumentDetails(alfrescoId)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     @GetMapping("/nodes/{nodeId}")
     public Mono<ResponseEntity<Object>> getNodeDetails(@PathVariable String nodeId,
@@ -184,14 +219,59 @@ public class AlfrescoController {
         return alfrescoService.getNodeDetails(nodeId, include, fields);
     }
 
+    // Métadonnées de tous les nœuds d'une liste en une requête ; view=details : DocumentDetails lus via CMIS
+    @PostMapping("/nodes/_batch")
+    public Mono<ResponseEntity<Object>> getNodesBatch(@RequestBody NodeBatchRequest request,
+                                                      @RequestParam(required = false, defaultValue = "node") String view) {
+        Mono<?> batch = "details".equals(view)
+            ? alfrescoService.getDocumentsDetails(request.getIds())
+            : alfrescoService.getNodesDetails(request.getIds(), request.getInclude(), request.getFields());
+        return batch
+            .map(response -> ResponseEntity.<Object>ok(response))
+            .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())))
+            // Pool CMIS saturé : 503 par ExceptionTranslator
+            .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
+    }
+
     @GetMapping("/nodes/{nodeId}/content")
-    public Mono<ResponseEntity<byte[]>> downloadFile(@PathVariable String nodeId) {
-        return alfrescoService.downloadFileContent(nodeId)
-            .map(content -> ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=file")
-                .body(content))
+    public Mono<ResponseEntity<StreamingResponseBody>> downloadFile(
+        @PathVariable String nodeId,
+        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+        @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        return alfrescoService.downloadFileContent(nodeId, range, ifRange)
+            .map(upstream -> {
+                HttpHeaders headers = new HttpHeaders();
+                for (String name : RELAYED_CONTENT_HEADERS) {
+                    List<String> values = upstream.getHeaders().get(name);
+                    if (values != null) {
+                        headers.put(name, values);
+                    }
+                }
+                // Chaque tampon reçu d'Alfresco est écrit puis libéré : la mémoire ne dépend pas de la taille du document
+                Flux<DataBuffer> content = upstream.getBody();
+                StreamingResponseBody body = outputStream ->
+                    DataBufferUtils.write(content, outputStream).map(DataBufferUtils::release).blockLast();
+                return ResponseEntity.status(upstream.getStatusCode()).headers(headers).body(body);
+            })
+            .onErrorResume(WebClientResponseException.class, error ->
+                Mono.just(ResponseEntity.status(error.getStatusCode()).<StreamingResponseBody>build()))
             .onErrorResume(error -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
     }
+    @GetMapping("/nodes/{nodeId}/export")
+    public Mono<ResponseEntity<StreamingResponseBody>> exportFolder(@PathVariable String nodeId) {
+        return asyncCmisService
+            .call(() -> folderExportService.getFolder(nodeId))
+            .map(folder -> {
+                // L'archive est produite au fil du parcours, sans taille connue à l'avance
+                StreamingResponseBody body = outputStream -> folderExportService.writeZip(folder, outputStream);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(folder.getName() + ".zip", StandardCharsets.UTF_8).build().toString())
+                    .body(body);
+            })
+            .onErrorResume(CmisObjectNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+            .onErrorResume(CmisInvalidArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
     @GetMapping("/api/persons/{personId}")
     public Mono<ResponseEntity<PersonneResponse>> getPerson(@PathVariable String personId) {
         return alfrescoService.getPersonById(personId)
@@ -0,0 +1,33 @@
+package com.xtensus.xteged.web.rest.vm;
+
+import java.util.List;
+
+public class NodeBatchRequest {
+    private List<String> ids;
+    private String include;
+    private String fields;
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public String getInclude() {
+        return include;
+    }
+
+    public void setInclude(String include) {
+        this.include = include;
+    }
+
+    public String getFields() {
+        return fields;
+    }
+
+    public void setFields(String fields) {
+        this.fields = fields;
+    }
+}
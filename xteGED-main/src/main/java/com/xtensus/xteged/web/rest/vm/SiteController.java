@@ -22,7 +22,7 @@ public class SiteController {
 
 
     @GetMapping("/alfresco/sites")
-    public Mono<ResponseEntity<String>> getSites(
+    public Mono<ResponseEntity<Object>> getSites(
         @RequestHeader("Authorization") String authorization,
         @RequestParam(value = "visibility", required = false) String visibility,
         @RequestParam(value = "orderBy", required = false) String orderBy,
@@ -31,7 +31,7 @@ public class SiteController {
 
         String accessToken = authorization.replace("Bearer ", "");
         return siteService.getSites(visibility, orderBy, skipCount, maxItems)
-            .map(ResponseEntity::ok)
+            .map(ResponseEntity::<Object>ok)
             .onErrorResume(e -> Mono.just(ResponseEntity.status(500).body(e.getMessage())));
     }
 
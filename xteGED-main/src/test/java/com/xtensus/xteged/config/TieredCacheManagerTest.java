@@ -0,0 +1,165 @@
+package com.xtensus.xteged.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class TieredCacheManagerTest {
+
+    private final ConcurrentMapCacheManager l2 = new ConcurrentMapCacheManager("users", "alfresco-nodes");
+
+    private final List<MessageListener<TieredCacheManager.Invalidation>> listeners = new ArrayList<>();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ITopic<TieredCacheManager.Invalidation> topic;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        topic = mock(ITopic.class);
+        doAnswer(invocation -> {
+                listeners.add(invocation.getArgument(0));
+                return UUID.randomUUID();
+            })
+            .when(topic)
+            .addMessageListener(any());
+        doAnswer(invocation -> {
+                Message<TieredCacheManager.Invalidation> message = new Message<>("invalidation", invocation.getArgument(0), 0, null);
+                listeners.forEach(listener -> listener.onMessage(message));
+                return null;
+            })
+            .when(topic)
+            .publish(any());
+    }
+
+    @Test
+    void servesRepeatedReadsFromLocalTierAndCountsHitsPerTier() {
+        Cache cache = member(new SimpleMeterRegistry()).getCache("users");
+        l2.getCache("users").put("admin", "v1");
+
+        assertThat(cache.get("admin", String.class)).isEqualTo("v1");
+        // Written behind the manager's back: the local tier still answers until invalidated
+        l2.getCache("users").put("admin", "v2");
+        assertThat(cache.get("admin", String.class)).isEqualTo("v1");
+        assertThat(cache.get("missing")).isNull();
+
+        TieredCacheManager metered = new TieredCacheManager(l2, topic, new ApplicationProperties.Local(), name -> true, meterRegistry);
+        Cache meteredCache = metered.getCache("users");
+        meteredCache.get("admin");
+        meteredCache.get("admin");
+        meteredCache.get("missing");
+        assertThat(count("l1", "hit")).isEqualTo(1);
+        assertThat(count("l1", "miss")).isEqualTo(2);
+        assertThat(count("l2", "hit")).isEqualTo(1);
+        assertThat(count("l2", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatesLocalTierOfEveryMember() {
+        Cache first = member(new SimpleMeterRegistry()).getCache("users");
+        Cache second = member(new SimpleMeterRegistry()).getCache("users");
+        first.put("admin", "v1");
+        assertThat(second.get("admin", String.class)).isEqualTo("v1");
+
+        first.put("admin", "v2");
+        assertThat(second.get("admin", String.class)).isEqualTo("v2");
+
+        first.evict("admin");
+        assertThat(second.get("admin")).isNull();
+
+        first.put("admin", "v3");
+        assertThat(second.get("admin", String.class)).isEqualTo("v3");
+        first.clear();
+        assertThat(second.get("admin")).isNull();
+    }
+
+    @Test
+    void keepsAValueReadBeforeAConcurrentWriteOutOfTheLocalTier() {
+        ConcurrentMapCache shared = new ConcurrentMapCache("users");
+        shared.put("admin", "v1");
+        AtomicReference<Cache> writer = new AtomicReference<>();
+        ConcurrentMapCache racing = new ConcurrentMapCache("users", shared.getNativeCache(), true) {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper read = super.get(key);
+                // Another thread writes between our L2 read and the L1 fill
+                Cache other = writer.getAndSet(null);
+                if (other != null) {
+                    other.put(key, "v2");
+                }
+                return read;
+            }
+        };
+        CacheManager remote = new ConcurrentMapCacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                return racing;
+            }
+        };
+        TieredCacheManager manager = new TieredCacheManager(remote, topic, new ApplicationProperties.Local(), name -> true, meterRegistry);
+        Cache cache = manager.getCache("users");
+        writer.set(cache);
+
+        assertThat(cache.get("admin", String.class)).isEqualTo("v1");
+        assertThat(cache.get("admin", String.class)).isEqualTo("v2");
+    }
+
+    @Test
+    void doesNotBroadcastAPutIfAbsentThatChangedNothing() {
+        Cache cache = member(new SimpleMeterRegistry()).getCache("users");
+        cache.put("admin", "v1");
+        clearInvocations(topic);
+
+        assertThat(cache.putIfAbsent("admin", "v2").get()).isEqualTo("v1");
+        verify(topic, never()).publish(any());
+        assertThat(cache.putIfAbsent("guest", "v1")).isNull();
+        verify(topic).publish(any());
+    }
+
+    @Test
+    void skipsLocalTierForExcludedCaches() {
+        TieredCacheManager manager = new TieredCacheManager(
+            l2,
+            topic,
+            new ApplicationProperties.Local(),
+            name -> !name.startsWith("alfresco-"),
+            meterRegistry
+        );
+        Cache cache = manager.getCache("alfresco-nodes");
+        l2.getCache("alfresco-nodes").put("node", "v1");
+        assertThat(cache.get("node", String.class)).isEqualTo("v1");
+
+        l2.getCache("alfresco-nodes").put("node", "v2");
+        assertThat(cache.get("node", String.class)).isEqualTo("v2");
+        assertThat(meterRegistry.find("cache.tier.gets").tag("tier", "l1").functionCounter()).isNull();
+    }
+
+    private TieredCacheManager member(MeterRegistry registry) {
+        return new TieredCacheManager(l2, topic, new ApplicationProperties.Local(), name -> true, registry);
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets").tag("cache", "users").tag("tier", tier).tag("result", result).functionCounter().count();
+    }
+}
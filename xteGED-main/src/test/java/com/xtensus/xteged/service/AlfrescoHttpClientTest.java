@@ -0,0 +1,137 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link AlfrescoHttpClient} and {@link AlfrescoAuthentication} against a stub Alfresco REST API.
+ */
+class AlfrescoHttpClientTest {
+
+    private static final String API = "/alfresco/api/-default-/public/alfresco/versions/1";
+
+    private static final String TICKETS = "/alfresco/api/-default-/public/authentication/versions/1/tickets";
+
+    private HttpServer server;
+
+    private final AtomicInteger ticketRequests = new AtomicInteger();
+
+    private final AtomicReference<String> validTicket = new AtomicReference<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AlfrescoHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(
+            TICKETS,
+            exchange -> {
+                validTicket.set("TICKET_" + ticketRequests.incrementAndGet());
+                respond(exchange, 201, "{\"entry\":{\"id\":\"" + validTicket.get() + "\",\"userId\":\"admin\"}}");
+            }
+        );
+        server.createContext(
+            API,
+            exchange -> {
+                String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                boolean authorized =
+                    basic("admin:admin").equals(authorization) || (validTicket.get() != null && basic(validTicket.get()).equals(authorization));
+                respond(exchange, authorized ? 200 : 401, authorized ? "{\"ok\":true}" : "{}");
+            }
+        );
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void publishesPoolGaugesOnceConnected() throws InterruptedException {
+        start("basic");
+
+        String body = httpClient.alfresco().get().uri("/nodes").retrieve().bodyToMono(String.class).block();
+
+        assertThat(body).isEqualTo("{\"ok\":true}");
+        assertThat(meterRegistry.get("xteged.http.pool.max").tag("pool", "test").gauge().value()).isEqualTo(3);
+        // The connection goes back to the pool on the event loop, possibly just after block() returned
+        long deadline = System.currentTimeMillis() + 2000;
+        while (meterRegistry.get("xteged.http.pool.acquired").tag("pool", "test").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("xteged.http.pool.acquired").tag("pool", "test").gauge().value()).isZero();
+        assertThat(ticketRequests.get()).isZero();
+    }
+
+    @Test
+    void sharesTicketAndRenewsItWhenRejected() {
+        start("ticket");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(httpClient.alfresco().get().uri("/nodes").retrieve().bodyToMono(String.class).block()).isEqualTo("{\"ok\":true}");
+        }
+        assertThat(ticketRequests.get()).isEqualTo(1);
+
+        // Ticket expired on the Alfresco side
+        validTicket.set("TICKET_EXPIRED");
+        assertThat(httpClient.alfresco().get().uri("/nodes").retrieve().bodyToMono(String.class).block()).isEqualTo("{\"ok\":true}");
+        assertThat(ticketRequests.get()).isEqualTo(2);
+    }
+
+    private void start(String mode) {
+        String alfrescoUrl = "http://localhost:" + server.getAddress().getPort() + API;
+        AlfrescoAuthentication authentication = new AlfrescoAuthentication();
+        ReflectionTestUtils.setField(authentication, "alfrescoUser", "admin");
+        ReflectionTestUtils.setField(authentication, "alfrescoPass", "admin");
+        ReflectionTestUtils.setField(authentication, "alfrescoUrl", alfrescoUrl);
+        ReflectionTestUtils.setField(authentication, "mode", mode);
+        ReflectionTestUtils.setField(authentication, "ticketUrl", "");
+        ReflectionTestUtils.setField(authentication, "ticketTtl", 60000L);
+        authentication.init();
+
+        httpClient = new AlfrescoHttpClient(meterRegistry, authentication);
+        ReflectionTestUtils.setField(httpClient, "alfrescoUrl", alfrescoUrl);
+        ReflectionTestUtils.setField(httpClient, "poolName", "test");
+        ReflectionTestUtils.setField(httpClient, "maxConnections", 3);
+        ReflectionTestUtils.setField(httpClient, "pendingAcquireMaxCount", 10);
+        ReflectionTestUtils.setField(httpClient, "pendingAcquireTimeout", 1000L);
+        ReflectionTestUtils.setField(httpClient, "maxIdleTime", 1000L);
+        ReflectionTestUtils.setField(httpClient, "maxLifeTime", 10000L);
+        ReflectionTestUtils.setField(httpClient, "evictInterval", 1000L);
+        ReflectionTestUtils.setField(httpClient, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(httpClient, "responseTimeout", 5000L);
+        ReflectionTestUtils.setField(httpClient, "keepAlive", true);
+        httpClient.init();
+    }
+
+    private static String basic(String credentials) {
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,137 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class AlfrescoMetadataCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private AlfrescoMetadataCache metadataCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(AlfrescoMetadataCache.NODES);
+        metadataCache = new AlfrescoMetadataCache(cacheManager, Schedulers.immediate());
+    }
+
+    @Test
+    void loadsEachVariantOnceUntilEvicted() {
+        assertThat(get("node-1", "a").block()).isEqualTo("node-1/a#1");
+        assertThat(get("node-1", "a").block()).isEqualTo("node-1/a#1");
+        assertThat(get("node-1", "b").block()).isEqualTo("node-1/b#2");
+        assertThat(get("node-1", "a").block()).isEqualTo("node-1/a#1");
+        assertThat(loads).hasValue(2);
+
+        metadataCache.evict(AlfrescoMetadataCache.NODES, "node-1");
+
+        assertThat(get("node-1", "a").block()).isEqualTo("node-1/a#3");
+        assertThat(get("node-1", "b").block()).isEqualTo("node-1/b#4");
+    }
+
+    @Test
+    void doesNotCacheErrorsOrEmptyResults() {
+        Mono<String> failing = metadataCache.get(AlfrescoMetadataCache.NODES, "node-2", "a", () -> {
+            loads.incrementAndGet();
+            return Mono.error(new IllegalStateException("Alfresco down"));
+        });
+        Mono<String> empty = metadataCache.get(AlfrescoMetadataCache.NODES, "node-2", "a", () -> {
+            loads.incrementAndGet();
+            return Mono.empty();
+        });
+
+        assertThat(failing.onErrorReturn("error").block()).isEqualTo("error");
+        assertThat(empty.block()).isNull();
+        assertThat(get("node-2", "a").block()).isEqualTo("node-2/a#3");
+    }
+
+    @Test
+    void evictsNodeAndCopyTargetOnNodeChange() {
+        get("node-4", "a").block();
+        get("folder-5", "a").block();
+
+        metadataCache.onNodeChanged(new NodeChangedEvent(NodeChangedEvent.Type.COPIED, "node-4", "folder-5"));
+
+        assertThat(get("node-4", "a").block()).isEqualTo("node-4/a#3");
+        assertThat(get("folder-5", "a").block()).isEqualTo("folder-5/a#4");
+    }
+
+    @Test
+    void keepsValuesLoadedDuringAnEvictionOutOfTheCache() {
+        get("node-6", "a").block();
+        Mono<String> reload = metadataCache.get(AlfrescoMetadataCache.NODES, "node-6", "b", () -> {
+            // The node changes while its variant is being loaded
+            metadataCache.evict(AlfrescoMetadataCache.NODES, "node-6");
+            return Mono.just("stale");
+        });
+
+        assertThat(reload.block()).isEqualTo("stale");
+        assertThat(get("node-6", "b").block()).isEqualTo("node-6/b#2");
+        assertThat(get("node-6", "a").block()).isEqualTo("node-6/a#3");
+    }
+
+    @Test
+    void dropsTheFirstLoadOfANodeEvictedWhileItLoads() {
+        Mono<String> load = metadataCache.get(AlfrescoMetadataCache.NODES, "node-8", "a", () -> {
+            // updateNode / NodeChangedEvent while Alfresco answers the first read
+            metadataCache.evict(AlfrescoMetadataCache.NODES, "node-8");
+            return Mono.just("stale");
+        });
+
+        assertThat(load.block()).isEqualTo("stale");
+        assertThat(nativeCache().values()).doesNotContain("stale");
+        assertThat(get("node-8", "a").block()).isEqualTo("node-8/a#1");
+        assertThat(get("node-8", "a").block()).isEqualTo("node-8/a#1");
+    }
+
+    @Test
+    void writesOffTheCallingThread() throws Exception {
+        BlockingQueue<String> writers = new LinkedBlockingQueue<>();
+        Cache cache = new ConcurrentMapCache(AlfrescoMetadataCache.NODES) {
+            @Override
+            public void put(Object key, Object value) {
+                writers.add(Thread.currentThread().getName());
+                super.put(key, value);
+            }
+        };
+        metadataCache = new AlfrescoMetadataCache(new SimpleCacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                return cache;
+            }
+        });
+
+        assertThat(get("node-7", "a").block()).isEqualTo("node-7/a#1");
+
+        assertThat(writers.poll(5, TimeUnit.SECONDS)).startsWith("boundedElastic").isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void fallsBackToLoaderWithoutCache() {
+        assertThat(metadataCache.get("unknown", "node-3", "a", () -> Mono.just("loaded")).block()).isEqualTo("loaded");
+    }
+
+    private Map<Object, Object> nativeCache() {
+        return ((ConcurrentMapCache) cacheManager.getCache(AlfrescoMetadataCache.NODES)).getNativeCache();
+    }
+
+    private Mono<String> get(String id, String variant) {
+        return metadataCache.get(AlfrescoMetadataCache.NODES, id, variant, () -> Mono.fromSupplier(() -> id + "/" + variant + "#" + loads.incrementAndGet()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.xtensus.xteged.service.node.NodeEntry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+class AlfrescoServiceChildrenTest {
+
+    @Test
+    void streamsChildrenPageByPage() {
+        List<String> requestedSkipCounts = new ArrayList<>();
+        WebClient.Builder builder = WebClient
+            .builder()
+            .exchangeFunction(request -> {
+                String skipCount = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams().getFirst("skipCount");
+                requestedSkipCounts.add(skipCount);
+                return Mono.just(page(Integer.parseInt(skipCount), 2, 5));
+            });
+        AlfrescoHttpClient httpClient = mock(AlfrescoHttpClient.class);
+        when(httpClient.alfresco()).thenReturn(builder.build());
+        AlfrescoService alfrescoService = new AlfrescoService(
+            httpClient,
+            mock(CmisService.class),
+            mock(CmisSessionProvider.class),
+            mock(FolderPathResolver.class),
+            mock(ApplicationEventPublisher.class),
+            mock(AlfrescoMetadataCache.class),
+            mock(RequestCoalescer.class),
+            mock(AsyncCmisService.class)
+        );
+
+        List<NodeEntry> entries = alfrescoService.streamChildren("root", "properties", 2).collectList().block();
+
+        assertThat(entries).extracting(entry -> entry.getEntry().getName()).containsExactly("n0", "n1", "n2", "n3", "n4");
+        assertThat(entries.get(0).getEntry().isFolder()).isTrue();
+        assertThat(entries.get(0).getEntry().getAdditionalProperties()).containsEntry("isLocked", false);
+        assertThat(requestedSkipCounts).containsExactly("0", "2", "4");
+    }
+
+    private static ClientResponse page(int skipCount, int pageSize, int total) {
+        int count = Math.min(pageSize, total - skipCount);
+        StringBuilder entries = new StringBuilder();
+        for (int i = skipCount; i < skipCount + count; i++) {
+            entries.append(i > skipCount ? "," : "");
+            entries.append(
+                String.format("{\"entry\":{\"id\":\"id-%d\",\"name\":\"n%d\",\"isFolder\":true,\"isFile\":false,\"isLocked\":false}}", i, i)
+            );
+        }
+        String body = String.format(
+            "{\"list\":{\"pagination\":{\"count\":%d,\"hasMoreItems\":%b,\"totalItems\":%d,\"skipCount\":%d,\"maxItems\":%d},\"entries\":[%s]}}",
+            count,
+            skipCount + count < total,
+            total,
+            skipCount,
+            pageSize,
+            entries
+        );
+        return ClientResponse
+            .create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+class AlfrescoServiceNodeEventsTest {
+
+    private final List<NodeChangedEvent> events = new CopyOnWriteArrayList<>();
+
+    private final List<String> publishingThreads = new CopyOnWriteArrayList<>();
+
+    private HttpStatus status;
+
+    private AlfrescoService alfrescoService;
+
+    @BeforeEach
+    void setUp() {
+        status = HttpStatus.OK;
+        WebClient webClient = WebClient
+            .builder()
+            .exchangeFunction(request ->
+                Mono.just(
+                    ClientResponse.create(status).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body("{}").build()
+                )
+            )
+            .build();
+        AlfrescoHttpClient httpClient = mock(AlfrescoHttpClient.class);
+        when(httpClient.alfresco()).thenReturn(webClient);
+        alfrescoService = new AlfrescoService(
+            httpClient,
+            mock(CmisService.class),
+            mock(CmisSessionProvider.class),
+            mock(FolderPathResolver.class),
+            event -> {
+                publishingThreads.add(Thread.currentThread().getName());
+                events.add((NodeChangedEvent) event);
+            },
+            mock(AlfrescoMetadataCache.class),
+            mock(RequestCoalescer.class),
+            mock(AsyncCmisService.class)
+        );
+    }
+
+    @Test
+    void publishesTheTypedEventOfEachMutationBeforeItCompletes() {
+        alfrescoService.updateNode("n-1", "{}").block();
+        alfrescoService.lockNode("n-2", 0, "ALLOW_OWNER_CHANGES", "PERSISTENT").block();
+        alfrescoService.unlockNode("n-3").block();
+        alfrescoService.copyNode("n-4", "folder-1", "copy").block();
+        alfrescoService.shareDocument("n-5", "jdoe", "Consumer").block();
+        alfrescoService.deleteNode("n-6", false).block();
+
+        assertThat(events)
+            .extracting(NodeChangedEvent::getType, NodeChangedEvent::getNodeId)
+            .containsExactly(
+                tuple(NodeChangedEvent.Type.UPDATED, "n-1"),
+                tuple(NodeChangedEvent.Type.LOCKED, "n-2"),
+                tuple(NodeChangedEvent.Type.UNLOCKED, "n-3"),
+                tuple(NodeChangedEvent.Type.COPIED, "n-4"),
+                tuple(NodeChangedEvent.Type.PERMISSIONS_CHANGED, "n-5"),
+                tuple(NodeChangedEvent.Type.DELETED, "n-6")
+            );
+        assertThat(events.get(3).getTargetParentId()).isEqualTo("folder-1");
+        // Listeners block (Hazelcast, path cache scan): never on the caller's thread
+        assertThat(publishingThreads).allSatisfy(thread -> assertThat(thread).startsWith("boundedElastic"));
+    }
+
+    @Test
+    void publishesNothingWhenAlfrescoRejectsTheMutation() {
+        status = HttpStatus.CONFLICT;
+
+        assertThatThrownBy(() -> alfrescoService.lockNode("n-7", 0, "ALLOW_OWNER_CHANGES", "PERSISTENT").block())
+            .isInstanceOf(RuntimeException.class);
+        assertThat(events).isEmpty();
+    }
+}
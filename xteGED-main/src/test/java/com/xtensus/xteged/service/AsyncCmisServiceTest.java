@@ -0,0 +1,69 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AsyncCmisServiceTest {
+
+    private final CmisService cmisService = mock(CmisService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AsyncCmisService asyncCmisService;
+
+    @BeforeEach
+    void setUp() {
+        asyncCmisService = new AsyncCmisService(cmisService, meterRegistry);
+        ReflectionTestUtils.setField(asyncCmisService, "threads", 1);
+        ReflectionTestUtils.setField(asyncCmisService, "queueCapacity", 1);
+        asyncCmisService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncCmisService.destroy();
+    }
+
+    @Test
+    void runsCmisCallsOnTheDedicatedPool() {
+        when(cmisService.getDocumentName("42")).thenAnswer(invocation -> Thread.currentThread().getName() + ":scan");
+
+        assertThat(asyncCmisService.getDocumentName("42").block()).isEqualTo("cmis-1:scan");
+        // A missing document is an empty Mono rather than a null value
+        assertThat(asyncCmisService.getDocumentName("unknown").blockOptional()).isEmpty();
+    }
+
+    @Test
+    void rejectsCallsBeyondTheQueueAndCountsThem() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<String> busy = asyncCmisService.submit(() -> {
+            running.countDown();
+            release.await();
+            return "busy";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = asyncCmisService.submit(() -> "queued");
+        assertThat(asyncCmisService.queued()).isEqualTo(1);
+        assertThat(meterRegistry.get("xteged.cmis.executor.queued").gauge().value()).isEqualTo(1);
+
+        assertThatThrownBy(() -> asyncCmisService.call(() -> "rejected").block()).isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get("xteged.cmis.executor.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("busy");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+}
@@ -0,0 +1,189 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.xtensus.xteged.service.bulk.BulkIngestionReport;
+import com.xtensus.xteged.service.bulk.BulkItem;
+import com.xtensus.xteged.service.bulk.BulkItemResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+class BulkIngestionServiceTest {
+
+    private CmisService cmisService;
+
+    private FolderPathResolver folderPathResolver;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BulkIngestionService bulkIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        cmisService = mock(CmisService.class);
+        folderPathResolver = mock(FolderPathResolver.class);
+        when(folderPathResolver.findOrCreate(anyString())).thenAnswer(invocation -> mock(Folder.class));
+        when(cmisService.createDocument(any(Folder.class), anyString(), anyString(), any(InputStream.class), anyLong()))
+            .thenAnswer(invocation -> document("id-" + invocation.getArgument(1)));
+
+        meterRegistry = new SimpleMeterRegistry();
+        bulkIngestionService = new BulkIngestionService(cmisService, folderPathResolver, meterRegistry);
+        ReflectionTestUtils.setField(bulkIngestionService, "concurrency", 2);
+        bulkIngestionService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkIngestionService.destroy();
+    }
+
+    @Test
+    void ingestsZipEntriesResolvingEachFolderOnce() throws Exception {
+        byte[] zip = zip("a/1.pdf", "a/2.pdf", "b/3.pdf", "4.txt", "../evil.pdf");
+
+        BulkIngestionReport report = bulkIngestionService
+            .ingest("/Sites/courrier", bulkIngestionService.zipEntries(new ByteArrayInputStream(zip)), true)
+            .block();
+
+        assertThat(report.getTotal()).isEqualTo(5);
+        assertThat(report.getCreated()).isEqualTo(4);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getItems()).extracting(BulkItemResult::getPath)
+            .containsExactly("/Sites/courrier/a", "/Sites/courrier/a", "/Sites/courrier/b", "/Sites/courrier", "/Sites/courrier");
+        assertThat(report.getItems().get(4).getStatus()).isEqualTo(BulkItemResult.Status.FAILED);
+        verify(folderPathResolver, times(1)).findOrCreate("/Sites/courrier/a");
+        verify(folderPathResolver, times(1)).findOrCreate("/Sites/courrier/b");
+        verify(folderPathResolver, times(1)).findOrCreate("/Sites/courrier");
+        assertThat(meterRegistry.counter("xteged.bulk.documents", "result", "created").count()).isEqualTo(4);
+    }
+
+    @Test
+    void boundsConcurrentUploads() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(cmisService.createDocument(any(Folder.class), anyString(), anyString(), any(InputStream.class), anyLong()))
+            .thenAnswer(invocation -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return document("id");
+            });
+
+        Flux<BulkItem> items = Flux.range(0, 20).map(i -> item("scan-" + i + ".pdf"));
+        BulkIngestionReport report = bulkIngestionService.ingest("/inbox", items, false).block();
+
+        assertThat(report.getCreated()).isEqualTo(20);
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    void renamesOnNameConflict() {
+        when(cmisService.createDocument(any(Folder.class), eq("scan.pdf"), anyString(), any(InputStream.class), anyLong()))
+            .thenThrow(new CmisContentAlreadyExistsException("exists"));
+        when(cmisService.getDocumentNamesStartingWith(any(Folder.class), eq("scan")))
+            .thenReturn(new HashSet<>(Arrays.asList("scan.pdf", "scan-1.pdf")));
+
+        BulkIngestionReport renamed = bulkIngestionService.ingest("/inbox", Flux.just(item("scan.pdf")), true).block();
+        BulkIngestionReport rejected = bulkIngestionService.ingest("/inbox", Flux.just(item("scan.pdf")), false).block();
+
+        assertThat(renamed.getItems().get(0).getName()).isEqualTo("scan-2.pdf");
+        assertThat(renamed.getItems().get(0).getDocumentId()).isEqualTo("id-scan-2.pdf");
+        assertThat(rejected.getItems().get(0).getStatus()).isEqualTo(BulkItemResult.Status.FAILED);
+    }
+
+    @Test
+    void rejectsRelativePathsLeavingTheTargetFolder() {
+        assertThat(BulkIngestionService.targetPath("/inbox/", "2024//10")).isEqualTo("/inbox/2024/10");
+        assertThat(BulkIngestionService.targetPath("/inbox", "")).isEqualTo("/inbox");
+        assertThat(
+            Arrays.stream(new String[] { "..", "a/../b", "./a" }).map(path -> {
+                try {
+                    BulkIngestionService.targetPath("/inbox", path);
+                    return "accepted";
+                } catch (IllegalArgumentException e) {
+                    return "rejected";
+                }
+            }).collect(Collectors.toSet())
+        ).containsExactly("rejected");
+    }
+
+    @Test
+    void deletesTheSpoolFileOfATruncatedEntry() throws Exception {
+        byte[] content = new byte[256 * 1024];
+        new Random(42).nextBytes(content);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("scan.pdf"));
+            zip.write(content);
+            zip.closeEntry();
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2);
+        Set<Path> spoolFilesBefore = spoolFiles();
+
+        assertThatThrownBy(() -> bulkIngestionService.zipEntries(new ByteArrayInputStream(truncated)).blockLast())
+            .isInstanceOf(UncheckedIOException.class);
+        assertThat(spoolFiles()).isEqualTo(spoolFilesBefore);
+    }
+
+    private static Set<Path> spoolFiles() throws Exception {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("bulk-")).collect(Collectors.toSet());
+        }
+    }
+
+    private static BulkItem item(String name) {
+        byte[] content = name.getBytes(StandardCharsets.UTF_8);
+        return new BulkItem(name, "", "application/pdf", content.length, () -> new ByteArrayInputStream(content));
+    }
+
+    private static Document document(String id) {
+        Document document = mock(Document.class);
+        when(document.getId()).thenReturn(id + ";1.0");
+        return document;
+    }
+
+    private static byte[] zip(String... names) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
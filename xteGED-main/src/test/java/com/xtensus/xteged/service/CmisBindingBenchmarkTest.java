@@ -0,0 +1,176 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmark of the AtomPub and Browser CMIS bindings of {@link CmisSessionProvider} against the
+ * {@link CmisInMemoryServer} stand-in: latency and client-side allocation per
+ * {@code getObjectByPath}/{@code getObject} call, with the session object cache bypassed.
+ * <p>
+ * Disabled by default, run it with:
+ * {@code ./mvnw test -Dtest=CmisBindingBenchmarkTest -Dcmis.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "cmis.benchmark", matches = "true")
+class CmisBindingBenchmarkTest {
+
+    private static final String FOLDER = "/benchmark";
+
+    private static final int DOCUMENTS = 50;
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final int MEASURED_ROUNDS = 40;
+
+    private static CmisInMemoryServer server;
+
+    private static final List<String> documentIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startRepository() throws Exception {
+        server = CmisInMemoryServer.start();
+        Session session = server.sessionProvider("atompub").getSession();
+
+        Map<String, Object> folderProperties = new HashMap<>();
+        folderProperties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:folder");
+        folderProperties.put(PropertyIds.NAME, FOLDER.substring(1));
+        Folder folder = session.getRootFolder().createFolder(folderProperties);
+
+        for (int i = 0; i < DOCUMENTS; i++) {
+            byte[] content = ("document " + i).getBytes(StandardCharsets.UTF_8);
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
+            properties.put(PropertyIds.NAME, "scan-" + i + ".pdf");
+            ContentStream contentStream = session
+                .getObjectFactory()
+                .createContentStream("scan-" + i + ".pdf", content.length, "application/pdf", new ByteArrayInputStream(content));
+            Document document = folder.createDocument(properties, contentStream, VersioningState.NONE);
+            documentIds.add(document.getId());
+        }
+    }
+
+    @AfterAll
+    static void stopRepository() throws Exception {
+        server.close();
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    void compareBindings() {
+        Result atomPub = measure("atompub");
+        Result browser = measure("browser");
+
+        System.out.println();
+        System.out.println("CMIS binding benchmark (" + DOCUMENTS * MEASURED_ROUNDS + " calls per operation, cache disabled)");
+        System.out.println(String.format("%-10s %-16s %12s %12s %16s", "binding", "operation", "mean (us)", "p95 (us)", "alloc/call (KB)"));
+        atomPub.print();
+        browser.print();
+
+        assertThat(browser.resolvedIds).isEqualTo(atomPub.resolvedIds);
+    }
+
+    private static Result measure(String binding) {
+        Session session = server.sessionProvider(binding).getSession();
+        OperationContext noCache = session.createOperationContext();
+        noCache.setCacheEnabled(false);
+
+        Result result = new Result(binding);
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            boolean measured = round >= WARMUP_ROUNDS;
+            for (int i = 0; i < DOCUMENTS; i++) {
+                String path = FOLDER + "/scan-" + i + ".pdf";
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                String id = session.getObjectByPath(path, noCache).getId();
+                long byPathNanos = System.nanoTime() - start;
+                long byPathBytes = allocatedBytes() - allocated;
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                session.getObject(documentIds.get(i), noCache);
+                long byIdNanos = System.nanoTime() - start;
+                long byIdBytes = allocatedBytes() - allocated;
+
+                if (measured) {
+                    result.byPath.record(byPathNanos, byPathBytes);
+                    result.byId.record(byIdNanos, byIdBytes);
+                    if (round == WARMUP_ROUNDS) {
+                        result.resolvedIds.add(id);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static final class Result {
+
+        private final String binding;
+
+        private final Samples byPath = new Samples();
+
+        private final Samples byId = new Samples();
+
+        private final List<String> resolvedIds = new ArrayList<>();
+
+        private Result(String binding) {
+            this.binding = binding;
+        }
+
+        private void print() {
+            byPath.print(binding, "getObjectByPath");
+            byId.print(binding, "getObject");
+        }
+    }
+
+    static final class Samples {
+
+        private final List<Long> nanos = new ArrayList<>();
+
+        private long bytes;
+
+        void record(long elapsedNanos, long allocatedBytes) {
+            nanos.add(elapsedNanos);
+            bytes += allocatedBytes;
+        }
+
+        void print(String label, String operation) {
+            System.out.print(String.format("%-10s %-16s ", label, operation));
+            printStats();
+        }
+
+        // mean, p95 and allocation columns, ending the line
+        void printStats() {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1000d;
+            double p95 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95))] / 1000d;
+            double kilobytes = bytes / 1024d / sorted.length;
+            System.out.println(String.format("%12.1f %12.1f %16.1f", mean, p95, kilobytes));
+        }
+    }
+}
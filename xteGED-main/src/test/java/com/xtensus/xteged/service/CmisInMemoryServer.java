@@ -0,0 +1,141 @@
+package com.xtensus.xteged.service;
+
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.DeploymentManager;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.apache.chemistry.opencmis.inmemory.server.InMemoryServiceFactoryImpl;
+import org.apache.chemistry.opencmis.server.impl.CmisRepositoryContextListener;
+import org.apache.chemistry.opencmis.server.impl.atompub.CmisAtomPubServlet;
+import org.apache.chemistry.opencmis.server.impl.browser.CmisBrowserBindingServlet;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Local CMIS stand-in for Alfresco: the OpenCMIS InMemory repository exposed over the AtomPub and
+ * Browser bindings by an embedded Undertow on a random port.
+ */
+public final class CmisInMemoryServer implements AutoCloseable {
+
+    public static final String REPOSITORY_ID = "A1";
+
+    public static final String USER = "admin";
+
+    public static final String PASSWORD = "admin";
+
+    private final InMemoryServiceFactoryImpl serviceFactory;
+
+    private final DeploymentManager deploymentManager;
+
+    private final Undertow undertow;
+
+    private final LongAdder responseBytes;
+
+    private CmisInMemoryServer(
+        InMemoryServiceFactoryImpl serviceFactory,
+        DeploymentManager deploymentManager,
+        Undertow undertow,
+        LongAdder responseBytes
+    ) {
+        this.serviceFactory = serviceFactory;
+        this.deploymentManager = deploymentManager;
+        this.undertow = undertow;
+        this.responseBytes = responseBytes;
+    }
+
+    public static CmisInMemoryServer start() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(ConfigConstants.REPOSITORY_ID, REPOSITORY_ID);
+        InMemoryServiceFactoryImpl serviceFactory = new InMemoryServiceFactoryImpl();
+        serviceFactory.init(parameters);
+
+        DeploymentInfo deployment = Servlets
+            .deployment()
+            .setClassLoader(CmisInMemoryServer.class.getClassLoader())
+            .setContextPath("/cmis")
+            .setDeploymentName("cmis-inmemory")
+            .addServletContextAttribute(CmisRepositoryContextListener.SERVICES_FACTORY, serviceFactory)
+            .addServlets(
+                Servlets
+                    .servlet("atompub", CmisAtomPubServlet.class)
+                    .addInitParam("cmisVersion", "1.1")
+                    .addMapping("/atom11/*")
+                    .setAsyncSupported(true),
+                Servlets
+                    .servlet("browser", CmisBrowserBindingServlet.class)
+                    .addInitParam("cmisVersion", "1.1")
+                    .addMapping("/browser/*")
+                    .setAsyncSupported(true)
+            );
+        DeploymentManager deploymentManager = Servlets.defaultContainer().addDeployment(deployment);
+        deploymentManager.deploy();
+
+        LongAdder responseBytes = new LongAdder();
+        HttpHandler cmis = Handlers.path().addPrefixPath("/cmis", deploymentManager.start());
+        HttpHandler counting = exchange -> {
+            exchange.addExchangeCompleteListener((completed, next) -> {
+                responseBytes.add(completed.getResponseBytesSent());
+                next.proceed();
+            });
+            cmis.handleRequest(exchange);
+        };
+        Undertow undertow = Undertow.builder().addHttpListener(0, "localhost").setHandler(counting).build();
+        undertow.start();
+        return new CmisInMemoryServer(serviceFactory, deploymentManager, undertow, responseBytes);
+    }
+
+    public int port() {
+        return ((InetSocketAddress) undertow.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    /**
+     * Response body bytes sent so far, over all bindings (counted once each exchange completes).
+     */
+    public long responseBytes() {
+        return responseBytes.sum();
+    }
+
+    public String atomPubUrl() {
+        return "http://localhost:" + port() + "/cmis/atom11";
+    }
+
+    public String browserUrl() {
+        return "http://localhost:" + port() + "/cmis/browser";
+    }
+
+    /**
+     * Single-session {@link CmisSessionProvider} for this server, with the defaults of application.yml.
+     */
+    public CmisSessionProvider sessionProvider(String binding) {
+        CmisSessionProvider provider = new CmisSessionProvider();
+        ReflectionTestUtils.setField(provider, "atomPubUrl", atomPubUrl());
+        ReflectionTestUtils.setField(provider, "browserUrl", browserUrl());
+        ReflectionTestUtils.setField(provider, "binding", binding);
+        ReflectionTestUtils.setField(provider, "alfrescoUser", USER);
+        ReflectionTestUtils.setField(provider, "alfrescoPass", PASSWORD);
+        ReflectionTestUtils.setField(provider, "poolSize", 1);
+        ReflectionTestUtils.setField(provider, "objectCacheSize", 1000);
+        ReflectionTestUtils.setField(provider, "objectCacheTtl", 120000L);
+        ReflectionTestUtils.setField(provider, "pathCacheSize", 1000);
+        ReflectionTestUtils.setField(provider, "connectTimeout", 10000);
+        ReflectionTestUtils.setField(provider, "readTimeout", 60000);
+        ReflectionTestUtils.setField(provider, "initialBackoff", 1000L);
+        ReflectionTestUtils.setField(provider, "maxBackoff", 1000L);
+        provider.init();
+        return provider;
+    }
+
+    @Override
+    public void close() throws Exception {
+        undertow.stop();
+        deploymentManager.stop();
+        deploymentManager.undeploy();
+        serviceFactory.destroy();
+    }
+}
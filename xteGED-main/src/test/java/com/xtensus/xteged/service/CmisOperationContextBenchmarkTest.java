@@ -0,0 +1,132 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.util.OperationContextUtils;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmark of the {@link CmisOperationContexts} profiles against the session default context on the
+ * {@link CmisInMemoryServer} stand-in: response payload, latency and client-side allocation per {@code getObject},
+ * for both bindings, with the session object cache bypassed.
+ * <p>
+ * Disabled by default, run it with:
+ * {@code ./mvnw test -Dtest=CmisOperationContextBenchmarkTest -Dcmis.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "cmis.benchmark", matches = "true")
+class CmisOperationContextBenchmarkTest {
+
+    private static final int DOCUMENTS = 50;
+
+    private static final int WARMUP_ROUNDS = 10;
+
+    private static final int MEASURED_ROUNDS = 20;
+
+    private static CmisInMemoryServer server;
+
+    private static final List<String> documentIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startRepository() throws Exception {
+        server = CmisInMemoryServer.start();
+        Session session = server.sessionProvider("atompub").getSession();
+
+        Map<String, Object> folderProperties = new HashMap<>();
+        folderProperties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:folder");
+        folderProperties.put(PropertyIds.NAME, "profiles");
+        Folder folder = session.getRootFolder().createFolder(folderProperties);
+
+        for (int i = 0; i < DOCUMENTS; i++) {
+            byte[] content = ("document " + i).getBytes(StandardCharsets.UTF_8);
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
+            properties.put(PropertyIds.NAME, "scan-" + i + ".pdf");
+            properties.put(PropertyIds.DESCRIPTION, "Courrier numérisé n° " + i);
+            ContentStream contentStream = session
+                .getObjectFactory()
+                .createContentStream("scan-" + i + ".pdf", content.length, "application/pdf", new ByteArrayInputStream(content));
+            Document document = folder.createDocument(properties, contentStream, VersioningState.NONE);
+            documentIds.add(document.getId());
+        }
+    }
+
+    @AfterAll
+    static void stopRepository() throws Exception {
+        server.close();
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    void compareProfiles() throws InterruptedException {
+        System.out.println();
+        System.out.println("CMIS operation context benchmark (" + DOCUMENTS * MEASURED_ROUNDS + " getObject calls per profile, cache disabled)");
+        System.out.println(String.format("%-10s %-10s %14s %12s %12s %16s", "binding", "profile", "payload (B)", "mean (us)", "p95 (us)", "alloc/call (KB)"));
+
+        for (String binding : new String[] { "atompub", "browser" }) {
+            Session session = server.sessionProvider(binding).getSession();
+            Map<String, OperationContext> profiles = new LinkedHashMap<>();
+            profiles.put("default", session.getDefaultContext());
+            profiles.put("NAME_ONLY", CmisOperationContexts.NAME_ONLY);
+            profiles.put("DETAILS", CmisOperationContexts.DETAILS);
+            profiles.put("DOWNLOAD", CmisOperationContexts.DOWNLOAD);
+
+            Map<String, Double> payloads = new LinkedHashMap<>();
+            for (Map.Entry<String, OperationContext> profile : profiles.entrySet()) {
+                payloads.put(profile.getKey(), measure(session, binding, profile.getKey(), profile.getValue()));
+            }
+
+            assertThat(payloads.get("NAME_ONLY")).isLessThan(payloads.get("default"));
+            assertThat(payloads.get("DETAILS")).isLessThan(payloads.get("default"));
+            assertThat(payloads.get("DOWNLOAD")).isLessThan(payloads.get("default"));
+        }
+    }
+
+    // Mean response payload per call
+    private static double measure(Session session, String binding, String name, OperationContext profile) throws InterruptedException {
+        OperationContext noCache = OperationContextUtils.copyOperationContext(profile);
+        noCache.setCacheEnabled(false);
+
+        CmisBindingBenchmarkTest.Samples samples = new CmisBindingBenchmarkTest.Samples();
+        long payload = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            boolean measured = round >= WARMUP_ROUNDS;
+            for (String id : documentIds) {
+                long bytesBefore = server.responseBytes();
+                long allocated = CmisBindingBenchmarkTest.allocatedBytes();
+                long start = System.nanoTime();
+                session.getObject(id, noCache);
+                long nanos = System.nanoTime() - start;
+                long allocatedBytes = CmisBindingBenchmarkTest.allocatedBytes() - allocated;
+                // The server counts an exchange once it has completed, possibly just after the client returned
+                Thread.sleep(1);
+                if (measured) {
+                    samples.record(nanos, allocatedBytes);
+                    payload += server.responseBytes() - bytesBefore;
+                }
+            }
+        }
+        double payloadPerCall = payload / (double) (DOCUMENTS * MEASURED_ROUNDS);
+        System.out.print(String.format("%-10s %-10s %14.0f ", binding, name, payloadPerCall));
+        samples.printStats();
+        return payloadPerCall;
+    }
+}
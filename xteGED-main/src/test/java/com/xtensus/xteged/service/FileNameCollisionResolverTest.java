@@ -0,0 +1,42 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class FileNameCollisionResolverTest {
+
+    @Test
+    void keepsFreeName() {
+        assertThat(FileNameCollisionResolver.nextAvailableName("scan.pdf", Collections.emptyList())).isEqualTo("scan.pdf");
+        assertThat(FileNameCollisionResolver.nextAvailableName("scan.pdf", Arrays.asList("scan-1.pdf", "scanner.pdf"))).isEqualTo("scan.pdf");
+    }
+
+    @Test
+    void picksSmallestFreeSuffix() {
+        List<String> existing = IntStream.rangeClosed(1, 200).mapToObj(i -> "scan-" + i + ".pdf").collect(Collectors.toList());
+        existing.add("scan.pdf");
+        existing.remove("scan-42.pdf");
+
+        assertThat(FileNameCollisionResolver.nextAvailableName("scan.pdf", existing)).isEqualTo("scan-42.pdf");
+        existing.add("scan-42.pdf");
+        assertThat(FileNameCollisionResolver.nextAvailableName("scan.pdf", existing)).isEqualTo("scan-201.pdf");
+    }
+
+    @Test
+    void comparesNamesIgnoringCase() {
+        assertThat(FileNameCollisionResolver.nextAvailableName("Scan.PDF", Arrays.asList("scan.pdf", "SCAN-1.pdf"))).isEqualTo("Scan-2.PDF");
+    }
+
+    @Test
+    void handlesNamesWithoutExtension() {
+        assertThat(FileNameCollisionResolver.nextAvailableName("README", Arrays.asList("README"))).isEqualTo("README-1");
+        assertThat(FileNameCollisionResolver.nextAvailableName(".env", Arrays.asList(".env"))).isEqualTo(".env-1");
+        assertThat(FileNameCollisionResolver.nextAvailableName("archive.tar.gz", Arrays.asList("archive.tar.gz"))).isEqualTo("archive.tar-1.gz");
+    }
+}
@@ -0,0 +1,115 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link FolderExportService} against the {@link CmisInMemoryServer} repository.
+ */
+class FolderExportServiceTest {
+
+    private static CmisInMemoryServer server;
+
+    private static FolderExportService exportService;
+
+    private static Session session;
+
+    private static Folder root;
+
+    private static String documentId;
+
+    @BeforeAll
+    static void startRepository() throws Exception {
+        server = CmisInMemoryServer.start();
+        CmisSessionProvider sessionProvider = server.sessionProvider("atompub");
+        exportService = new FolderExportService(sessionProvider);
+        ReflectionTestUtils.setField(exportService, "prefetch", 2);
+        // Smaller than the contents, so reads continue past the read-ahead buffer
+        ReflectionTestUtils.setField(exportService, "prefetchBufferBytes", 4);
+        ReflectionTestUtils.setField(exportService, "threads", 2);
+        ReflectionTestUtils.setField(exportService, "pageSize", 2);
+        exportService.init();
+
+        session = sessionProvider.getSession();
+        root = folder(session.getRootFolder(), "dossier");
+        documentId = document(root, "a.txt", "contenu de a");
+        Folder sub = folder(root, "sous-dossier");
+        for (int i = 0; i < 5; i++) {
+            document(sub, "doc-" + i + ".txt", "contenu " + i);
+        }
+        folder(sub, "vide");
+        document(root, "b.txt", "");
+    }
+
+    @AfterAll
+    static void stopRepository() throws Exception {
+        exportService.destroy();
+        server.close();
+    }
+
+    @Test
+    void writesWholeSubtreeAsZip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeZip(exportService.getFolder(root.getId()), out);
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertThat(entries).containsEntry("dossier/", "");
+        assertThat(entries).containsEntry("dossier/a.txt", "contenu de a");
+        assertThat(entries).containsEntry("dossier/b.txt", "");
+        assertThat(entries).containsEntry("dossier/sous-dossier/vide/", "");
+        for (int i = 0; i < 5; i++) {
+            assertThat(entries).containsEntry("dossier/sous-dossier/doc-" + i + ".txt", "contenu " + i);
+        }
+        assertThat(entries).hasSize(10);
+    }
+
+    @Test
+    void rejectsDocuments() {
+        assertThatThrownBy(() -> exportService.getFolder(documentId)).isInstanceOf(CmisInvalidArgumentException.class);
+    }
+
+    private static Folder folder(Folder parent, String name) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:folder");
+        properties.put(PropertyIds.NAME, name);
+        return parent.createFolder(properties);
+    }
+
+    private static String document(Folder parent, String name, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
+        properties.put(PropertyIds.NAME, name);
+        return parent
+            .createDocument(
+                properties,
+                session.getObjectFactory().createContentStream(name, bytes.length, "text/plain", new ByteArrayInputStream(bytes)),
+                VersioningState.NONE
+            )
+            .getId();
+    }
+}
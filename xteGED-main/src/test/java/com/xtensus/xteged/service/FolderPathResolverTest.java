@@ -0,0 +1,123 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link FolderPathResolver} against the {@link CmisInMemoryServer} repository.
+ */
+class FolderPathResolverTest {
+
+    private static CmisInMemoryServer server;
+
+    private static CmisSessionProvider sessionProvider;
+
+    private FolderPathResolver resolver;
+
+    @BeforeAll
+    static void startRepository() throws Exception {
+        server = CmisInMemoryServer.start();
+        sessionProvider = server.sessionProvider("atompub");
+    }
+
+    @AfterAll
+    static void stopRepository() throws Exception {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        resolver = new FolderPathResolver(sessionProvider);
+        ReflectionTestUtils.setField(resolver, "maxSize", 100L);
+        ReflectionTestUtils.setField(resolver, "ttl", 60000L);
+        resolver.init();
+    }
+
+    @Test
+    void createsMissingSegmentsAndResolvesThemAgain() {
+        Folder created = resolver.findOrCreate("/Sites/demo/documentLibrary/2024/10");
+
+        assertThat(created.getPath()).isEqualTo("/Sites/demo/documentLibrary/2024/10");
+        assertThat(resolver.find("Sites/demo/documentLibrary/2024/10/").getId()).isEqualTo(created.getId());
+        assertThat(resolver.findOrCreate("/Sites/demo/documentLibrary/2024/11").getPath()).isEqualTo("/Sites/demo/documentLibrary/2024/11");
+        assertThat(resolver.find("/Sites/demo/documentLibrary/2025")).isNull();
+    }
+
+    @Test
+    void collapsesConcurrentCreationsOfTheSameFolder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Callable<String> task = () -> resolver.findOrCreate("/concurrent/a/b/c").getId();
+            List<Future<String>> results = executor.invokeAll(Collections.nCopies(16, task));
+            List<String> ids = results
+                .stream()
+                .map(future -> {
+                    try {
+                        return future.get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .distinct()
+                .collect(Collectors.toList());
+
+            assertThat(ids).hasSize(1);
+            assertThat(resolver.find("/concurrent/a/b").getChildren()).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void forgetsRenamedAndDeletedFolders() {
+        Folder parent = resolver.findOrCreate("/invalidation/parent");
+        resolver.findOrCreate("/invalidation/parent/child");
+
+        parent.rename("renamed");
+        resolver.invalidate(parent.getId());
+        assertThat(resolver.find("/invalidation/parent/child")).isNull();
+        assertThat(resolver.find("/invalidation/renamed/child")).isNotNull();
+
+        // Suppression faite hors de l'application : l'entrée périmée est écartée à la lecture
+        Folder other = resolver.findOrCreate("/invalidation/other");
+        other.delete();
+        assertThat(resolver.find("/invalidation/other")).isNull();
+        assertThat(resolver.findOrCreate("/invalidation/other").getId()).isNotEqualTo(other.getId());
+    }
+
+    @Test
+    void dropsEntriesOfFoldersRenamedBehindItsBack() {
+        Folder leaf = resolver.findOrCreate("/external/parent/child/leaf");
+        assertThat(resolver.find("/external/parent/child/leaf").getId()).isEqualTo(leaf.getId());
+
+        // Renamed through another session, as from Alfresco Share or another cluster member: no invalidation here
+        Session other = server.sessionProvider("browser").getSession();
+        ((Folder) other.getObjectByPath("/external/parent")).rename("moved");
+
+        assertThat(resolver.find("/external/parent/child/leaf")).isNull();
+        assertThat(resolver.find("/external/moved/child/leaf").getId()).isEqualTo(leaf.getId());
+        assertThat(resolver.findOrCreate("/external/parent/child/leaf").getId()).isNotEqualTo(leaf.getId());
+    }
+
+    @Test
+    void resolvesRootFolder() {
+        String rootId = sessionProvider.getSession().getRootFolder().getId();
+
+        assertThat(resolver.find("/").getId()).isEqualTo(rootId);
+        assertThat(resolver.findOrCreate("").getId()).isEqualTo(rootId);
+    }
+}
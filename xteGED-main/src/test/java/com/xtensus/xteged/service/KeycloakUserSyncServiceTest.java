@@ -0,0 +1,135 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+class KeycloakUserSyncServiceTest {
+
+    private HttpServer server;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private volatile int expiresIn = 300;
+
+    private final AtomicInteger unauthorizedResponses = new AtomicInteger();
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    private KeycloakUserSyncService keycloakUserSyncService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext(
+            "/auth/realms/master/protocol/openid-connect/token",
+            exchange -> {
+                int token = tokenRequests.incrementAndGet();
+                sleep(100);
+                respond(exchange, 200, "{\"access_token\":\"token-" + token + "\",\"expires_in\":" + expiresIn + "}");
+            }
+        );
+        server.createContext(
+            "/auth/admin/realms/postarion/users",
+            exchange -> {
+                authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+                respond(exchange, unauthorizedResponses.getAndDecrement() > 0 ? 401 : 201, "");
+            }
+        );
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/auth";
+        AlfrescoHttpClient httpClient = mock(AlfrescoHttpClient.class);
+        when(httpClient.keycloakAdmin()).thenReturn(WebClient.builder().baseUrl(baseUrl + "/admin/realms/postarion").build());
+        keycloakUserSyncService = new KeycloakUserSyncService(httpClient);
+        ReflectionTestUtils.setField(keycloakUserSyncService, "tokenUrl", baseUrl + "/realms/master/protocol/openid-connect/token");
+        ReflectionTestUtils.setField(keycloakUserSyncService, "adminUser", "admin");
+        ReflectionTestUtils.setField(keycloakUserSyncService, "adminPassword", "admin");
+        ReflectionTestUtils.setField(keycloakUserSyncService, "expiryMargin", 10000L);
+        keycloakUserSyncService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void requestsOneTokenForConcurrentSynchronizations() {
+        Flux
+            .range(0, 20)
+            .flatMap(i -> keycloakUserSyncService.synchronizeUserToKeycloak("user" + i, "user" + i + "@xtensus.com"), 8)
+            .blockLast();
+
+        assertThat(tokenRequests.get()).isEqualTo(1);
+        assertThat(authorizations).hasSize(20).containsOnly("Bearer token-1");
+    }
+
+    @Test
+    void refreshesTheTokenInTheBackgroundAtHalfItsLifetime() throws Exception {
+        // 4 s lifetime: refreshed from 2 s, no longer used from 3 s
+        expiresIn = 4;
+        assertThat(keycloakUserSyncService.adminToken().block()).isEqualTo("token-1");
+
+        Thread.sleep(2100);
+        // The current token is still served while the next one is requested
+        assertThat(keycloakUserSyncService.adminToken().block()).isEqualTo("token-1");
+        long deadline = System.currentTimeMillis() + 600;
+        while (!"token-2".equals(keycloakUserSyncService.adminToken().block()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(keycloakUserSyncService.adminToken().block()).isEqualTo("token-2");
+        assertThat(tokenRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsTheCachedTokenWhenKeycloakRejectsIt() {
+        assertThat(keycloakUserSyncService.adminToken().block()).isEqualTo("token-1");
+        unauthorizedResponses.set(1);
+
+        assertThatThrownBy(() -> keycloakUserSyncService.synchronizeUserToKeycloak("user", "user@xtensus.com").block())
+            .hasMessageContaining("401");
+        keycloakUserSyncService.synchronizeUserToKeycloak("user", "user@xtensus.com").block();
+
+        assertThat(tokenRequests.get()).isEqualTo(2);
+        assertThat(authorizations).containsExactly("Bearer token-1", "Bearer token-2");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,134 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.xtensus.xteged.service.ldap.Person;
+import com.xtensus.xteged.service.person.Pagination;
+import com.xtensus.xteged.service.person.PeopleList;
+import com.xtensus.xteged.service.person.PeopleListResponse;
+import com.xtensus.xteged.service.person.PersonChangedEvent;
+import com.xtensus.xteged.service.person.PersonEntry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+class PeopleDirectoryServiceTest {
+
+    private PeopleDirectoryService peopleDirectoryService;
+
+    @BeforeEach
+    void setUp() {
+        AlfrescoService alfrescoService = mock(AlfrescoService.class);
+        when(alfrescoService.getPeopleList(eq(0), anyInt(), any(), any(), any()))
+            .thenReturn(Mono.just(page(0, true, person("admin", "Administrateur", null, "admin@xtensus.com"), person("aali", "Ali", "Ben Salah", "a.bensalah@xtensus.com"))));
+        when(alfrescoService.getPeopleList(eq(2), anyInt(), any(), any(), any()))
+            .thenReturn(Mono.just(page(2, false, person("sbenali", "Sami", "Ben Ali", "sami@xtensus.com"), person("hela", "Héla", "Trabelsi", "h.trabelsi@xtensus.com"))));
+
+        peopleDirectoryService = new PeopleDirectoryService(alfrescoService);
+        ReflectionTestUtils.setField(peopleDirectoryService, "enabled", true);
+        ReflectionTestUtils.setField(peopleDirectoryService, "pageSize", 2);
+        ReflectionTestUtils.setField(peopleDirectoryService, "changeDelay", 50L);
+    }
+
+    @Test
+    void answersOnlyOnceLoaded() {
+        assertThat(peopleDirectoryService.search("ali", 0, 10).blockOptional()).isEmpty();
+
+        assertThat(peopleDirectoryService.synchronize().block()).isEqualTo(4);
+
+        assertThat(ids(peopleDirectoryService.search("ali", 0, 10).block())).containsExactly("aali", "sbenali");
+    }
+
+    @Test
+    void ranksMatchesAndIgnoresAccents() {
+        peopleDirectoryService.synchronize().block();
+
+        assertThat(ids(peopleDirectoryService.search("ben", 0, 10).block())).containsExactly("sbenali", "aali");
+        assertThat(ids(peopleDirectoryService.search("HELA", 0, 10).block())).containsExactly("hela");
+        assertThat(ids(peopleDirectoryService.search("ben sa", 0, 10).block())).containsExactly("sbenali", "aali");
+        assertThat(ids(peopleDirectoryService.search("xtensus", 1, 2).block())).hasSize(2);
+        assertThat(peopleDirectoryService.search("xtensus", 1, 2).block().getList().getPagination().isHasMoreItems()).isTrue();
+    }
+
+    @Test
+    void appliesChangesAndSortsLocally() throws InterruptedException {
+        peopleDirectoryService.synchronize().block();
+
+        Person renamed = person("hela", "Hela", "Abidi", null);
+        peopleDirectoryService.onPersonChanged(new PersonChangedEvent(renamed));
+        peopleDirectoryService.onPersonChanged(new PersonChangedEvent(person("znew", "Zied", "Nouri", "z@xtensus.com")));
+        awaitSize(5);
+
+        PeopleListResponse byLastName = peopleDirectoryService.list(0, 10, "lastName DESC").block();
+        assertThat(ids(byLastName)).containsExactly("znew", "aali", "sbenali", "hela", "admin");
+        assertThat(byLastName.getList().getEntries().get(3).getEntry().getEmail()).isEqualTo("h.trabelsi@xtensus.com");
+        assertThat(peopleDirectoryService.list(0, 10, "jobTitle").blockOptional()).isEmpty();
+    }
+
+    @Test
+    void appliesABurstOfChangesInOneBatchOffTheCallingThread() throws InterruptedException {
+        peopleDirectoryService.synchronize().block();
+        Object loaded = ReflectionTestUtils.getField(peopleDirectoryService, "snapshot");
+
+        for (int i = 0; i < 500; i++) {
+            peopleDirectoryService.onPersonChanged(new PersonChangedEvent(person("import" + i, "Import", "N" + i, null)));
+        }
+        // Nothing is rebuilt on the publishing thread
+        assertThat(ReflectionTestUtils.getField(peopleDirectoryService, "snapshot")).isSameAs(loaded);
+
+        awaitSize(504);
+        assertThat(ids(peopleDirectoryService.search("import499", 0, 10).block())).containsExactly("import499");
+    }
+
+    private void awaitSize(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (peopleDirectoryService.list(0, 1, "id").block().getList().getPagination().getTotalItems() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(peopleDirectoryService.list(0, 1, "id").block().getList().getPagination().getTotalItems()).isEqualTo(size);
+    }
+
+    private static List<String> ids(PeopleListResponse response) {
+        return response.getList().getEntries().stream().map(entry -> entry.getEntry().getId()).collect(Collectors.toList());
+    }
+
+    private static Person person(String id, String firstName, String lastName, String email) {
+        Person person = new Person();
+        person.setId(id);
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        person.setEmail(email);
+        return person;
+    }
+
+    private static PeopleListResponse page(int skipCount, boolean hasMoreItems, Person... people) {
+        Pagination pagination = new Pagination();
+        pagination.setSkipCount(skipCount);
+        pagination.setCount(people.length);
+        pagination.setHasMoreItems(hasMoreItems);
+        PeopleList list = new PeopleList();
+        list.setPagination(pagination);
+        list.setEntries(
+            Arrays
+                .stream(people)
+                .map(person -> {
+                    PersonEntry entry = new PersonEntry();
+                    entry.setEntry(person);
+                    return entry;
+                })
+                .collect(Collectors.toList())
+        );
+        PeopleListResponse response = new PeopleListResponse();
+        response.setList(list);
+        return response;
+    }
+}
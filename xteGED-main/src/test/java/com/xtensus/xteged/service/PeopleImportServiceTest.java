@@ -0,0 +1,120 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xtensus.xteged.service.person.PeopleImportReport;
+import com.xtensus.xteged.service.person.PeopleImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+class PeopleImportServiceTest {
+
+    private AlfrescoService alfrescoService;
+
+    private KeycloakUserSyncService keycloakUserSyncService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PeopleImportService peopleImportService;
+
+    @BeforeEach
+    void setUp() {
+        alfrescoService = mock(AlfrescoService.class);
+        keycloakUserSyncService = mock(KeycloakUserSyncService.class);
+        when(alfrescoService.createPersonIfAbsent(any(PersonneRequest.class))).thenReturn(Mono.just(true));
+        when(keycloakUserSyncService.createUserIfAbsent(anyString(), anyString(), any(), any())).thenReturn(Mono.just(true));
+
+        meterRegistry = new SimpleMeterRegistry();
+        peopleImportService = new PeopleImportService(alfrescoService, keycloakUserSyncService, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(peopleImportService, "alfrescoConcurrency", 4);
+        ReflectionTestUtils.setField(peopleImportService, "keycloakConcurrency", 2);
+        ReflectionTestUtils.setField(peopleImportService, "maxRetries", 2);
+        ReflectionTestUtils.setField(peopleImportService, "retryBackoff", 1L);
+    }
+
+    @Test
+    void importsCsvTreatingExistingPeopleAsSuccess() {
+        when(alfrescoService.createPersonIfAbsent(any(PersonneRequest.class)))
+            .thenAnswer(invocation -> Mono.just(!"bmartin".equals(invocation.<PersonneRequest>getArgument(0).getId())));
+        String csv = "email;id;firstName;lastName\n" + "a.ali@x.tn;aali;Ali;Ben Ali\n" + "\n" + "b.martin@x.tn;bmartin;\"Bernard\";Martin\n" + ";nomail;;\n";
+
+        PeopleImportReport report = peopleImportService
+            .importPeople(peopleImportService.csv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))), true)
+            .block();
+
+        assertThat(report.getTotal()).isEqualTo(3);
+        assertThat(report.getSucceeded()).isEqualTo(2);
+        assertThat(report.getItems()).extracting(PeopleImportResult::getId).containsExactly("aali", "bmartin", "nomail");
+        assertThat(report.getItems().get(1).getAlfresco()).isEqualTo(PeopleImportResult.Status.EXISTING);
+        assertThat(report.getItems().get(2).getAlfresco()).isEqualTo(PeopleImportResult.Status.FAILED);
+        assertThat(report.getItems().get(2).getKeycloak()).isEqualTo(PeopleImportResult.Status.SKIPPED);
+        verify(keycloakUserSyncService).createUserIfAbsent("bmartin", "b.martin@x.tn", "Bernard", "Martin");
+        verify(keycloakUserSyncService, never()).createUserIfAbsent(eq("nomail"), any(), any(), any());
+        assertThat(meterRegistry.timer("xteged.people.import.stage", "stage", "alfresco", "result", "created").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("xteged.people.import.stage", "stage", "keycloak", "result", "created").count()).isEqualTo(2);
+    }
+
+    @Test
+    void readsQuotedCsvFieldsContainingSeparatorsQuotesAndLineBreaks() {
+        String csv =
+            "id,lastName,company,email,firstName\r\n" +
+            "aali,\"Ben Ali, Jr\",\"Xtensus; \"\"Tunis\"\"\",a.ali@x.tn,Ali\r\n" +
+            "bmartin,Martin,\"Rue A,\nTunis\",b.martin@x.tn,\"Bernard\"\r\n";
+
+        List<PersonneRequest> people = peopleImportService
+            .csv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))
+            .collectList()
+            .block();
+
+        assertThat(people).extracting(PersonneRequest::getId).containsExactly("aali", "bmartin");
+        assertThat(people).extracting(PersonneRequest::getLastName).containsExactly("Ben Ali, Jr", "Martin");
+        assertThat(people).extracting(PersonneRequest::getEmail).containsExactly("a.ali@x.tn", "b.martin@x.tn");
+        assertThat(people).extracting(PersonneRequest::getFirstName).containsExactly("Ali", "Bernard");
+    }
+
+    @Test
+    void retriesTransientErrorsOnly() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(alfrescoService.createPersonIfAbsent(any(PersonneRequest.class)))
+            .thenAnswer(invocation -> {
+                PersonneRequest person = invocation.getArgument(0);
+                if ("invalid".equals(person.getId())) {
+                    return Mono.error(WebClientResponseException.create(400, "Bad Request", null, null, null));
+                }
+                return Mono.defer(() ->
+                    attempts.incrementAndGet() == 1
+                        ? Mono.error(WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", null, null, null))
+                        : Mono.just(true)
+                );
+            });
+        String json = "[{\"id\":\"aali\",\"email\":\"a.ali@x.tn\"},{\"id\":\"invalid\",\"email\":\"i@x.tn\"}]";
+
+        PeopleImportReport report = peopleImportService
+            .importPeople(peopleImportService.json(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))), false)
+            .block();
+
+        assertThat(report.getItems().get(0).getAlfresco()).isEqualTo(PeopleImportResult.Status.CREATED);
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(report.getItems().get(1).getAlfresco()).isEqualTo(PeopleImportResult.Status.FAILED);
+        assertThat(report.getItems().get(1).getError()).startsWith("Alfresco : 400");
+        assertThat(meterRegistry.timer("xteged.people.import.stage", "stage", "alfresco", "result", "failed").count()).isEqualTo(1);
+        verify(keycloakUserSyncService, never()).createUserIfAbsent(anyString(), anyString(), any(), any());
+    }
+}
@@ -0,0 +1,97 @@
+package com.xtensus.xteged.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RequestCoalescerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer();
+    }
+
+    @Test
+    void sharesOneUpstreamCallBetweenConcurrentIdenticalRequests() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = coalescer.execute("node|1", () -> call(upstream));
+        Mono<String> second = coalescer.execute("node|1", () -> call(upstream));
+        Mono<String> other = coalescer.execute("node|2", () -> Mono.fromSupplier(() -> "other#" + calls.incrementAndGet()));
+
+        String[] results = new String[2];
+        first.subscribe(value -> results[0] = value);
+        second.subscribe(value -> results[1] = value);
+        assertThat(calls).hasValue(1);
+        assertThat(coalescer.size()).isEqualTo(1);
+
+        upstream.tryEmitValue("node-1");
+
+        assertThat(results).containsExactly("node-1", "node-1");
+        assertThat(coalescer.size()).isZero();
+        assertThat(other.block()).isEqualTo("other#2");
+        // Without a memoisation window, a later request calls upstream again
+        assertThat(coalescer.execute("node|1", () -> Mono.fromSupplier(() -> "again#" + calls.incrementAndGet())).block()).isEqualTo("again#3");
+    }
+
+    @Test
+    void doesNotKeepErrors() {
+        ReflectionTestUtils.setField(coalescer, "memoMs", 60_000L);
+
+        Mono<String> failing = coalescer.execute("person|x", () -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("Alfresco down"));
+        });
+
+        assertThat(failing.onErrorReturn("error").block()).isEqualTo("error");
+        assertThat(coalescer.size()).isZero();
+        assertThat(coalescer.execute("person|x", () -> Mono.just("ok")).block()).isEqualTo("ok");
+    }
+
+    @Test
+    void memoisesResultDuringWindow() throws InterruptedException {
+        ReflectionTestUtils.setField(coalescer, "memoMs", 500L);
+
+        assertThat(coalescer.execute("node|1", () -> Mono.fromSupplier(() -> "v" + calls.incrementAndGet())).block()).isEqualTo("v1");
+        assertThat(coalescer.execute("node|1", () -> Mono.fromSupplier(() -> "v" + calls.incrementAndGet())).block()).isEqualTo("v1");
+
+        Thread.sleep(1000);
+
+        assertThat(coalescer.size()).isZero();
+        assertThat(coalescer.execute("node|1", () -> Mono.fromSupplier(() -> "v" + calls.incrementAndGet())).block()).isEqualTo("v2");
+    }
+
+    @Test
+    void readsOurOwnWritesInsideTheMemoWindow() {
+        ReflectionTestUtils.setField(coalescer, "memoMs", 60_000L);
+        String details = AlfrescoMetadataCache.NODES + "|n-1|details|null|null";
+        String person = AlfrescoMetadataCache.PEOPLE + "|jdoe";
+
+        assertThat(coalescer.execute(details, () -> Mono.fromSupplier(() -> "node-v" + calls.incrementAndGet())).block()).isEqualTo("node-v1");
+        assertThat(coalescer.execute(person, () -> Mono.fromSupplier(() -> "person-v" + calls.incrementAndGet())).block()).isEqualTo("person-v2");
+        assertThat(coalescer.execute(AlfrescoMetadataCache.NODES + "|n-10|details", () -> Mono.just("other")).block()).isEqualTo("other");
+
+        // updateNode publishes its event, updatePerson invalidates directly
+        coalescer.onNodeChanged(new NodeChangedEvent(NodeChangedEvent.Type.UPDATED, "n-1"));
+        coalescer.invalidate(person);
+
+        assertThat(coalescer.execute(details, () -> Mono.fromSupplier(() -> "node-v" + calls.incrementAndGet())).block()).isEqualTo("node-v3");
+        assertThat(coalescer.execute(person, () -> Mono.fromSupplier(() -> "person-v" + calls.incrementAndGet())).block()).isEqualTo("person-v4");
+        // Only the keys of the changed node are dropped, not those sharing its prefix
+        assertThat(coalescer.execute(AlfrescoMetadataCache.NODES + "|n-10|details", () -> Mono.just("reloaded")).block()).isEqualTo("other");
+    }
+
+    private Mono<String> call(Sinks.One<String> upstream) {
+        calls.incrementAndGet();
+        return upstream.asMono();
+    }
+}
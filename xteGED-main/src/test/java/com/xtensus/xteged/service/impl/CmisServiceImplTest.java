@@ -0,0 +1,118 @@
+package com.xtensus.xteged.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xtensus.xteged.service.CmisInMemoryServer;
+import com.xtensus.xteged.service.CmisSessionProvider;
+import com.xtensus.xteged.service.DocumentDetails;
+import com.xtensus.xteged.service.DocumentNameService;
+import com.xtensus.xteged.service.FolderPathResolver;
+import com.xtensus.xteged.service.node.NodeChangedEvent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link CmisServiceImpl} against the {@link CmisInMemoryServer} repository.
+ */
+class CmisServiceImplTest {
+
+    private static CmisInMemoryServer server;
+
+    private static CmisServiceImpl cmisService;
+
+    private static DocumentNameService documentNameService;
+
+    @BeforeAll
+    static void startRepository() throws Exception {
+        server = CmisInMemoryServer.start();
+        CmisSessionProvider sessionProvider = server.sessionProvider("atompub");
+        FolderPathResolver folderPathResolver = new FolderPathResolver(sessionProvider);
+        ReflectionTestUtils.setField(folderPathResolver, "maxSize", 100L);
+        ReflectionTestUtils.setField(folderPathResolver, "ttl", 60000L);
+        folderPathResolver.init();
+        documentNameService = new DocumentNameService(sessionProvider);
+        ReflectionTestUtils.setField(documentNameService, "maxSize", 100L);
+        ReflectionTestUtils.setField(documentNameService, "ttl", 60000L);
+        documentNameService.init();
+        cmisService = new CmisServiceImpl(new ObjectMapper(), sessionProvider, folderPathResolver, documentNameService);
+    }
+
+    @AfterAll
+    static void stopRepository() throws Exception {
+        server.close();
+    }
+
+    @Test
+    void listsDocumentNamesStartingWithPrefixInOneFolder() {
+        Folder folder = cmisService.createFolder("/names/scans");
+        Folder other = cmisService.createFolder("/names/other");
+        for (String name : new String[] { "scan.pdf", "scan-1.pdf", "scan-2.pdf", "scanner.pdf", "notes.txt", "scan_x.pdf" }) {
+            createDocument(folder, name);
+        }
+        createDocument(other, "scan-3.pdf");
+
+        assertThat(cmisService.getDocumentNamesStartingWith(folder, "scan"))
+            .containsExactlyInAnyOrder("scan.pdf", "scan-1.pdf", "scan-2.pdf", "scanner.pdf", "scan_x.pdf");
+        assertThat(cmisService.getDocumentNamesStartingWith(folder, "scan_")).containsExactly("scan_x.pdf");
+    }
+
+    @Test
+    void readsDetailsOfSeveralDocumentsAndSkipsUnknownIds() {
+        Folder folder = cmisService.createFolder("/batch/docs");
+        String first = createDocument(folder, "a.pdf");
+        String second = createDocument(folder, "b.pdf");
+
+        Map<String, DocumentDetails> details = cmisService.getDocumentDetails(Arrays.asList(first, "unknown-id", second, folder.getId()));
+
+        assertThat(details).containsOnlyKeys(first, second);
+        assertThat(details.get(first).getName()).isEqualTo("a.pdf");
+        assertThat(details.get(second).getName()).isEqualTo("b.pdf");
+        assertThat(details.get(second).getCreationDate()).isNotNull();
+    }
+
+    @Test
+    void resolvesDocumentNamesInOneCallAndCachesThemUntilTheNodeChanges() {
+        Folder folder = cmisService.createFolder("/batch/names");
+        String first = createDocument(folder, "report.final.pdf");
+        String second = createDocument(folder, "README");
+
+        assertThat(cmisService.getDocumentNames(Arrays.asList(second, "unknown-id", first, folder.getId())))
+            .containsExactly(Map.entry(second, "README"), Map.entry(first, "report.final"));
+
+        Document document = (Document) server.sessionProvider("atompub").getSession().getObject(first);
+        document.updateProperties(Collections.singletonMap(PropertyIds.NAME, "renamed.pdf"));
+        assertThat(cmisService.getDocumentNames(Collections.singletonList(first))).containsEntry(first, "report.final");
+
+        documentNameService.onNodeChanged(new NodeChangedEvent(NodeChangedEvent.Type.UPDATED, first));
+        assertThat(cmisService.getDocumentNames(Collections.singletonList(first))).containsEntry(first, "renamed");
+    }
+
+    @Test
+    void matchesDetailsOfWorkspaceReferencesAndVersionedIdsLikeNames() {
+        Folder folder = cmisService.createFolder("/batch/references");
+        String id = createDocument(folder, "ref.pdf");
+        String reference = "workspace://SpacesStore/" + id + ";1.0";
+
+        assertThat(cmisService.getDocumentDetails(Arrays.asList(reference, id))).containsOnlyKeys(reference, id);
+        assertThat(cmisService.getDocumentNames(Arrays.asList(reference, id))).containsOnly(Map.entry(reference, "ref"), Map.entry(id, "ref"));
+    }
+
+    // cmis:document is not versionable in the InMemory repository
+    private static String createDocument(Folder folder, String name) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:document");
+        properties.put(PropertyIds.NAME, name);
+        return folder.createDocument(properties, null, VersioningState.NONE).getId();
+    }
+}
@@ -0,0 +1,230 @@
+package com.xtensus.xteged.service.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import javax.naming.ldap.SortControl;
+import javax.naming.spi.InitialContextFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LdapUserServiceTest {
+
+    private static LdapContext context;
+
+    private LdapUserService ldapUserService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context = mock(LdapContext.class);
+        ldapUserService = new LdapUserService();
+        ReflectionTestUtils.setField(ldapUserService, "active", true);
+        ReflectionTestUtils.setField(ldapUserService, "url", "ldap://localhost:389");
+        ReflectionTestUtils.setField(ldapUserService, "principal", "");
+        ReflectionTestUtils.setField(ldapUserService, "userSearchBase", "ou=users,dc=xtensus,dc=com");
+        ReflectionTestUtils.setField(ldapUserService, "userQuery", "(objectclass=inetOrgPerson)");
+        ReflectionTestUtils.setField(ldapUserService, "contextFactory", MockContextFactory.class.getName());
+        ReflectionTestUtils.setField(ldapUserService, "cursorMaxSize", 8L);
+        ReflectionTestUtils.setField(ldapUserService, "cursorTtl", 60000L);
+        ldapUserService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ldapUserService.destroy();
+    }
+
+    @Test
+    void readsFirstPageInOneSearchWithOnlyNeededAttributes() throws Exception {
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class)))
+            .thenReturn(results(entry("aali", "Ali", "Ben Salah", "علي بن صالح", "1"), entry("sbenali", "Sami", "Ben Ali", null, " ")));
+
+        List<Person> people = ldapUserService.getAllUsers(0, 50, "nom,desc", "ben");
+
+        assertThat(people).extracting(Person::getId).containsExactly("aali", "sbenali");
+        assertThat(people.get(0).getNomArabe()).isEqualTo("علي بن صالح");
+        assertThat(people.get(0).isEnabled()).isTrue();
+        assertThat(people.get(1).isEnabled()).isFalse();
+        assertThat(people.get(0).getAdditionalProperties()).containsEntry("shortName", "M-aali").containsEntry("otp", "0");
+
+        ArgumentCaptor<SearchControls> searchControls = ArgumentCaptor.forClass(SearchControls.class);
+        verify(context, times(1))
+            .search(
+                eq("ou=users,dc=xtensus,dc=com"),
+                eq("(&(objectclass=inetOrgPerson)(|(uid=*{0}*)(sn=*{0}*)(givenName=*{0}*)(employeeNumber=*{0}*)(businessCategory=*{0}*)))"),
+                eq(new Object[] { "ben" }),
+                searchControls.capture()
+            );
+        assertThat(searchControls.getValue().getReturningAttributes()).contains("uid", "sn", "businessCategory").hasSize(9);
+        ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+        verify(context).setRequestControls(controls.capture());
+        assertThat(controls.getValue()).hasSize(2);
+        assertThat(controls.getValue()[0]).isInstanceOf(PagedResultsControl.class);
+        assertThat(controls.getValue()[1]).isInstanceOf(SortControl.class);
+        verify(context).close();
+    }
+
+    @Test
+    void skipsPreviousPagesInOneRequest() throws Exception {
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class)))
+            .thenReturn(results(entry("a", "A", "A", null, "1"), entry("b", "B", "B", null, "1")))
+            .thenReturn(results(entry("c", "C", "C", null, "1")));
+        when(context.getResponseControls()).thenReturn(new Control[] { pagedResponse(new byte[] { 7 }) });
+
+        List<Person> people = ldapUserService.getAllUsers(2, 1, null, null);
+
+        assertThat(people).extracting(Person::getId).containsExactly("c");
+        verify(context, times(2)).search(eq("ou=users,dc=xtensus,dc=com"), eq("(objectclass=inetOrgPerson)"), any(Object[].class), any(SearchControls.class));
+    }
+
+    @Test
+    void keepsSkippingWhenTheServerCapsThePageSize() throws Exception {
+        // Page 3 of size 2: 6 entries to skip, the server returns at most 4 per page
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class)))
+            .thenReturn(results(entry("a", "A", "A", null, "1"), entry("b", "B", "B", null, "1"), entry("c", "C", "C", null, "1"), entry("d", "D", "D", null, "1")))
+            .thenReturn(results(entry("e", "E", "E", null, "1"), entry("f", "F", "F", null, "1")))
+            .thenReturn(results(entry("g", "G", "G", null, "1"), entry("h", "H", "H", null, "1")));
+        when(context.getResponseControls())
+            .thenReturn(new Control[] { pagedResponse(new byte[] { 1 }) })
+            .thenReturn(new Control[] { pagedResponse(new byte[] { 2 }) })
+            .thenReturn(new Control[] { pagedResponse(new byte[0]) });
+
+        assertThat(ldapUserService.getAllUsers(3, 2, null, null)).extracting(Person::getId).containsExactly("g", "h");
+        verify(context, times(3)).search(anyString(), anyString(), any(Object[].class), any(SearchControls.class));
+    }
+
+    @Test
+    void readsTheNextPageWithTheCookieOfThePreviousOne() throws Exception {
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class)))
+            .thenReturn(results(entry("a", "A", "A", null, "1")))
+            .thenReturn(results(entry("b", "B", "B", null, "1")))
+            .thenReturn(results(entry("c", "C", "C", null, "1")));
+        when(context.getResponseControls())
+            .thenReturn(new Control[] { pagedResponse(new byte[] { 1 }) })
+            .thenReturn(new Control[] { pagedResponse(new byte[] { 2 }) })
+            .thenReturn(new Control[] { pagedResponse(new byte[0]) });
+
+        assertThat(ldapUserService.getAllUsers(0, 1, "nom", "a")).extracting(Person::getId).containsExactly("a");
+        assertThat(ldapUserService.getAllUsers(1, 1, "nom", "a")).extracting(Person::getId).containsExactly("b");
+        assertThat(ldapUserService.getAllUsers(2, 1, "nom", "a")).extracting(Person::getId).containsExactly("c");
+
+        // One search per page, no skip, and the context is kept open until the last page
+        verify(context, times(3)).search(anyString(), anyString(), any(Object[].class), any(SearchControls.class));
+        ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+        verify(context, times(3)).setRequestControls(controls.capture());
+        assertThat(controls.getAllValues()).allSatisfy(requested -> assertThat(requested[0]).isInstanceOf(PagedResultsControl.class));
+        verify(context, times(1)).close();
+    }
+
+    @Test
+    void skipsPreviousPagesWhenTheCursorBelongsToAnotherQuery() throws Exception {
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class)))
+            .thenReturn(results(entry("a", "A", "A", null, "1")))
+            .thenReturn(results(entry("a", "A", "A", null, "1")))
+            .thenReturn(results(entry("b", "B", "B", null, "1")));
+        when(context.getResponseControls()).thenReturn(new Control[] { pagedResponse(new byte[] { 1 }) });
+
+        ldapUserService.getAllUsers(0, 1, "nom", null);
+        assertThat(ldapUserService.getAllUsers(1, 1, "prenom", null)).extracting(Person::getId).containsExactly("b");
+
+        verify(context, times(3)).search(anyString(), anyString(), any(Object[].class), any(SearchControls.class));
+    }
+
+    @Test
+    void returnsNothingPastTheLastPage() throws Exception {
+        when(context.search(anyString(), anyString(), any(Object[].class), any(SearchControls.class))).thenReturn(results());
+        when(context.getResponseControls()).thenReturn(new Control[] { pagedResponse(new byte[0]) });
+
+        assertThat(ldapUserService.getAllUsers(3, 10, "prenom", null)).isEmpty();
+        verify(context, times(1)).search(anyString(), anyString(), any(Object[].class), any(SearchControls.class));
+    }
+
+    private static SearchResult entry(String uid, String givenName, String sn, String nomArabe, String roomNumber) {
+        BasicAttributes attributes = new BasicAttributes(true);
+        attributes.put("uid", uid);
+        attributes.put("givenName", givenName);
+        attributes.put("sn", sn);
+        attributes.put("employeeNumber", "M-" + uid);
+        attributes.put("roomNumber", roomNumber);
+        if (nomArabe != null) {
+            attributes.put("businessCategory", nomArabe);
+        }
+        return new SearchResult("uid=" + uid, null, attributes);
+    }
+
+    /**
+     * BER-encoded paged results response: SEQUENCE { INTEGER 0, OCTET STRING cookie }.
+     */
+    private static PagedResultsResponseControl pagedResponse(byte[] cookie) throws Exception {
+        byte[] value = new byte[7 + cookie.length];
+        value[0] = 0x30;
+        value[1] = (byte) (5 + cookie.length);
+        value[2] = 0x02;
+        value[3] = 0x01;
+        value[4] = 0x00;
+        value[5] = 0x04;
+        value[6] = (byte) cookie.length;
+        System.arraycopy(cookie, 0, value, 7, cookie.length);
+        return new PagedResultsResponseControl(PagedResultsControl.OID, false, value);
+    }
+
+    private static NamingEnumeration<SearchResult> results(SearchResult... results) {
+        Iterator<SearchResult> iterator = new ArrayList<>(Arrays.asList(results)).iterator();
+        return new NamingEnumeration<SearchResult>() {
+            @Override
+            public SearchResult next() {
+                return iterator.next();
+            }
+
+            @Override
+            public boolean hasMore() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public void close() {}
+
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public SearchResult nextElement() {
+                return iterator.next();
+            }
+        };
+    }
+
+    public static class MockContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            assertThat(environment.get("com.sun.jndi.ldap.connect.pool")).isEqualTo("true");
+            return context;
+        }
+    }
+}
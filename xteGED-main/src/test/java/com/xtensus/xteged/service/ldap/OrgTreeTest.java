@@ -0,0 +1,65 @@
+package com.xtensus.xteged.service.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class OrgTreeTest {
+
+    @Test
+    void answersSubtreeAncestorAndMembershipQueries() {
+        Unit direction = unit(1, "Direction générale", person("dg"));
+        Unit finance = unit(2, "Finances", person("daf"), person("comptable"));
+        Unit it = unit(3, "Informatique", person("dsi"));
+        BOC mailroom = boc(10, person("agent1"));
+        BOC annex = boc(11, person("agent2"));
+        direction.setListUnitsChildUnit(Arrays.asList(finance, it));
+        finance.setListBOChildUnit(Collections.singletonList(mailroom));
+        mailroom.setListChildBOCsBOC(Collections.singletonList(annex));
+        // Cycle back to the root: ignored, the first parent wins
+        annex.setListDirectionsChildBOC(Collections.singletonList(direction));
+        it.setMembersUnit(Collections.singletonList(person("agent1")));
+
+        OrgTree tree = OrgTree.of(Collections.singletonList(direction));
+
+        assertThat(tree.size()).isEqualTo(5);
+        assertThat(tree.getDuplicates()).isEqualTo(1);
+        assertThat(tree.contains("unit:1", "boc:11")).isTrue();
+        assertThat(tree.contains("unit:2", "boc:11")).isTrue();
+        assertThat(tree.contains("unit:3", "boc:10")).isFalse();
+        assertThat(tree.contains("boc:11", "unit:1")).isFalse();
+        assertThat(tree.ancestors("boc:11")).extracting(OrgTree.Node::getKey).containsExactly("boc:10", "unit:2", "unit:1");
+        assertThat(tree.node("boc:11").get().getDepth()).isEqualTo(3);
+
+        assertThat(tree.membersUnder("unit:2")).containsExactly("daf", "comptable", "agent1", "agent2");
+        assertThat(tree.isMemberUnder("agent2", "unit:2")).isTrue();
+        assertThat(tree.isMemberUnder("agent2", "unit:3")).isFalse();
+        assertThat(tree.isMemberUnder("agent1", "unit:3")).isTrue();
+        assertThat(tree.nodesOf("agent1")).extracting(OrgTree.Node::getKey).containsExactly("boc:10", "unit:3");
+        assertThat(tree.node("unit:2").get().getResponsibleIds()).containsExactly("daf");
+    }
+
+    private static Unit unit(int id, String name, Person responsible, Person... members) {
+        Unit unit = new Unit();
+        unit.setIdUnit(id);
+        unit.setNameUnit(name);
+        unit.setResponsibleUnit(responsible);
+        unit.setMembersUnit(Arrays.asList(members));
+        return unit;
+    }
+
+    private static BOC boc(int id, Person member) {
+        BOC boc = new BOC();
+        boc.setIdBOC(id);
+        boc.setMembersBOC(Collections.singletonList(member));
+        return boc;
+    }
+
+    private static Person person(String id) {
+        Person person = new Person();
+        person.setId(id);
+        return person;
+    }
+}
@@ -0,0 +1,146 @@
+package com.xtensus.xteged.service.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmark of {@link PersonNameIndex} against the linear {@code toLowerCase().contains()} scan it replaces, on
+ * generated Latin/Arabic directories of 10k, 100k and 1M people: build time, then latency of prefix, infix and
+ * Arabic queries (top 20).
+ * <p>
+ * Disabled by default, run it with (1M entries need a few GB of heap):
+ * {@code ./mvnw test -Dtest=PersonNameIndexBenchmarkTest -Dname-index.benchmark=true -DargLine=-Xmx4g}
+ */
+@EnabledIfSystemProperty(named = "name-index.benchmark", matches = "true")
+class PersonNameIndexBenchmarkTest {
+
+    private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+
+    private static final String[] QUERIES = { "ben", "moha", "ali tra", "rabel", "منصو", "بن علي" };
+
+    private static final String[] LATIN = { "ben", "ali", "mo", "ha", "med", "sa", "lah", "tra", "bel", "si", "man", "sour", "ka", "ri", "ne", "la", "ou", "fa" };
+
+    private static final String[] ARABIC = { "بن", "علي", "مح", "مد", "صا", "لح", "طرا", "بل", "سي", "من", "صور", "كر", "يم", "فا" };
+
+    private static final int LIMIT = 20;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.MINUTES)
+    void compareWithLinearScan() {
+        System.out.println();
+        System.out.println("Person name index benchmark (top " + LIMIT + ", " + MEASURED_ROUNDS + " rounds per query)");
+        System.out.println(String.format("%10s %-8s %-10s %12s %12s", "people", "search", "query", "mean (us)", "p95 (us)"));
+        for (int size : SIZES) {
+            List<Person> people = generate(size, new Random(size));
+
+            long start = System.nanoTime();
+            PersonNameIndex index = PersonNameIndex.of(people);
+            long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println(String.format("%10d %-8s %-10s %12s", size, "build", "", buildMillis + " ms"));
+
+            for (String query : QUERIES) {
+                Samples indexed = new Samples();
+                Samples scanned = new Samples();
+                for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                    long begin = System.nanoTime();
+                    int found = index.search(query, LIMIT).getTotal();
+                    long indexNanos = System.nanoTime() - begin;
+
+                    begin = System.nanoTime();
+                    int scannedCount = scan(people, query);
+                    long scanNanos = System.nanoTime() - begin;
+
+                    if (round >= WARMUP_ROUNDS) {
+                        indexed.record(indexNanos);
+                        scanned.record(scanNanos);
+                    }
+                    assertThat(found).isPositive();
+                    assertThat(scannedCount).isNotNegative();
+                }
+                indexed.print(size, "index", query);
+                scanned.print(size, "scan", query);
+            }
+        }
+    }
+
+    /**
+     * Recherche d'origine de {@code LdapUserService} : sous-chaîne en minuscules sur chaque personne.
+     */
+    private static int scan(List<Person> people, String query) {
+        String[] words = query.toLowerCase().split("\\s+");
+        int count = 0;
+        for (Person person : people) {
+            boolean matches = true;
+            for (String word : words) {
+                if (
+                    !person.getId().toLowerCase().contains(word) &&
+                    !person.getLastName().toLowerCase().contains(word) &&
+                    !person.getNomArabe().toLowerCase().contains(word)
+                ) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Person> generate(int size, Random random) {
+        List<Person> people = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String firstName = capitalize(word(LATIN, random));
+            String lastName = capitalize(word(LATIN, random)) + " " + capitalize(word(LATIN, random));
+            Person person = new Person();
+            person.setId(firstName.toLowerCase().charAt(0) + lastName.toLowerCase().replace(" ", "") + i);
+            person.setFirstName(firstName);
+            person.setLastName(lastName);
+            person.setEmail(person.getId() + "@xtensus.com");
+            person.setNomArabe(word(ARABIC, random) + " " + word(ARABIC, random) + " " + word(ARABIC, random));
+            people.add(person);
+        }
+        return people;
+    }
+
+    private static String word(String[] syllables, Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, count = 2 + random.nextInt(2); i < count; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static final class Samples {
+
+        private final List<Long> nanos = new ArrayList<>();
+
+        void record(long elapsedNanos) {
+            nanos.add(elapsedNanos);
+        }
+
+        void print(int size, String search, String query) {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1000d;
+            double p95 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95))] / 1000d;
+            System.out.println(String.format("%10d %-8s %-10s %12.1f %12.1f", size, search, query, mean, p95));
+        }
+    }
+}
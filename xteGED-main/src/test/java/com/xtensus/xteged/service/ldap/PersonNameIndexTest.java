@@ -0,0 +1,62 @@
+package com.xtensus.xteged.service.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PersonNameIndexTest {
+
+    private final PersonNameIndex index = PersonNameIndex.of(
+        Arrays.asList(
+            person("aali", "Ali", "Ben Salah", "a.bensalah@xtensus.com", "علي بن صالح"),
+            person("sbenali", "Sami", "Ben Ali", "sami@xtensus.com", "سامي بن علي"),
+            person("hela", "Héla", "Trabelsi", "h.trabelsi@xtensus.com", "هالة الطرابلسي"),
+            person("ahmed", "Ahmed", "Mansour", "ahmed@xtensus.com", "أحمد منصور")
+        )
+    );
+
+    @Test
+    void findsLatinPrefixesAndInfixesIgnoringCaseAndAccents() {
+        assertThat(ids("ali")).containsExactly("aali", "sbenali");
+        assertThat(ids("HELA")).containsExactly("hela");
+        assertThat(ids("rabel")).containsExactly("hela");
+        assertThat(ids("ben sa")).containsExactly("sbenali", "aali");
+        assertThat(ids("b.t")).isEmpty();
+        assertThat(ids("a.ben")).containsExactly("aali");
+    }
+
+    @Test
+    void findsArabicNamesIgnoringVowelsAndLetterVariants() {
+        assertThat(ids("احمد")).containsExactly("ahmed");
+        assertThat(ids("هاله")).containsExactly("hela");
+        assertThat(ids("عَلِيّ")).containsExactly("aali", "sbenali");
+        assertThat(ids("طرابلس")).containsExactly("hela");
+    }
+
+    @Test
+    void keepsTopResultsAndCountsAllMatches() {
+        PersonNameIndex.Result result = index.search("xtensus", 2);
+
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getPeople()).extracting(Person::getId).containsExactly("sbenali", "aali");
+        assertThat(index.search("", 3).getPeople()).extracting(Person::getId).containsExactly("sbenali", "aali", "ahmed");
+        assertThat(index.search("", 3).getTotal()).isEqualTo(4);
+    }
+
+    private List<String> ids(String query) {
+        return index.search(query, 10).getPeople().stream().map(Person::getId).collect(Collectors.toList());
+    }
+
+    private static Person person(String id, String firstName, String lastName, String email, String nomArabe) {
+        Person person = new Person();
+        person.setId(id);
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        person.setEmail(email);
+        person.setNomArabe(nomArabe);
+        return person;
+    }
+}
@@ -0,0 +1,124 @@
+package com.xtensus.xteged.web.rest.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.xtensus.xteged.service.AlfrescoHttpClient;
+import com.xtensus.xteged.service.AlfrescoMetadataCache;
+import com.xtensus.xteged.service.AlfrescoService;
+import com.xtensus.xteged.service.AsyncCmisService;
+import com.xtensus.xteged.service.CmisService;
+import com.xtensus.xteged.service.CmisSessionProvider;
+import com.xtensus.xteged.service.FolderExportService;
+import com.xtensus.xteged.service.FolderPathResolver;
+import com.xtensus.xteged.service.PeopleDirectoryService;
+import com.xtensus.xteged.service.RequestCoalescer;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class AlfrescoControllerDownloadTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(false));
+
+    private final List<NettyDataBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    private ClientRequest request;
+
+    private ClientResponse response;
+
+    private AlfrescoController controller;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient
+            .builder()
+            .exchangeFunction(clientRequest -> {
+                request = clientRequest;
+                return Mono.just(response);
+            })
+            .build();
+        AlfrescoHttpClient httpClient = mock(AlfrescoHttpClient.class);
+        when(httpClient.alfresco()).thenReturn(webClient);
+        AlfrescoService alfrescoService = new AlfrescoService(
+            httpClient,
+            mock(CmisService.class),
+            mock(CmisSessionProvider.class),
+            mock(FolderPathResolver.class),
+            mock(ApplicationEventPublisher.class),
+            mock(AlfrescoMetadataCache.class),
+            mock(RequestCoalescer.class),
+            mock(AsyncCmisService.class)
+        );
+        ReflectionTestUtils.setField(alfrescoService, "alfrescoUrl", "http://alfresco/api");
+        controller = new AlfrescoController(alfrescoService, mock(FolderExportService.class), mock(PeopleDirectoryService.class));
+    }
+
+    @Test
+    void relaysAPartialContentResponseWithItsAllowedHeadersOnly() throws Exception {
+        response =
+            ClientResponse
+                .create(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_TYPE, "application/pdf")
+                .header(HttpHeaders.CONTENT_LENGTH, "10")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes 0-9/100")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.ETAG, "\"v1\"")
+                .header(HttpHeaders.SET_COOKIE, "alfTicket=secret")
+                .header("X-Alfresco-Node", "n-1")
+                .body(Flux.just(buffer("01234"), buffer("56789")))
+                .build();
+
+        ResponseEntity<StreamingResponseBody> entity = controller.downloadFile("n-1", "bytes=0-9", "\"v1\"").block();
+
+        assertThat(request.url().toString()).isEqualTo("http://alfresco/api/nodes/n-1/content");
+        assertThat(request.headers().getFirst(HttpHeaders.RANGE)).isEqualTo("bytes=0-9");
+        assertThat(request.headers().getFirst(HttpHeaders.IF_RANGE)).isEqualTo("\"v1\"");
+        assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(entity.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-9/100");
+        assertThat(entity.getHeaders().getFirst(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+        assertThat(entity.getHeaders().keySet())
+            .doesNotContain(HttpHeaders.SET_COOKIE, "X-Alfresco-Node")
+            // No upstream Content-Disposition: none is made up from the node id
+            .doesNotContain(HttpHeaders.CONTENT_DISPOSITION);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.getBody().writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("0123456789");
+        assertThat(buffers).hasSize(2).allSatisfy(buffer -> assertThat(buffer.getNativeBuffer().refCnt()).isZero());
+    }
+
+    @Test
+    void forwardsTheUpstreamErrorStatus() {
+        response = ClientResponse.create(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        assertThat(controller.downloadFile("n-1", "bytes=500-", null).block().getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+
+        response = ClientResponse.create(HttpStatus.NOT_FOUND).build();
+        assertThat(controller.downloadFile("n-2", null, null).block().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(request.headers().containsKey(HttpHeaders.RANGE)).isFalse();
+    }
+
+    private NettyDataBuffer buffer(String content) {
+        NettyDataBuffer buffer = bufferFactory.wrap(bufferFactory.getByteBufAllocator().buffer().writeBytes(content.getBytes(StandardCharsets.UTF_8)));
+        buffers.add(buffer);
+        return buffer;
+    }
+}